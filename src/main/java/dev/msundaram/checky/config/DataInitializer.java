@@ -2,6 +2,7 @@ package dev.msundaram.checky.config;
 
 import dev.msundaram.checky.entity.*;
 import dev.msundaram.checky.repository.*;
+import dev.msundaram.checky.security.ApiKeyHasher;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -280,7 +281,7 @@ public class DataInitializer implements CommandLineRunner {
     
     private void createApiKey(Long restaurantId, String description) {
         ApiKey apiKey = new ApiKey();
-        apiKey.setApiKey("api_key_restaurant" + restaurantId);
+        apiKey.setKeyHash(ApiKeyHasher.hash("api_key_restaurant" + restaurantId));
         apiKey.setRestaurantId(restaurantId);
         apiKey.setDescription(description);
         apiKey.setIsActive(true);
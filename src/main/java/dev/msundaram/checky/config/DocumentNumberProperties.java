@@ -0,0 +1,35 @@
+package dev.msundaram.checky.config;
+
+import dev.msundaram.checky.service.DocumentType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Document numbering, e.g.
+ * <pre>
+ * checky.document-numbers.block-size=100
+ * checky.document-numbers.formats.order=ORD-%1$d-%2$08d
+ * </pre>
+ * Formats are {@link String#format} patterns taking the restaurant id and the sequence number.
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "checky.document-numbers")
+public class DocumentNumberProperties {
+
+    // Numbers reserved from the database at a time, per restaurant and document type
+    private int blockSize = 50;
+
+    // Connections of the pool blocks are reserved on, separate from the application pool
+    private int poolSize = 2;
+
+    private Map<DocumentType, String> formats = new EnumMap<>(DocumentType.class);
+
+    public String format(DocumentType type) {
+        return formats.getOrDefault(type, type.getDefaultFormat());
+    }
+}
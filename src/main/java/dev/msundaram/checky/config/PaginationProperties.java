@@ -0,0 +1,31 @@
+package dev.msundaram.checky.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Page sizes for the cursor-paginated listing endpoints, e.g.
+ * <pre>
+ * checky.pagination.default-limit=50
+ * checky.pagination.max-limit=200
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "checky.pagination")
+public class PaginationProperties {
+
+    // Used when the request has no limit
+    private int defaultLimit = 50;
+
+    // Larger requested limits are capped to this
+    private int maxLimit = 200;
+
+    public int resolveLimit(Integer requested) {
+        if (requested == null) {
+            return Math.min(defaultLimit, maxLimit);
+        }
+        return Math.max(1, Math.min(requested, maxLimit));
+    }
+}
@@ -0,0 +1,58 @@
+package dev.msundaram.checky.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Token bucket limits, e.g.
+ * <pre>
+ * checky.rate-limit.tenant.capacity=200
+ * checky.rate-limit.restaurants.1.tenant.refill-per-second=500
+ * </pre>
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "checky.rate-limit")
+public class RateLimitProperties {
+
+    private boolean enabled = true;
+
+    // Shared by all keys of one restaurant
+    private Limit tenant = new Limit(200, 100);
+
+    // Per individual API key
+    private Limit apiKey = new Limit(100, 50);
+
+    // Overrides keyed by restaurant id
+    private Map<Long, Overrides> restaurants = new HashMap<>();
+
+    public Limit tenantLimit(Long restaurantId) {
+        Overrides overrides = restaurants.get(restaurantId);
+        return overrides != null && overrides.getTenant() != null ? overrides.getTenant() : tenant;
+    }
+
+    public Limit apiKeyLimit(Long restaurantId) {
+        Overrides overrides = restaurants.get(restaurantId);
+        return overrides != null && overrides.getApiKey() != null ? overrides.getApiKey() : apiKey;
+    }
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Limit {
+        private int capacity;
+        private int refillPerSecond;
+    }
+
+    @Data
+    public static class Overrides {
+        private Limit tenant;
+        private Limit apiKey;
+    }
+}
@@ -0,0 +1,28 @@
+package dev.msundaram.checky.config;
+
+import dev.msundaram.checky.security.TenantContextHolder;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.annotation.EnableAsync;
+
+/**
+ * Carries the tenant context into @Async and scheduled tasks. Boot applies the TaskDecorator bean
+ * to the application task executor (also used for async MVC requests); the scheduler gets it via
+ * a customizer, so scheduled jobs never inherit a stale tenant from a pooled thread.
+ */
+@Configuration
+@EnableAsync
+public class TenantTaskConfig {
+
+    @Bean
+    public TaskDecorator tenantContextTaskDecorator() {
+        return TenantContextHolder::wrap;
+    }
+
+    @Bean
+    public ThreadPoolTaskSchedulerCustomizer tenantContextSchedulerCustomizer(TaskDecorator tenantContextTaskDecorator) {
+        return scheduler -> scheduler.setTaskDecorator(tenantContextTaskDecorator);
+    }
+}
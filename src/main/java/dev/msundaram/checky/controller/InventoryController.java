@@ -2,6 +2,7 @@ package dev.msundaram.checky.controller;
 
 import dev.msundaram.checky.entity.InventoryItem;
 import dev.msundaram.checky.entity.InventoryTransaction;
+import dev.msundaram.checky.service.CursorPage;
 import dev.msundaram.checky.service.InventoryService;
 import dev.msundaram.checky.service.TenantService;
 import io.swagger.v3.oas.annotations.Operation;
@@ -36,18 +37,25 @@ public class InventoryController {
     // Inventory Items
     
     @GetMapping("/items")
-    @Operation(summary = "Get all inventory items", description = "Retrieve all active inventory items for the current restaurant")
+    @Operation(summary = "Get inventory items", description = "Retrieve active inventory items for the current restaurant by name, " +
+            "one page at a time. Pass the nextCursor of a page as cursor to get the following page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Inventory items retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<List<InventoryItem>> getAllInventoryItems() {
+    public ResponseEntity<CursorPage<InventoryItem>> getInventoryItems(
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at checky.pagination.max-limit") @RequestParam(required = false) Integer limit) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        List<InventoryItem> items = inventoryService.getAllInventoryItems();
-        return ResponseEntity.ok(items);
+        try {
+            return ResponseEntity.ok(inventoryService.getInventoryItems(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/items/category/{category}")
@@ -236,18 +244,25 @@ public class InventoryController {
     // Inventory Transactions
     
     @GetMapping("/transactions")
-    @Operation(summary = "Get all inventory transactions", description = "Retrieve all inventory transactions for the current restaurant")
+    @Operation(summary = "Get inventory transactions", description = "Retrieve inventory transactions for the current restaurant, newest first, " +
+            "one page at a time. Pass the nextCursor of a page as cursor to get the following page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Transactions retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<List<InventoryTransaction>> getAllTransactions() {
+    public ResponseEntity<CursorPage<InventoryTransaction>> getTransactions(
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at checky.pagination.max-limit") @RequestParam(required = false) Integer limit) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        List<InventoryTransaction> transactions = inventoryService.getAllTransactions();
-        return ResponseEntity.ok(transactions);
+        try {
+            return ResponseEntity.ok(inventoryService.getTransactions(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping("/transactions/item/{itemId}")
@@ -0,0 +1,112 @@
+package dev.msundaram.checky.controller;
+
+import dev.msundaram.checky.service.KitchenQueueService;
+import dev.msundaram.checky.service.KitchenTicket;
+import dev.msundaram.checky.service.TenantService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/kitchen")
+@RequiredArgsConstructor
+@Tag(name = "Kitchen Display", description = "APIs for the kitchen board of order items")
+@SecurityRequirement(name = "ApiKeyAuth")
+public class KitchenController {
+    
+    private final KitchenQueueService kitchenQueueService;
+    private final TenantService tenantService;
+    
+    @GetMapping("/board")
+    @Operation(summary = "Get the kitchen board", description = "Retrieve the pending and preparing items of open orders, " +
+            "highest priority first and then by promised time (order time plus the menu item's preparation time). " +
+            "Served from memory")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Board retrieved successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
+    })
+    public ResponseEntity<List<KitchenTicket>> getBoard() {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return ResponseEntity.ok(kitchenQueueService.getBoard());
+    }
+    
+    @PostMapping("/items/{itemId}/start")
+    @Operation(summary = "Start an item", description = "Mark an item on the board as PREPARING")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Item updated successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key"),
+        @ApiResponse(responseCode = "404", description = "Item not on the board")
+    })
+    public ResponseEntity<KitchenTicket> startItem(@Parameter(description = "Order item ID") @PathVariable Long itemId) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return kitchenQueueService.start(itemId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/items/{itemId}/bump")
+    @Operation(summary = "Bump an item", description = "Raise an item's priority, moving it ahead of lower priority items")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Item updated successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key"),
+        @ApiResponse(responseCode = "404", description = "Item not on the board")
+    })
+    public ResponseEntity<KitchenTicket> bumpItem(@Parameter(description = "Order item ID") @PathVariable Long itemId) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return kitchenQueueService.bump(itemId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/items/{itemId}/complete")
+    @Operation(summary = "Complete an item", description = "Mark an item READY and take it off the board")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Item completed successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key"),
+        @ApiResponse(responseCode = "404", description = "Item not on the board")
+    })
+    public ResponseEntity<KitchenTicket> completeItem(@Parameter(description = "Order item ID") @PathVariable Long itemId) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return kitchenQueueService.complete(itemId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+    
+    @PostMapping("/items/{itemId}/recall")
+    @Operation(summary = "Recall an item", description = "Put a completed item of an open order back on the board as PENDING")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Item recalled successfully"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key"),
+        @ApiResponse(responseCode = "404", description = "Item not found or its order is no longer open")
+    })
+    public ResponseEntity<KitchenTicket> recallItem(@Parameter(description = "Order item ID") @PathVariable Long itemId) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        return kitchenQueueService.recall(itemId)
+                .map(ResponseEntity::ok)
+                .orElse(ResponseEntity.notFound().build());
+    }
+} 
\ No newline at end of file
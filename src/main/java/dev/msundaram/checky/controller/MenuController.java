@@ -153,16 +153,14 @@ public class MenuController {
         
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        if (!menuItemRepository.existsByIdAndTenantId(id, currentRestaurant)) {
+        MenuItem menuItem = menuItemRepository.findByIdAndTenantId(id, currentRestaurant).orElse(null);
+        if (menuItem == null) {
             return ResponseEntity.notFound().build();
         }
         
         // Soft delete - set active to false
-        MenuItem menuItem = menuItemRepository.findById(id).orElse(null);
-        if (menuItem != null) {
-            menuItem.setIsActive(false); // Changed setActive to setIsActive
-            menuItemRepository.save(menuItem);
-        }
+        menuItem.setIsActive(false); // Changed setActive to setIsActive
+        menuItemRepository.save(menuItem);
         
         return ResponseEntity.noContent().build();
     }
@@ -1,7 +1,20 @@
 package dev.msundaram.checky.controller;
 
 import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.service.CursorPage;
+import dev.msundaram.checky.service.KeysetCursor;
+import dev.msundaram.checky.service.OrderBatchItem;
+import dev.msundaram.checky.service.OrderBatchResult;
+import dev.msundaram.checky.service.OrderBatchService;
+import dev.msundaram.checky.service.OrderConflictException;
+import dev.msundaram.checky.service.OrderExportService;
+import dev.msundaram.checky.service.OrderFeedService;
+import dev.msundaram.checky.service.OrderQueryService;
 import dev.msundaram.checky.service.OrderService;
+import dev.msundaram.checky.service.OrderTransitionRequest;
+import dev.msundaram.checky.service.OrderTransitionResult;
+import dev.msundaram.checky.service.OrderTransitionService;
+import dev.msundaram.checky.service.OrderView;
 import dev.msundaram.checky.service.TenantService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
@@ -12,12 +25,19 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/orders")
@@ -27,6 +47,11 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final OrderQueryService orderQueryService;
+    private final OrderBatchService orderBatchService;
+    private final OrderExportService orderExportService;
+    private final OrderFeedService orderFeedService;
+    private final OrderTransitionService orderTransitionService;
     private final TenantService tenantService;
     
     @PostMapping
@@ -41,42 +66,189 @@ public class OrderController {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        Order createdOrder = orderService.createOrder(orderRequest);
-        return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        try {
+            Order createdOrder = orderService.createOrder(orderRequest);
+            return ResponseEntity.status(HttpStatus.CREATED).body(createdOrder);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @PostMapping("/batch")
+    @Operation(summary = "Create orders in bulk", description = "Ingest orders queued by an offline terminal in one request. " +
+            "Each order carries a client-generated idempotencyKey; keys that were already ingested are reported as DUPLICATE " +
+            "instead of creating the order again. The response has one result per order, in request order")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Batch processed, see the per-order results"),
+        @ApiResponse(responseCode = "400", description = "Empty batch or too many orders"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
+    })
+    public ResponseEntity<List<OrderBatchResult>> createOrders(@RequestBody List<OrderBatchItem> orders) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        if (orders == null || orders.isEmpty() || orders.size() > orderBatchService.getMaxOrders()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        return ResponseEntity.ok(orderBatchService.createOrders(orders));
+    }
+    
+    @PostMapping("/transitions")
+    @Operation(summary = "Change the status of many orders", description = "Move up to checky.orders.transitions.max-orders " +
+            "orders to a new status, a new payment status or both, in one statement. Orders whose current status does not " +
+            "allow the change are left as they are. The response has one result per distinct order id, in request order: " +
+            "UPDATED with the new version, CONFLICT with the current version and the reason, or NOT_FOUND")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Transitions processed, see the per-order results"),
+        @ApiResponse(responseCode = "400", description = "No order ids, too many, or a missing or invalid status"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
+    })
+    public ResponseEntity<List<OrderTransitionResult>> transitionOrders(@RequestBody OrderTransitionRequest request) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        List<Long> orderIds = request.orderIds();
+        if (orderIds == null || orderIds.isEmpty() || orderIds.size() > orderTransitionService.getMaxOrders()) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        try {
+            Order.OrderStatus status = request.status() == null ? null : Order.OrderStatus.valueOf(request.status().toUpperCase());
+            Order.PaymentStatus paymentStatus = request.paymentStatus() == null ? null
+                    : Order.PaymentStatus.valueOf(request.paymentStatus().toUpperCase());
+            return ResponseEntity.ok(orderTransitionService.transition(orderIds, status, paymentStatus));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
     }
     
     @GetMapping
-    @Operation(summary = "Get all orders", description = "Retrieve all orders for the current restaurant")
+    @Operation(summary = "Get orders", description = "Retrieve orders for the current restaurant, newest first, one page at a time. " +
+            "Pass the nextCursor of a page as cursor to get the following page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid cursor"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
+    })
+    public ResponseEntity<CursorPage<OrderView>> getOrders(
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at checky.pagination.max-limit") @RequestParam(required = false) Integer limit) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        try {
+            return ResponseEntity.ok(orderQueryService.getOrders(cursor, limit));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+    
+    @GetMapping("/export")
+    @Operation(summary = "Export orders", description = "Stream all orders created in [startDate, endDate) as newline-delimited JSON, " +
+            "oldest first, gzip-compressed when the client accepts it. Every line carries a cursor; pass the cursor of the last " +
+            "line received to resume an interrupted export")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Orders streamed successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid date range or cursor"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<List<Order>> getAllOrders() {
+    public ResponseEntity<StreamingResponseBody> exportOrders(
+            @Parameter(description = "Start date (inclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startDate,
+            @Parameter(description = "End date (exclusive)") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime endDate,
+            @Parameter(description = "Cursor of the last line received") @RequestParam(required = false) String cursor,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        if (!startDate.isBefore(endDate)) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // Checked up front: once streaming has started the status can no longer change
+        KeysetCursor after;
+        try {
+            after = cursor == null || cursor.isBlank() ? null : KeysetCursor.decode(cursor);
+            if (after != null) {
+                after.timestampKey();
+            }
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        
+        // The body is written on another thread; resolve the tenant here
+        Long restaurantId = tenantService.getCurrentRestaurant();
+        boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+        StreamingResponseBody body = out -> {
+            if (gzip) {
+                GZIPOutputStream compressed = new GZIPOutputStream(out, 8192);
+                orderExportService.exportOrders(restaurantId, startDate, endDate, after, compressed);
+                compressed.finish();
+            } else {
+                orderExportService.exportOrders(restaurantId, startDate, endDate, after, out);
+            }
+        };
+        
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return response.body(body);
+    }
+    
+    @GetMapping(value = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Live order feed", description = "Server-Sent Events stream of the restaurant's order-created, " +
+            "order-status-changed and order-cancelled events, for kitchen screens. Each event's data is the order's id, number, " +
+            "status, payment status and total. Reconnecting with the Last-Event-ID header replays the events missed in between; " +
+            "a reset event means they are no longer available and the orders should be reloaded")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Feed opened"),
+        @ApiResponse(responseCode = "400", description = "Invalid Last-Event-ID"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key"),
+        @ApiResponse(responseCode = "503", description = "Feed disabled on this instance")
+    })
+    public ResponseEntity<SseEmitter> getOrderFeed(
+            @Parameter(description = "Id of the last event received") @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
+        if (!orderFeedService.isEnabled()) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
         
-        List<Order> orders = orderService.getAllOrders();
-        return ResponseEntity.ok(orders);
+        Long after;
+        try {
+            after = lastEventId == null || lastEventId.isBlank() ? null : Long.valueOf(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(orderFeedService.subscribe(tenantService.getCurrentRestaurant(), after));
     }
     
     @GetMapping("/status/{status}")
-    @Operation(summary = "Get orders by status", description = "Retrieve orders filtered by status")
+    @Operation(summary = "Get orders by status", description = "Retrieve orders filtered by status, newest first, one page at a time. " +
+            "Pass the nextCursor of a page as cursor to get the following page")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Orders retrieved successfully"),
-        @ApiResponse(responseCode = "400", description = "Invalid status"),
+        @ApiResponse(responseCode = "400", description = "Invalid status or cursor"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<List<Order>> getOrdersByStatus(
-            @Parameter(description = "Order status to filter by") @PathVariable String status) {
+    public ResponseEntity<CursorPage<OrderView>> getOrdersByStatus(
+            @Parameter(description = "Order status to filter by") @PathVariable String status,
+            @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Page size, capped at checky.pagination.max-limit") @RequestParam(required = false) Integer limit) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
         try {
             Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-            List<Order> orders = orderService.getOrdersByStatus(orderStatus);
-            return ResponseEntity.ok(orders);
+            return ResponseEntity.ok(orderQueryService.getOrdersByStatus(orderStatus, cursor, limit));
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
         }
@@ -89,13 +261,13 @@ public class OrderController {
         @ApiResponse(responseCode = "404", description = "Order not found"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<Order> getOrderById(
+    public ResponseEntity<OrderView> getOrderById(
             @Parameter(description = "ID of the order") @PathVariable Long id) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        return orderService.getOrderById(id)
+        return orderQueryService.getOrderById(id)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
@@ -107,23 +279,26 @@ public class OrderController {
         @ApiResponse(responseCode = "404", description = "Order not found"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
-    public ResponseEntity<Order> getOrderByNumber(
+    public ResponseEntity<OrderView> getOrderByNumber(
             @Parameter(description = "Order number") @PathVariable String orderNumber) {
         if (!tenantService.isAuthenticated()) {
             return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
         }
         
-        return orderService.getOrderByNumber(orderNumber)
+        return orderQueryService.getOrderByNumber(orderNumber)
                 .map(ResponseEntity::ok)
                 .orElse(ResponseEntity.notFound().build());
     }
     
     @PutMapping("/{id}/status")
-    @Operation(summary = "Update order status", description = "Update the status of an order")
+    @Operation(summary = "Update order status", description = "Update the status of an order. Orders move forward through " +
+            "PENDING, CONFIRMED, PREPARING, READY and SERVED and can be cancelled until served. Pass the order's version " +
+            "to have the update refused if the order changed since it was read")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order status updated successfully"),
-        @ApiResponse(responseCode = "400", description = "Invalid status"),
+        @ApiResponse(responseCode = "400", description = "Invalid status or version"),
         @ApiResponse(responseCode = "404", description = "Order not found"),
+        @ApiResponse(responseCode = "409", description = "Transition not allowed from the current status, or the order changed"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
     public ResponseEntity<Order> updateOrderStatus(
@@ -140,21 +315,26 @@ public class OrderController {
         
         try {
             Order.OrderStatus orderStatus = Order.OrderStatus.valueOf(status.toUpperCase());
-            Order updatedOrder = orderService.updateOrderStatus(id, orderStatus);
+            Order updatedOrder = orderService.updateOrderStatus(id, orderStatus, parseVersion(request.get("version")));
             return ResponseEntity.ok(updatedOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
     }
     
     @PutMapping("/{id}/payment")
-    @Operation(summary = "Update payment status", description = "Update the payment status of an order")
+    @Operation(summary = "Update payment status", description = "Update the payment status of an order. Payments move " +
+            "from PENDING to PAID or FAILED, from FAILED back to PENDING or to PAID, and from PAID to REFUNDED. Pass the " +
+            "order's version to have the update refused if the order changed since it was read")
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Payment status updated successfully"),
-        @ApiResponse(responseCode = "400", description = "Invalid payment status"),
+        @ApiResponse(responseCode = "400", description = "Invalid payment status or version"),
         @ApiResponse(responseCode = "404", description = "Order not found"),
+        @ApiResponse(responseCode = "409", description = "Transition not allowed from the current payment status, or the order changed"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
     public ResponseEntity<Order> updatePaymentStatus(
@@ -171,10 +351,12 @@ public class OrderController {
         
         try {
             Order.PaymentStatus status = Order.PaymentStatus.valueOf(paymentStatus.toUpperCase());
-            Order updatedOrder = orderService.updatePaymentStatus(id, status);
+            Order updatedOrder = orderService.updatePaymentStatus(id, status, parseVersion(request.get("version")));
             return ResponseEntity.ok(updatedOrder);
         } catch (IllegalArgumentException e) {
             return ResponseEntity.badRequest().build();
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -185,6 +367,7 @@ public class OrderController {
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "Order cancelled successfully"),
         @ApiResponse(responseCode = "404", description = "Order not found"),
+        @ApiResponse(responseCode = "409", description = "Order already served or cancelled"),
         @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
     })
     public ResponseEntity<Order> cancelOrder(
@@ -196,6 +379,8 @@ public class OrderController {
         try {
             Order cancelledOrder = orderService.cancelOrder(id);
             return ResponseEntity.ok(cancelledOrder);
+        } catch (OrderConflictException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).build();
         } catch (RuntimeException e) {
             return ResponseEntity.notFound().build();
         }
@@ -228,4 +413,9 @@ public class OrderController {
         
         return ResponseEntity.ok(Order.PaymentStatus.values());
     }
+    
+    // Optional version a status update is conditional on; a malformed one is an IllegalArgumentException
+    private static Long parseVersion(String version) {
+        return version == null || version.isBlank() ? null : Long.valueOf(version.trim());
+    }
 } 
\ No newline at end of file
@@ -0,0 +1,53 @@
+package dev.msundaram.checky.controller;
+
+import dev.msundaram.checky.service.SalesReport;
+import dev.msundaram.checky.service.SalesReportService;
+import dev.msundaram.checky.service.TenantService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+@Tag(name = "Reports", description = "APIs for sales reporting")
+@SecurityRequirement(name = "ApiKeyAuth")
+public class ReportController {
+    
+    private final SalesReportService salesReportService;
+    private final TenantService tenantService;
+    
+    @GetMapping("/sales")
+    @Operation(summary = "Get a sales report", description = "Sales of the day, week (Monday to Sunday) or month containing " +
+            "the given date in the restaurant's time zone: totals, totals by order type and payment status, and an hourly (day) " +
+            "or daily (week, month) series. Served from hourly rollups")
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "Report retrieved successfully"),
+        @ApiResponse(responseCode = "400", description = "Invalid period"),
+        @ApiResponse(responseCode = "401", description = "Unauthorized - Invalid API key")
+    })
+    public ResponseEntity<SalesReport> getSalesReport(
+            @Parameter(description = "DAY, WEEK or MONTH") @RequestParam(defaultValue = "DAY") String period,
+            @Parameter(description = "Any date in the period") @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
+        if (!tenantService.isAuthenticated()) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).build();
+        }
+        
+        try {
+            SalesReport.Period reportPeriod = SalesReport.Period.valueOf(period.toUpperCase());
+            return ResponseEntity.ok(salesReportService.report(reportPeriod, date));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+} 
\ No newline at end of file
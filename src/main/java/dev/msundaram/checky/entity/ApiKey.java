@@ -1,5 +1,6 @@
 package dev.msundaram.checky.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import dev.msundaram.checky.listener.TenantEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -17,12 +18,18 @@ import java.time.LocalDateTime;
 public class ApiKey extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "api_keys_seq")
+    @SequenceGenerator(name = "api_keys_seq", sequenceName = "api_keys_seq", allocationSize = 50)
     private Long id;
     
-    @Column(name = "api_key", nullable = false, unique = true)
+    // Plaintext key, only populated when a key is created so it can be shown once
+    @Transient
     private String apiKey;
     
+    @JsonIgnore
+    @Column(name = "key_hash", nullable = false, unique = true, length = 64)
+    private String keyHash;
+    
     @Column(name = "restaurant_id", nullable = false)
     private Long restaurantId;
     
@@ -19,7 +19,8 @@ import lombok.AllArgsConstructor;
 public class Instruction extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "instructions_seq")
+    @SequenceGenerator(name = "instructions_seq", sequenceName = "instructions_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "recipe_id", nullable = false)
@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
 public class InventoryItem extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_items_seq")
+    @SequenceGenerator(name = "inventory_items_seq", sequenceName = "inventory_items_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "item_code", nullable = false, unique = true)
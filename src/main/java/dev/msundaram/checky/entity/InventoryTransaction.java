@@ -22,7 +22,8 @@ import java.time.LocalDateTime;
 public class InventoryTransaction extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "inventory_transactions_seq")
+    @SequenceGenerator(name = "inventory_transactions_seq", sequenceName = "inventory_transactions_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "transaction_number", nullable = false)
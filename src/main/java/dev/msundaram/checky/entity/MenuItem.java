@@ -2,6 +2,7 @@ package dev.msundaram.checky.entity;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.listener.MenuItemPriceListener;
 import dev.msundaram.checky.listener.TenantEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -12,7 +13,7 @@ import java.math.BigDecimal;
 
 @Entity
 @Table(name = "menu_items")
-@EntityListeners(TenantEntityListener.class)
+@EntityListeners({TenantEntityListener.class, MenuItemPriceListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -20,7 +21,8 @@ import java.math.BigDecimal;
 public class MenuItem extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "menu_items_seq")
+    @SequenceGenerator(name = "menu_items_seq", sequenceName = "menu_items_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -23,7 +23,8 @@ import java.util.List;
 public class Order extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "orders_seq")
+    @SequenceGenerator(name = "orders_seq", sequenceName = "orders_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "order_number", nullable = false)
@@ -71,6 +72,10 @@ public class Order extends BaseEntity {
     @Column(name = "notes")
     private String notes;
     
+    @Version
+    @Column(name = "version")
+    private Long version;
+    
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonIgnoreProperties("order")
     private List<OrderItem> orderItems = new ArrayList<>();
@@ -21,7 +21,8 @@ import java.math.BigDecimal;
 public class RecipeIngredient extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "recipe_ingredients_seq")
+    @SequenceGenerator(name = "recipe_ingredients_seq", sequenceName = "recipe_ingredients_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "recipe_id", nullable = false)
@@ -1,5 +1,6 @@
 package dev.msundaram.checky.entity;
 
+import dev.msundaram.checky.listener.RestaurantSettingsListener;
 import dev.msundaram.checky.listener.TenantEntityListener;
 import jakarta.persistence.*;
 import lombok.Data;
@@ -8,14 +9,15 @@ import lombok.AllArgsConstructor;
 
 @Entity
 @Table(name = "restaurants")
-@EntityListeners(TenantEntityListener.class)
+@EntityListeners({TenantEntityListener.class, RestaurantSettingsListener.class})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Restaurant extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurants_seq")
+    @SequenceGenerator(name = "restaurants_seq", sequenceName = "restaurants_seq", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false)
@@ -19,7 +19,8 @@ import lombok.AllArgsConstructor;
 public class RestaurantTable extends BaseEntity {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "restaurant_tables_seq")
+    @SequenceGenerator(name = "restaurant_tables_seq", sequenceName = "restaurant_tables_seq", allocationSize = 50)
     private Long id;
     
     @Column(name = "table_number", nullable = false)
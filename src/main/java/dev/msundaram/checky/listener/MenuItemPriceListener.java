@@ -0,0 +1,31 @@
+package dev.msundaram.checky.listener;
+
+import dev.msundaram.checky.entity.MenuItem;
+import dev.msundaram.checky.service.AfterCommit;
+import dev.msundaram.checky.service.MenuPriceCache;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class MenuItemPriceListener {
+    
+    // Resolved lazily: the cache depends on a repository, which depends on the entity manager factory
+    private final ObjectProvider<MenuPriceCache> menuPriceCacheProvider;
+    
+    @PostPersist
+    @PostUpdate
+    @PostRemove
+    public void evictPrices(MenuItem menuItem) {
+        Long restaurantId = menuItem.getTenantId();
+        MenuPriceCache menuPriceCache = menuPriceCacheProvider.getIfAvailable();
+        if (restaurantId == null || menuPriceCache == null) {
+            return;
+        }
+        AfterCommit.evict(() -> menuPriceCache.invalidate(restaurantId));
+    }
+}
@@ -0,0 +1,32 @@
+package dev.msundaram.checky.listener;
+
+import dev.msundaram.checky.entity.Restaurant;
+import dev.msundaram.checky.service.AfterCommit;
+import dev.msundaram.checky.service.RestaurantSettingsCache;
+import dev.msundaram.checky.service.RestaurantSettingsChangeListener;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Component
+@RequiredArgsConstructor
+public class RestaurantSettingsListener {
+
+    // Resolved lazily: the cache depends on a repository, which depends on the entity manager factory
+    private final ObjectProvider<RestaurantSettingsCache> restaurantSettingsCacheProvider;
+    private final ObjectProvider<JdbcTemplate> jdbcTemplateProvider;
+
+    @PostUpdate
+    @PostRemove
+    public void evictSettings(Restaurant restaurant) {
+        Long restaurantId = restaurant.getId();
+        RestaurantSettingsCache restaurantSettingsCache = restaurantSettingsCacheProvider.getObject();
+        AfterCommit.evict(() -> restaurantSettingsCache.invalidate(restaurantId));
+        // Sent in the changing transaction, so other instances evict once it commits
+        jdbcTemplateProvider.getObject().queryForObject("SELECT pg_notify(?, ?)", String.class,
+                RestaurantSettingsChangeListener.CHANNEL, String.valueOf(restaurantId));
+    }
+}
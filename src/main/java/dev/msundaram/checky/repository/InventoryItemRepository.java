@@ -1,22 +1,40 @@
 package dev.msundaram.checky.repository;
 
 import dev.msundaram.checky.entity.InventoryItem;
-import org.springframework.data.jpa.repository.JpaRepository;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.Lock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryItemRepository extends JpaRepository<InventoryItem, Long> {
+public interface InventoryItemRepository extends TenantScopedRepository<InventoryItem, Long> {
     
     @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.isActive = true ORDER BY i.name")
     List<InventoryItem> findByTenantIdAndActive(@Param("tenantId") Long tenantId);
     
+    @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.isActive = true ORDER BY i.name, i.id")
+    List<InventoryItem> findPageByTenantIdAndActive(@Param("tenantId") Long tenantId, Limit limit);
+    
+    @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.isActive = true AND i.name >= :name " +
+           "AND (i.name > :name OR i.id > :id) ORDER BY i.name, i.id")
+    List<InventoryItem> findPageByTenantIdAndActiveAfter(@Param("tenantId") Long tenantId,
+                                                         @Param("name") String name,
+                                                         @Param("id") Long id,
+                                                         Limit limit);
+    
+    // Locks the rows in id order, so concurrent stock deductions queue up instead of deadlocking
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.id IN :ids ORDER BY i.id")
+    List<InventoryItem> findByTenantIdAndIdsForUpdate(@Param("tenantId") Long tenantId, @Param("ids") Collection<Long> ids);
+    
     @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.category = :category AND i.isActive = true ORDER BY i.name")
     List<InventoryItem> findByTenantIdAndCategory(@Param("tenantId") Long tenantId, @Param("category") InventoryItem.InventoryCategory category);
     
@@ -47,7 +65,5 @@ public interface InventoryItemRepository extends JpaRepository<InventoryItem, Lo
     @Query("SELECT i FROM InventoryItem i WHERE i.tenantId = :tenantId AND i.location = :location AND i.isActive = true ORDER BY i.name")
     List<InventoryItem> findByTenantIdAndLocation(@Param("tenantId") Long tenantId, @Param("location") String location);
     
-    boolean existsByIdAndTenantId(Long id, Long tenantId);
-    
     boolean existsByItemCodeAndTenantId(String itemCode, Long tenantId);
 } 
\ No newline at end of file
@@ -1,7 +1,7 @@
 package dev.msundaram.checky.repository;
 
 import dev.msundaram.checky.entity.InventoryTransaction;
-import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -12,11 +12,21 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface InventoryTransactionRepository extends JpaRepository<InventoryTransaction, Long> {
+public interface InventoryTransactionRepository extends TenantScopedRepository<InventoryTransaction, Long> {
     
     @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId ORDER BY t.transactionDate DESC")
     List<InventoryTransaction> findByTenantId(@Param("tenantId") Long tenantId);
     
+    @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId ORDER BY t.transactionDate DESC, t.id DESC")
+    List<InventoryTransaction> findPageByTenantId(@Param("tenantId") Long tenantId, Limit limit);
+    
+    @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.transactionDate <= :transactionDate " +
+           "AND (t.transactionDate < :transactionDate OR t.id < :id) ORDER BY t.transactionDate DESC, t.id DESC")
+    List<InventoryTransaction> findPageByTenantIdBefore(@Param("tenantId") Long tenantId,
+                                                        @Param("transactionDate") LocalDateTime transactionDate,
+                                                        @Param("id") Long id,
+                                                        Limit limit);
+    
     @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.inventoryItemId = :itemId ORDER BY t.transactionDate DESC")
     List<InventoryTransaction> findByTenantIdAndItemId(@Param("tenantId") Long tenantId, @Param("itemId") Long itemId);
     
@@ -43,7 +53,7 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.isApproved = false ORDER BY t.transactionDate DESC")
     List<InventoryTransaction> findPendingApprovals(@Param("tenantId") Long tenantId);
     
-    @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.locationFrom = :location OR t.locationTo = :location ORDER BY t.transactionDate DESC")
+    @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND (t.locationFrom = :location OR t.locationTo = :location) ORDER BY t.transactionDate DESC")
     List<InventoryTransaction> findByTenantIdAndLocation(@Param("tenantId") Long tenantId, @Param("location") String location);
     
     @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.batchNumber = :batchNumber ORDER BY t.transactionDate DESC")
@@ -52,7 +62,5 @@ public interface InventoryTransactionRepository extends JpaRepository<InventoryT
     @Query("SELECT t FROM InventoryTransaction t WHERE t.tenantId = :tenantId AND t.expiryDate <= :expiryDate ORDER BY t.expiryDate")
     List<InventoryTransaction> findExpiringTransactions(@Param("tenantId") Long tenantId, @Param("expiryDate") LocalDateTime expiryDate);
     
-    boolean existsByIdAndTenantId(Long id, Long tenantId);
-    
     boolean existsByTransactionNumberAndTenantId(String transactionNumber, Long tenantId);
 } 
\ No newline at end of file
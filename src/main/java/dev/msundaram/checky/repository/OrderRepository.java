@@ -1,23 +1,51 @@
 package dev.msundaram.checky.repository;
 
 import dev.msundaram.checky.entity.Order;
-import org.springframework.data.jpa.repository.JpaRepository;
+import dev.msundaram.checky.entity.OrderItem;
+import dev.msundaram.checky.service.OrderItemView;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
-public interface OrderRepository extends JpaRepository<Order, Long> {
+public interface OrderRepository extends TenantScopedRepository<Order, Long> {
+    
+    String EXPORT_FETCH_SIZE = "500";
     
     @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId ORDER BY o.createdAt DESC")
     List<Order> findByTenantId(@Param("tenantId") Long tenantId);
     
-    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.orderStatus = :status ORDER BY o.createdAt DESC")
-    List<Order> findByTenantIdAndStatus(@Param("tenantId") Long tenantId, @Param("status") Order.OrderStatus status);
+    // Keyset pages, newest first; (createdAt, id) is unique, so pages never skip or repeat rows
+    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByTenantId(@Param("tenantId") Long tenantId, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByTenantIdBefore(@Param("tenantId") Long tenantId,
+                                         @Param("createdAt") LocalDateTime createdAt,
+                                         @Param("id") Long id,
+                                         Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.orderStatus = :status ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByTenantIdAndStatus(@Param("tenantId") Long tenantId, @Param("status") Order.OrderStatus status, Limit limit);
+    
+    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.orderStatus = :status AND o.createdAt <= :createdAt " +
+           "AND (o.createdAt < :createdAt OR o.id < :id) ORDER BY o.createdAt DESC, o.id DESC")
+    List<Order> findPageByTenantIdAndStatusBefore(@Param("tenantId") Long tenantId,
+                                                  @Param("status") Order.OrderStatus status,
+                                                  @Param("createdAt") LocalDateTime createdAt,
+                                                  @Param("id") Long id,
+                                                  Limit limit);
     
     @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.createdAt BETWEEN :startDate AND :endDate ORDER BY o.createdAt DESC")
     List<Order> findByTenantIdAndDateRange(@Param("tenantId") Long tenantId, 
@@ -27,5 +55,46 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
     @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.orderNumber = :orderNumber")
     Optional<Order> findByTenantIdAndOrderNumber(@Param("tenantId") Long tenantId, @Param("orderNumber") String orderNumber);
     
-    boolean existsByIdAndTenantId(Long id, Long tenantId);
+    // Oldest first from (createdAt, id) onwards, read from the database in rows of EXPORT_FETCH_SIZE
+    // instead of being materialized; must be consumed inside a transaction and closed
+    @QueryHints({
+        @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+        @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"),
+        @QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "false")
+    })
+    @Query("SELECT o FROM Order o WHERE o.tenantId = :tenantId AND o.createdAt >= :from AND o.createdAt < :endDate " +
+           "AND (o.createdAt > :from OR o.id > :afterId) ORDER BY o.createdAt, o.id")
+    Stream<Order> streamByTenantIdAndDateRange(@Param("tenantId") Long tenantId,
+                                               @Param("from") LocalDateTime from,
+                                               @Param("endDate") LocalDateTime endDate,
+                                               @Param("afterId") Long afterId);
+    
+    // Status transitions in one statement: the row is only updated while it is still in one of the
+    // source statuses (and at the expected version, when given), and comes back updated, or not at all
+    @Query(value = "UPDATE orders SET order_status = :newStatus, version = version + 1, updated_at = localtimestamp " +
+                   "WHERE id = :id AND tenant_id = :tenantId AND order_status IN (:fromStatuses) " +
+                   "AND (CAST(:version AS bigint) IS NULL OR version = :version) RETURNING *", nativeQuery = true)
+    Optional<Order> transitionStatus(@Param("tenantId") Long tenantId,
+                                     @Param("id") Long id,
+                                     @Param("fromStatuses") Collection<String> fromStatuses,
+                                     @Param("newStatus") String newStatus,
+                                     @Param("version") Long version);
+    
+    @Query(value = "UPDATE orders SET payment_status = :newStatus, version = version + 1, updated_at = localtimestamp " +
+                   "WHERE id = :id AND tenant_id = :tenantId AND payment_status IN (:fromStatuses) " +
+                   "AND (CAST(:version AS bigint) IS NULL OR version = :version) RETURNING *", nativeQuery = true)
+    Optional<Order> transitionPaymentStatus(@Param("tenantId") Long tenantId,
+                                            @Param("id") Long id,
+                                            @Param("fromStatuses") Collection<String> fromStatuses,
+                                            @Param("newStatus") String newStatus,
+                                            @Param("version") Long version);
+    
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true"))
+    @Query("SELECT oi FROM OrderItem oi WHERE oi.tenantId = :tenantId AND oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItem> findItemsByTenantIdAndOrderIds(@Param("tenantId") Long tenantId, @Param("orderIds") Collection<Long> orderIds);
+    
+    @Query("SELECT new dev.msundaram.checky.service.OrderItemView(oi.order.id, oi.id, m.id, m.name, oi.quantity, oi.unitPrice, " +
+           "oi.totalPrice, oi.notes, oi.itemStatus) FROM OrderItem oi JOIN oi.menuItem m " +
+           "WHERE oi.tenantId = :tenantId AND oi.order.id IN :orderIds ORDER BY oi.id")
+    List<OrderItemView> findItemViewsByTenantIdAndOrderIds(@Param("tenantId") Long tenantId, @Param("orderIds") Collection<Long> orderIds);
 } 
\ No newline at end of file
@@ -1,16 +1,16 @@
 package dev.msundaram.checky.repository;
 
 import dev.msundaram.checky.entity.Recipe;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RecipeRepository extends JpaRepository<Recipe, Long> {
+public interface RecipeRepository extends TenantScopedRepository<Recipe, Long> {
     
     @Query("SELECT r FROM Recipe r WHERE r.tenantId = :tenantId AND r.isActive = true ORDER BY r.name")
     List<Recipe> findByTenantIdAndActive(@Param("tenantId") Long tenantId);
@@ -18,6 +18,9 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     @Query("SELECT r FROM Recipe r WHERE r.tenantId = :tenantId AND r.menuItemId = :menuItemId AND r.isActive = true")
     Optional<Recipe> findByTenantIdAndMenuItemId(@Param("tenantId") Long tenantId, @Param("menuItemId") Long menuItemId);
     
+    @Query("SELECT r FROM Recipe r WHERE r.tenantId = :tenantId AND r.menuItemId IN :menuItemIds AND r.isActive = true")
+    List<Recipe> findByTenantIdAndMenuItemIds(@Param("tenantId") Long tenantId, @Param("menuItemIds") Collection<Long> menuItemIds);
+    
     @Query("SELECT r FROM Recipe r WHERE r.tenantId = :tenantId AND r.cuisineType = :cuisineType AND r.isActive = true ORDER BY r.name")
     List<Recipe> findByTenantIdAndCuisineType(@Param("tenantId") Long tenantId, @Param("cuisineType") String cuisineType);
     
@@ -36,7 +39,5 @@ public interface RecipeRepository extends JpaRepository<Recipe, Long> {
     @Query("SELECT r FROM Recipe r WHERE r.tenantId = :tenantId AND r.preparationTimeMinutes <= :maxTime AND r.isActive = true ORDER BY r.preparationTimeMinutes")
     List<Recipe> findByTenantIdAndMaxPreparationTime(@Param("tenantId") Long tenantId, @Param("maxTime") Integer maxTime);
     
-    boolean existsByIdAndTenantId(Long id, Long tenantId);
-    
     boolean existsByMenuItemIdAndTenantId(Long menuItemId, Long tenantId);
 } 
\ No newline at end of file
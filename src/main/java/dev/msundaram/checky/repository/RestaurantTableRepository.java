@@ -1,7 +1,6 @@
 package dev.msundaram.checky.repository;
 
 import dev.msundaram.checky.entity.RestaurantTable;
-import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
@@ -10,7 +9,7 @@ import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RestaurantTableRepository extends JpaRepository<RestaurantTable, Long> {
+public interface RestaurantTableRepository extends TenantScopedRepository<RestaurantTable, Long> {
     
     @Query("SELECT t FROM RestaurantTable t WHERE t.tenantId = :tenantId AND t.isActive = true ORDER BY t.tableNumber")
     List<RestaurantTable> findByTenantIdAndActive(@Param("tenantId") Long tenantId);
@@ -30,7 +29,5 @@ public interface RestaurantTableRepository extends JpaRepository<RestaurantTable
     @Query("SELECT t FROM RestaurantTable t WHERE t.tenantId = :tenantId AND t.isReservable = true AND t.isActive = true ORDER BY t.tableNumber")
     List<RestaurantTable> findReservableTablesByTenantId(@Param("tenantId") Long tenantId);
     
-    boolean existsByIdAndTenantId(Long id, Long tenantId);
-    
     boolean existsByTableNumberAndTenantId(String tableNumber, Long tenantId);
 } 
\ No newline at end of file
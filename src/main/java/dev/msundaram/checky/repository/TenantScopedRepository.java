@@ -0,0 +1,18 @@
+package dev.msundaram.checky.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.repository.NoRepositoryBean;
+
+import java.util.Optional;
+
+/**
+ * Base for repositories of tenant-owned entities. Primary key lookups filter on the tenant in the
+ * same statement ({@code WHERE id = ? AND tenant_id = ?}), so rows of other tenants are never loaded.
+ */
+@NoRepositoryBean
+public interface TenantScopedRepository<T, ID> extends JpaRepository<T, ID> {
+    
+    Optional<T> findByIdAndTenantId(ID id, Long tenantId);
+    
+    boolean existsByIdAndTenantId(ID id, Long tenantId);
+}
@@ -1,11 +1,13 @@
 package dev.msundaram.checky.security;
 
 import dev.msundaram.checky.service.ApiKeyService;
+import dev.msundaram.checky.service.ResolvedApiKey;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.Collections;
 
 @Component
@@ -20,8 +23,15 @@ import java.util.Collections;
 public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
 
     private static final String API_KEY_HEADER = "X-API-Key";
+    private static final byte[] TOO_MANY_REQUESTS_BODY =
+            "{\"error\":\"Too Many Requests\",\"message\":\"Rate limit exceeded\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BLOCKED_BODY =
+            "{\"error\":\"Too Many Requests\",\"message\":\"Too many failed authentication attempts\"}".getBytes(StandardCharsets.UTF_8);
     
     private final ApiKeyService apiKeyService;
+    private final RateLimiter rateLimiter;
+    private final AuthFailureTracker authFailureTracker;
+    private final CustomAuthenticationEntryPoint authenticationEntryPoint;
 
     @Override
     protected void doFilterInternal(HttpServletRequest request, 
@@ -31,10 +41,31 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
         String apiKey = request.getHeader(API_KEY_HEADER);
         
         if (apiKey != null && !apiKey.trim().isEmpty()) {
-            var restaurantIdOpt = apiKeyService.getRestaurantIdFromApiKey(apiKey);
+            var resolvedOpt = apiKeyService.resolveApiKey(apiKey);
             
-            if (restaurantIdOpt.isPresent()) {
-                Long restaurantId = restaurantIdOpt.get();
+            if (resolvedOpt.isEmpty()) {
+                // Only failed attempts are blocked: terminals sharing an IP (NAT) keep working with valid keys
+                String clientIp = request.getRemoteAddr();
+                long blockedMillis = authFailureTracker.blockedForMillis(clientIp);
+                if (blockedMillis > 0) {
+                    reject(response, blockedMillis, BLOCKED_BODY);
+                    return;
+                }
+                authFailureTracker.recordInvalidKey(clientIp);
+                // Fail fast instead of walking the rest of the security chain to the entry point
+                if (isProtectedPath(request)) {
+                    authenticationEntryPoint.writeUnauthorized(request, response);
+                    return;
+                }
+            } else {
+                ResolvedApiKey resolved = resolvedOpt.get();
+                Long restaurantId = resolved.restaurantId();
+                
+                long waitMillis = rateLimiter.tryAcquire(resolved.keyId(), restaurantId);
+                if (waitMillis > 0) {
+                    reject(response, waitMillis, TOO_MANY_REQUESTS_BODY);
+                    return;
+                }
                 
                 // Create authentication token with restaurant information
                 UsernamePasswordAuthenticationToken authentication = 
@@ -45,9 +76,27 @@ public class ApiKeyAuthenticationFilter extends OncePerRequestFilter {
                     );
                 
                 SecurityContextHolder.getContext().setAuthentication(authentication);
+                TenantContextHolder.set(new TenantContext(restaurantId, resolved.keyId()));
             }
         }
         
-        filterChain.doFilter(request, response);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            TenantContextHolder.clear();
+        }
+    }
+    
+    private boolean isProtectedPath(HttpServletRequest request) {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        return path.startsWith("/api/") && !path.startsWith("/api/public/");
+    }
+    
+    private void reject(HttpServletResponse response, long waitMillis, byte[] body) throws IOException {
+        response.setStatus(429);
+        response.setHeader("Retry-After", Long.toString((waitMillis + 999) / 1000));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,44 @@
+package dev.msundaram.checky.security;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * API keys are only stored and indexed as their SHA-256 digest (64 hex characters).
+ */
+public final class ApiKeyHasher {
+
+    private static final HexFormat HEX = HexFormat.of();
+
+    private ApiKeyHasher() {
+    }
+
+    public static byte[] digest(String apiKey) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(apiKey.getBytes(StandardCharsets.UTF_8));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    public static String hash(String apiKey) {
+        return toHex(digest(apiKey));
+    }
+
+    /**
+     * Compares a candidate digest with a stored hash in constant time.
+     */
+    public static boolean matches(byte[] digest, String keyHash) {
+        return keyHash != null && MessageDigest.isEqual(digest, fromHex(keyHash));
+    }
+
+    public static String toHex(byte[] digest) {
+        return HEX.formatHex(digest);
+    }
+
+    public static byte[] fromHex(String keyHash) {
+        return HEX.parseHex(keyHash);
+    }
+}
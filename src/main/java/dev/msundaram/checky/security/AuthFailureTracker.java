@@ -0,0 +1,83 @@
+package dev.msundaram.checky.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Counts failed API key attempts per client IP within a fixed window and temporarily blocks further
+ * failed attempts from IPs that exceed the threshold; valid keys are never blocked. Also publishes
+ * rejected-request counters by reason.
+ */
+@Component
+@Slf4j
+public class AuthFailureTracker {
+
+    private final int maxFailures;
+    private final long blockMillis;
+    private final Cache<String, AtomicInteger> failures;
+    private final Cache<String, Long> blockedUntil;
+
+    private final Counter invalidKeyRejections;
+    private final Counter missingKeyRejections;
+    private final Counter blockedRejections;
+
+    public AuthFailureTracker(@Value("${checky.auth-failure.max-failures:20}") int maxFailures,
+                              @Value("${checky.auth-failure.window:1m}") Duration window,
+                              @Value("${checky.auth-failure.block-duration:5m}") Duration blockDuration,
+                              @Value("${checky.auth-failure.maximum-tracked-ips:100000}") long maximumTrackedIps,
+                              MeterRegistry meterRegistry) {
+        this.maxFailures = maxFailures;
+        this.blockMillis = blockDuration.toMillis();
+        this.failures = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedIps)
+                .expireAfterWrite(window)
+                .build();
+        this.blockedUntil = Caffeine.newBuilder()
+                .maximumSize(maximumTrackedIps)
+                .expireAfterWrite(blockDuration)
+                .build();
+
+        this.invalidKeyRejections = meterRegistry.counter("checky.auth.rejected", "reason", "invalid_key");
+        this.missingKeyRejections = meterRegistry.counter("checky.auth.rejected", "reason", "missing_key");
+        this.blockedRejections = meterRegistry.counter("checky.auth.rejected", "reason", "blocked");
+    }
+
+    /**
+     * Returns 0 if the IP may proceed, otherwise the remaining block time in milliseconds.
+     */
+    public long blockedForMillis(String clientIp) {
+        Long until = blockedUntil.getIfPresent(clientIp);
+        if (until == null) {
+            return 0;
+        }
+        long remaining = until - System.currentTimeMillis();
+        if (remaining <= 0) {
+            return 0;
+        }
+        blockedRejections.increment();
+        return remaining;
+    }
+
+    public void recordInvalidKey(String clientIp) {
+        invalidKeyRejections.increment();
+        // The window starts with the first failure; entries are never rewritten so it does not slide
+        int count = failures.get(clientIp, ip -> new AtomicInteger()).incrementAndGet();
+        if (count == maxFailures) {
+            blockedUntil.put(clientIp, System.currentTimeMillis() + blockMillis);
+            failures.invalidate(clientIp);
+            log.warn("Blocking {} for {} ms after {} failed API key attempts", clientIp, blockMillis, count);
+        }
+    }
+
+    public void recordMissingKey() {
+        missingKeyRejections.increment();
+    }
+}
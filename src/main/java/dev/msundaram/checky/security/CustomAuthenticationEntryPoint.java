@@ -1,36 +1,55 @@
 package dev.msundaram.checky.security;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.io.JsonStringEncoder;
 import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.MediaType;
 import org.springframework.security.core.AuthenticationException;
 import org.springframework.security.web.AuthenticationEntryPoint;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.charset.StandardCharsets;
 
 @Component
+@RequiredArgsConstructor
 public class CustomAuthenticationEntryPoint implements AuthenticationEntryPoint {
 
+    // Only the timestamp and path vary, so everything else is serialized once
+    private static final byte[] BODY_PREFIX =
+            "{\"error\":\"Unauthorized\",\"message\":\"Valid API key is required\",\"timestamp\":"
+                    .getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY_PATH = ",\"path\":\"".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] BODY_SUFFIX = "\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final AuthFailureTracker authFailureTracker;
+
     @Override
-    public void commence(HttpServletRequest request, 
-                        HttpServletResponse response, 
+    public void commence(HttpServletRequest request,
+                        HttpServletResponse response,
                         AuthenticationException authException) throws IOException, ServletException {
-        
+
+        authFailureTracker.recordMissingKey();
+        writeUnauthorized(request, response);
+    }
+
+    public void writeUnauthorized(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        byte[] timestamp = Long.toString(System.currentTimeMillis()).getBytes(StandardCharsets.US_ASCII);
+        byte[] path = JsonStringEncoder.getInstance().quoteAsUTF8(request.getRequestURI());
+
         response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
         response.setContentType(MediaType.APPLICATION_JSON_VALUE);
-        
-        Map<String, Object> errorDetails = new HashMap<>();
-        errorDetails.put("error", "Unauthorized");
-        errorDetails.put("message", "Valid API key is required");
-        errorDetails.put("timestamp", System.currentTimeMillis());
-        errorDetails.put("path", request.getRequestURI());
-        
-        ObjectMapper mapper = new ObjectMapper();
-        mapper.writeValue(response.getOutputStream(), errorDetails);
+        response.setContentLength(BODY_PREFIX.length + timestamp.length + BODY_PATH.length + path.length
+                + BODY_SUFFIX.length);
+
+        ServletOutputStream out = response.getOutputStream();
+        out.write(BODY_PREFIX);
+        out.write(timestamp);
+        out.write(BODY_PATH);
+        out.write(path);
+        out.write(BODY_SUFFIX);
     }
 } 
\ No newline at end of file
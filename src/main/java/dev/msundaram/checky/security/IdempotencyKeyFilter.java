@@ -0,0 +1,206 @@
+package dev.msundaram.checky.security;
+
+import dev.msundaram.checky.service.IdempotencyStore;
+import dev.msundaram.checky.service.IdempotentResponse;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * Makes mutating order and inventory requests that carry an Idempotency-Key header safe to retry:
+ * the first request runs and its response is recorded, retries get that response back with an
+ * Idempotent-Replayed header. Runs after authentication, so keys are scoped per restaurant.
+ */
+@Component
+public class IdempotencyKeyFilter extends OncePerRequestFilter {
+
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+    static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    // Commits each chunk in a transaction of its own and is idempotent per order key, so it runs
+    // outside the request transaction and holds one connection at a time
+    private static final String BATCH_PATH = "/api/orders/batch";
+
+    private static final int MAX_KEY_LENGTH = 255;
+    private static final byte[] INVALID_KEY_BODY =
+            "{\"error\":\"Bad Request\",\"message\":\"Idempotency-Key must be 1 to 255 characters\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MISMATCH_BODY =
+            "{\"error\":\"Unprocessable Entity\",\"message\":\"Idempotency-Key was already used for a different request\"}".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] IN_PROGRESS_BODY =
+            "{\"error\":\"Conflict\",\"message\":\"A request with this Idempotency-Key is still being processed\"}".getBytes(StandardCharsets.UTF_8);
+
+    private final IdempotencyStore idempotencyStore;
+    private final boolean enabled;
+
+    public IdempotencyKeyFilter(IdempotencyStore idempotencyStore,
+                                @Value("${checky.idempotency.enabled:true}") boolean enabled) {
+        this.idempotencyStore = idempotencyStore;
+        this.enabled = enabled;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || request.getHeader(IDEMPOTENCY_KEY_HEADER) == null) {
+            return true;
+        }
+        String method = request.getMethod();
+        boolean mutating = "POST".equals(method) || "PUT".equals(method) || "PATCH".equals(method) || "DELETE".equals(method);
+        String path = request.getRequestURI();
+        return !mutating || !(path.startsWith("/api/orders") || path.startsWith("/api/inventory"));
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        Long restaurantId = TenantContextHolder.currentRestaurantId();
+        if (restaurantId == null) {
+            // Not authenticated; let the rest of the chain reject it
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        String idempotencyKey = request.getHeader(IDEMPOTENCY_KEY_HEADER).trim();
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+            write(response, HttpServletResponse.SC_BAD_REQUEST, MediaType.APPLICATION_JSON_VALUE, INVALID_KEY_BODY);
+            return;
+        }
+
+        CachedBodyRequest cachedRequest = new CachedBodyRequest(request);
+        String fingerprint = fingerprint(request, cachedRequest.body);
+        ContentCachingResponseWrapper cachingResponse = new ContentCachingResponseWrapper(response);
+
+        IdempotencyStore.Result result;
+        try {
+            boolean transactional = !("POST".equals(request.getMethod()) && BATCH_PATH.equals(request.getRequestURI()));
+            result = idempotencyStore.execute(restaurantId, idempotencyKey, fingerprint, transactional, () -> {
+                filterChain.doFilter(cachedRequest, cachingResponse);
+                return new IdempotentResponse(fingerprint, cachingResponse.getStatus(), cachingResponse.getContentType(),
+                        cachingResponse.getContentAsByteArray());
+            });
+        } catch (IOException | ServletException | RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            // The chain only throws the exceptions above
+            throw new ServletException(e);
+        }
+
+        switch (result.outcome()) {
+            case EXECUTED -> cachingResponse.copyBodyToResponse();
+            case REPLAYED -> {
+                response.setHeader(REPLAYED_HEADER, "true");
+                write(response, result.response().status(), result.response().contentType(), result.response().body());
+            }
+            case MISMATCH -> write(response, 422, MediaType.APPLICATION_JSON_VALUE, MISMATCH_BODY);
+            case IN_PROGRESS -> {
+                response.setHeader("Retry-After", "1");
+                write(response, HttpServletResponse.SC_CONFLICT, MediaType.APPLICATION_JSON_VALUE, IN_PROGRESS_BODY);
+            }
+        }
+    }
+
+    private static String fingerprint(HttpServletRequest request, byte[] body) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(request.getMethod().getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) ' ');
+            digest.update(request.getRequestURI().getBytes(StandardCharsets.UTF_8));
+            if (request.getQueryString() != null) {
+                digest.update((byte) '?');
+                digest.update(request.getQueryString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) '\n');
+            digest.update(body);
+            return ApiKeyHasher.toHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private static void write(HttpServletResponse response, int status, String contentType, byte[] body) throws IOException {
+        response.setStatus(status);
+        if (contentType != null) {
+            response.setContentType(contentType);
+        }
+        response.setContentLength(body != null ? body.length : 0);
+        if (body != null) {
+            response.getOutputStream().write(body);
+        }
+    }
+
+    // The body is read up front for the fingerprint and then served again to the controller
+    private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+        private final byte[] body;
+
+        CachedBodyRequest(HttpServletRequest request) throws IOException {
+            super(request);
+            this.body = request.getInputStream().readAllBytes();
+        }
+
+        @Override
+        public ServletInputStream getInputStream() {
+            ByteArrayInputStream in = new ByteArrayInputStream(body);
+            return new ServletInputStream() {
+                @Override
+                public int read() {
+                    return in.read();
+                }
+
+                @Override
+                public int read(byte[] b, int off, int len) {
+                    return in.read(b, off, len);
+                }
+
+                @Override
+                public boolean isFinished() {
+                    return in.available() == 0;
+                }
+
+                @Override
+                public boolean isReady() {
+                    return true;
+                }
+
+                // The whole body is already in memory, so it is available at once
+                @Override
+                public void setReadListener(ReadListener readListener) {
+                    try {
+                        if (!isFinished()) {
+                            readListener.onDataAvailable();
+                        }
+                        readListener.onAllDataRead();
+                    } catch (IOException e) {
+                        readListener.onError(e);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public BufferedReader getReader() {
+            String encoding = getCharacterEncoding();
+            return new BufferedReader(new InputStreamReader(getInputStream(),
+                    encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package dev.msundaram.checky.security;
+
+import dev.msundaram.checky.config.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per API key and per restaurant token buckets. Buckets are created on first use with the limits
+ * configured for the restaurant; after that a check is two map lookups and two CAS operations.
+ */
+@Component
+public class RateLimiter {
+
+    private final RateLimitProperties properties;
+    private final ConcurrentHashMap<Long, TokenBucket> keyBuckets = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, TokenBucket> tenantBuckets = new ConcurrentHashMap<>();
+    private final Counter keyThrottled;
+    private final Counter tenantThrottled;
+
+    public RateLimiter(RateLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.keyThrottled = meterRegistry.counter("checky.rate_limit.throttled", "scope", "api_key");
+        this.tenantThrottled = meterRegistry.counter("checky.rate_limit.throttled", "scope", "tenant");
+    }
+
+    /**
+     * Returns 0 if the request may proceed, otherwise the number of milliseconds to wait.
+     */
+    public long tryAcquire(Long apiKeyId, Long restaurantId) {
+        if (!properties.isEnabled()) {
+            return 0;
+        }
+
+        TokenBucket keyBucket = keyBucket(apiKeyId, restaurantId);
+        long wait = keyBucket.tryConsume();
+        if (wait > 0) {
+            keyThrottled.increment();
+            return wait;
+        }
+        wait = tenantBucket(restaurantId).tryConsume();
+        if (wait > 0) {
+            // The request does not run, so it must not count against the key either
+            keyBucket.refund();
+            tenantThrottled.increment();
+        }
+        return wait;
+    }
+
+    // Look up before computeIfAbsent so the happy path does not allocate a capturing lambda
+    private TokenBucket keyBucket(Long apiKeyId, Long restaurantId) {
+        TokenBucket bucket = keyBuckets.get(apiKeyId);
+        if (bucket == null) {
+            RateLimitProperties.Limit limit = properties.apiKeyLimit(restaurantId);
+            bucket = keyBuckets.computeIfAbsent(apiKeyId,
+                    id -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond()));
+        }
+        return bucket;
+    }
+
+    private TokenBucket tenantBucket(Long restaurantId) {
+        TokenBucket bucket = tenantBuckets.get(restaurantId);
+        if (bucket == null) {
+            RateLimitProperties.Limit limit = properties.tenantLimit(restaurantId);
+            bucket = tenantBuckets.computeIfAbsent(restaurantId,
+                    id -> new TokenBucket(limit.getCapacity(), limit.getRefillPerSecond()));
+        }
+        return bucket;
+    }
+}
@@ -1,5 +1,6 @@
 package dev.msundaram.checky.security;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -17,6 +18,9 @@ public class SecurityConfig {
     @Autowired
     private ApiKeyAuthenticationFilter apiKeyAuthenticationFilter;
     
+    @Autowired
+    private IdempotencyKeyFilter idempotencyKeyFilter;
+    
     @Autowired
     private CustomAuthenticationEntryPoint authenticationEntryPoint;
 
@@ -26,15 +30,20 @@ public class SecurityConfig {
             .csrf(AbstractHttpConfigurer::disable)
             .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(authz -> authz
+                // Streamed responses complete on an async dispatch of a request that was already authorized
+                .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                 .requestMatchers("/api/public/**").permitAll()
-                .requestMatchers("/actuator/**").permitAll()
+                .requestMatchers("/actuator/health", "/actuator/health/**").permitAll()
+                // Metrics carry per-restaurant cache and rate-limit figures
+                .requestMatchers("/actuator/**").hasRole("RESTAURANT")
                 .requestMatchers("/api/**").hasRole("RESTAURANT")
                 .anyRequest().permitAll()
             )
             .exceptionHandling(exceptionHandling -> 
                 exceptionHandling.authenticationEntryPoint(authenticationEntryPoint)
             )
-            .addFilterBefore(apiKeyAuthenticationFilter, UsernamePasswordAuthenticationFilter.class);
+            .addFilterBefore(apiKeyAuthenticationFilter, UsernamePasswordAuthenticationFilter.class)
+            .addFilterAfter(idempotencyKeyFilter, ApiKeyAuthenticationFilter.class);
         
         return http.build();
     }
@@ -0,0 +1,8 @@
+package dev.msundaram.checky.security;
+
+/**
+ * The authenticated tenant of the current unit of work. Set once per request by
+ * {@link ApiKeyAuthenticationFilter} and read through {@link TenantContextHolder}.
+ */
+public record TenantContext(Long restaurantId, Long apiKeyId) {
+}
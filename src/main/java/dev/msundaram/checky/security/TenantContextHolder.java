@@ -0,0 +1,66 @@
+package dev.msundaram.checky.security;
+
+import java.util.concurrent.Callable;
+
+/**
+ * Thread-bound {@link TenantContext}. Work handed to other threads must carry the context
+ * explicitly, either through {@link #wrap(Runnable)} or the executors' TaskDecorator.
+ */
+public final class TenantContextHolder {
+
+    private static final ThreadLocal<TenantContext> CURRENT = new ThreadLocal<>();
+
+    private TenantContextHolder() {
+    }
+
+    public static TenantContext get() {
+        return CURRENT.get();
+    }
+
+    public static Long currentRestaurantId() {
+        TenantContext context = CURRENT.get();
+        return context != null ? context.restaurantId() : null;
+    }
+
+    public static void set(TenantContext context) {
+        CURRENT.set(context);
+    }
+
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    public static void runWith(TenantContext context, Runnable task) {
+        TenantContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            task.run();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    public static <T> T callWith(TenantContext context, Callable<T> task) throws Exception {
+        TenantContext previous = CURRENT.get();
+        CURRENT.set(context);
+        try {
+            return task.call();
+        } finally {
+            restore(previous);
+        }
+    }
+
+    // Captures the caller's context so the task sees it on whichever thread runs it
+    public static Runnable wrap(Runnable task) {
+        TenantContext captured = CURRENT.get();
+        return () -> runWith(captured, task);
+    }
+
+    private static void restore(TenantContext previous) {
+        if (previous == null) {
+            CURRENT.remove();
+        } else {
+            CURRENT.set(previous);
+        }
+    }
+}
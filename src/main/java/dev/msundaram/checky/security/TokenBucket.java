@@ -0,0 +1,91 @@
+package dev.msundaram.checky.security;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free token bucket. The whole state lives in a single long (upper 40 bits: last refill time
+ * in milliseconds, lower 24 bits: available milli-tokens) so a take is one CAS and never allocates.
+ */
+final class TokenBucket {
+
+    private static final int TOKEN_BITS = 24;
+    private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+    private static final long MILLI = 1000;
+    private static final long CLOCK_ORIGIN = System.nanoTime();
+
+    static final int MAX_CAPACITY = (int) (TOKEN_MASK / MILLI);
+
+    private final long capacityMilli;
+    // Tokens per second is exactly milli-tokens per millisecond
+    private final long refillPerMilli;
+    private final AtomicLong state;
+
+    TokenBucket(int capacity, int refillPerSecond) {
+        this(capacity, refillPerSecond, currentMillis());
+    }
+
+    TokenBucket(int capacity, int refillPerSecond, long nowMillis) {
+        if (capacity < 1 || capacity > MAX_CAPACITY) {
+            throw new IllegalArgumentException("Rate limit capacity must be between 1 and " + MAX_CAPACITY);
+        }
+        if (refillPerSecond < 1) {
+            throw new IllegalArgumentException("Rate limit refill rate must be positive");
+        }
+        this.capacityMilli = capacity * MILLI;
+        this.refillPerMilli = refillPerSecond;
+        this.state = new AtomicLong(pack(nowMillis, capacityMilli));
+    }
+
+    /**
+     * Takes one token. Returns 0 if the request may proceed, otherwise the number of milliseconds
+     * until a token will be available.
+     */
+    long tryConsume() {
+        return tryConsume(currentMillis());
+    }
+
+    long tryConsume(long nowMillis) {
+        while (true) {
+            long current = state.get();
+            long lastRefill = current >>> TOKEN_BITS;
+            long tokens = current & TOKEN_MASK;
+
+            long elapsed = nowMillis - lastRefill;
+            if (elapsed > 0) {
+                tokens = elapsed >= capacityMilli / refillPerMilli
+                        ? capacityMilli
+                        : Math.min(capacityMilli, tokens + elapsed * refillPerMilli);
+            } else {
+                nowMillis = lastRefill;
+            }
+
+            if (tokens < MILLI) {
+                return (MILLI - tokens + refillPerMilli - 1) / refillPerMilli;
+            }
+            if (state.compareAndSet(current, pack(nowMillis, tokens - MILLI))) {
+                return 0;
+            }
+        }
+    }
+
+    /**
+     * Gives back a token taken by {@link #tryConsume()}, up to capacity.
+     */
+    void refund() {
+        while (true) {
+            long current = state.get();
+            long tokens = Math.min(capacityMilli, (current & TOKEN_MASK) + MILLI);
+            if (state.compareAndSet(current, pack(current >>> TOKEN_BITS, tokens))) {
+                return;
+            }
+        }
+    }
+
+    private static long pack(long millis, long milliTokens) {
+        return (millis << TOKEN_BITS) | milliTokens;
+    }
+
+    static long currentMillis() {
+        return (System.nanoTime() - CLOCK_ORIGIN) / 1_000_000;
+    }
+}
@@ -0,0 +1,41 @@
+package dev.msundaram.checky.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Defers work to the commit of the current transaction, for caches of rows that transaction changes.
+ */
+public final class AfterCommit {
+    
+    private AfterCommit() {
+    }
+    
+    /**
+     * Runs {@code action} once the current transaction commits, or right away outside a transaction.
+     * Nothing runs if the transaction rolls back.
+     */
+    public static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+    
+    /**
+     * Evicts now and again once the current transaction commits: a concurrent load that read the old
+     * row between the two would otherwise put it back in the cache.
+     */
+    public static void evict(Runnable eviction) {
+        eviction.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            run(eviction);
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,116 @@
+package dev.msundaram.checky.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.Supplier;
+
+/**
+ * Bloom filter over the SHA-256 digests of all active API keys. A negative answer means the key
+ * certainly does not exist, so it can be rejected without a database lookup. Until the first
+ * rebuild every key is reported as possibly present.
+ */
+@Component
+@Slf4j
+public class ApiKeyBloomFilter {
+
+    private final int numBits;
+    private final int numHashes;
+    private final Counter rejected;
+
+    private volatile AtomicLongArray bits;
+    private List<byte[]> addedDuringRebuild;
+
+    public ApiKeyBloomFilter(@Value("${checky.api-key.bloom-filter.expected-keys:100000}") int expectedKeys,
+                             @Value("${checky.api-key.bloom-filter.false-positive-rate:0.01}") double falsePositiveRate,
+                             MeterRegistry meterRegistry) {
+        double ln2 = Math.log(2);
+        this.numBits = (int) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2));
+        this.numHashes = Math.max(1, (int) Math.round((double) numBits / expectedKeys * ln2));
+        this.rejected = meterRegistry.counter("checky.api_keys.bloom.rejected");
+    }
+
+    public boolean mightContain(byte[] digest) {
+        AtomicLongArray current = bits;
+        if (current == null) {
+            return true;
+        }
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(h1, h2, i);
+            if ((current.get(index >>> 6) & (1L << index)) == 0) {
+                rejected.increment();
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public synchronized void put(byte[] digest) {
+        if (bits != null) {
+            set(bits, digest);
+        }
+        if (addedDuringRebuild != null) {
+            addedDuringRebuild.add(digest);
+        }
+    }
+
+    /**
+     * Replaces the filter with one built from the given source of active digests. Digests added
+     * while the source is being read are carried over into the new filter.
+     */
+    public void rebuild(Supplier<Collection<byte[]>> activeDigests) {
+        synchronized (this) {
+            addedDuringRebuild = new ArrayList<>();
+        }
+        Collection<byte[]> digests;
+        try {
+            digests = activeDigests.get();
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                addedDuringRebuild = null;
+            }
+            throw e;
+        }
+
+        AtomicLongArray rebuilt = new AtomicLongArray((numBits + 63) >>> 6);
+        digests.forEach(digest -> set(rebuilt, digest));
+        synchronized (this) {
+            addedDuringRebuild.forEach(digest -> set(rebuilt, digest));
+            addedDuringRebuild = null;
+            bits = rebuilt;
+        }
+        log.info("Rebuilt API key bloom filter with {} keys ({} bits, {} hashes)", digests.size(), numBits, numHashes);
+    }
+
+    private void set(AtomicLongArray target, byte[] digest) {
+        long h1 = readLong(digest, 0);
+        long h2 = readLong(digest, 8);
+        for (int i = 0; i < numHashes; i++) {
+            int index = index(h1, h2, i);
+            long mask = 1L << index;
+            target.getAndUpdate(index >>> 6, word -> word | mask);
+        }
+    }
+
+    private static long readLong(byte[] bytes, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (bytes[i] & 0xFF);
+        }
+        return value;
+    }
+
+    // Double hashing over the (already uniform) digest bytes
+    private int index(long h1, long h2, int i) {
+        return (int) Math.floorMod(h1 + i * h2, (long) numBits);
+    }
+}
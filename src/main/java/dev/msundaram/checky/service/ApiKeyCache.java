@@ -0,0 +1,108 @@
+package dev.msundaram.checky.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+/**
+ * Bounded cache of API key resolutions. Valid keys live for the configured TTL (never past
+ * their own expiresAt); unknown keys are remembered briefly so garbage keys skip the database too.
+ */
+@Component
+public class ApiKeyCache {
+    
+    private final Cache<String, ResolvedApiKey> validKeys;
+    private final Cache<String, Boolean> invalidKeys;
+    
+    public ApiKeyCache(@Value("${checky.api-key.cache.maximum-size:10000}") long maximumSize,
+                       @Value("${checky.api-key.cache.ttl:5m}") Duration ttl,
+                       @Value("${checky.api-key.cache.negative-maximum-size:50000}") long negativeMaximumSize,
+                       @Value("${checky.api-key.cache.negative-ttl:30s}") Duration negativeTtl,
+                       MeterRegistry meterRegistry) {
+        this.validKeys = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfter(new KeyExpiry(ttl))
+                .recordStats()
+                .build();
+        this.invalidKeys = Caffeine.newBuilder()
+                .maximumSize(negativeMaximumSize)
+                .expireAfterWrite(negativeTtl)
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, validKeys, "apiKeys");
+        CaffeineCacheMetrics.monitor(meterRegistry, invalidKeys, "apiKeys.invalid");
+    }
+    
+    // Returns null on a miss; entries past their expiresAt are dropped and treated as a miss
+    public ResolvedApiKey get(String apiKey, LocalDateTime now) {
+        ResolvedApiKey resolved = validKeys.getIfPresent(apiKey);
+        if (resolved != null && resolved.isExpiredAt(now)) {
+            validKeys.invalidate(apiKey);
+            return null;
+        }
+        return resolved;
+    }
+    
+    public boolean isKnownInvalid(String apiKey) {
+        return invalidKeys.getIfPresent(apiKey) != null;
+    }
+    
+    public void put(String apiKey, ResolvedApiKey resolved) {
+        invalidKeys.invalidate(apiKey);
+        validKeys.put(apiKey, resolved);
+    }
+    
+    public void putInvalid(String apiKey) {
+        invalidKeys.put(apiKey, Boolean.TRUE);
+    }
+    
+    public void invalidate(String apiKey) {
+        validKeys.invalidate(apiKey);
+        invalidKeys.invalidate(apiKey);
+    }
+    
+    public void invalidateAll() {
+        validKeys.invalidateAll();
+        invalidKeys.invalidateAll();
+    }
+    
+    // Expire after the TTL or at the key's own expiry, whichever comes first
+    private static final class KeyExpiry implements Expiry<String, ResolvedApiKey> {
+        
+        private final long ttlNanos;
+        
+        private KeyExpiry(Duration ttl) {
+            this.ttlNanos = ttl.toNanos();
+        }
+        
+        @Override
+        public long expireAfterCreate(String key, ResolvedApiKey value, long currentTime) {
+            if (value.expiresAt() == null) {
+                return ttlNanos;
+            }
+            Duration untilExpiry = Duration.between(LocalDateTime.now(), value.expiresAt());
+            if (untilExpiry.isNegative()) {
+                return 0;
+            }
+            return untilExpiry.compareTo(Duration.ofNanos(ttlNanos)) < 0 ? untilExpiry.toNanos() : ttlNanos;
+        }
+        
+        @Override
+        public long expireAfterUpdate(String key, ResolvedApiKey value, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, value, currentTime);
+        }
+        
+        @Override
+        public long expireAfterRead(String key, ResolvedApiKey value, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.security.ApiKeyHasher;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Keeps every instance's bloom filter and key cache in step with keys created or deactivated on
+ * other instances. {@link ApiKeyService} sends the key hash with NOTIFY in the changing transaction,
+ * so it goes out once committed. The filter is rebuilt each time the listener (re)connects, which
+ * covers anything sent while it was not listening.
+ */
+@Component
+@Slf4j
+public class ApiKeyChangeListener {
+
+    static final String CHANNEL = "checky_api_keys";
+
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final ApiKeyService apiKeyService;
+    private final ApiKeyBloomFilter apiKeyBloomFilter;
+    private final ApiKeyCache apiKeyCache;
+    private volatile boolean running;
+    private Thread listener;
+
+    public ApiKeyChangeListener(DataSource dataSource,
+                                ApiKeyService apiKeyService,
+                                ApiKeyBloomFilter apiKeyBloomFilter,
+                                ApiKeyCache apiKeyCache) {
+        this.dataSource = dataSource;
+        this.apiKeyService = apiKeyService;
+        this.apiKeyBloomFilter = apiKeyBloomFilter;
+        this.apiKeyCache = apiKeyCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "api-key-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Keys committed before LISTEN took effect are picked up by the rebuild
+                apiKeyService.rebuildBloomFilter();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) RECONNECT_DELAY_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("API key change listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String keyHash) {
+        try {
+            apiKeyBloomFilter.put(ApiKeyHasher.fromHex(keyHash));
+            apiKeyCache.invalidate(keyHash);
+        } catch (IllegalArgumentException e) {
+            log.warn("Ignoring malformed API key notification: {}", e.getMessage());
+        }
+    }
+}
\ No newline at end of file
@@ -2,11 +2,16 @@ package dev.msundaram.checky.service;
 
 import dev.msundaram.checky.entity.ApiKey;
 import dev.msundaram.checky.repository.ApiKeyRepository;
+import dev.msundaram.checky.security.ApiKeyHasher;
 import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.security.SecureRandom;
 import java.time.LocalDateTime;
+import java.util.Base64;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,63 +19,126 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ApiKeyService {
     
+    private static final SecureRandom RANDOM = new SecureRandom();
+    
     private final ApiKeyRepository apiKeyRepository;
+    private final ApiKeyCache apiKeyCache;
+    private final ApiKeyUsageTracker apiKeyUsageTracker;
+    private final ApiKeyBloomFilter apiKeyBloomFilter;
+    private final JdbcTemplate jdbcTemplate;
     
-    @Transactional
     public Optional<Long> getRestaurantIdFromApiKey(String apiKey) {
+        return resolveApiKey(apiKey).map(ResolvedApiKey::restaurantId);
+    }
+    
+    public Optional<ResolvedApiKey> resolveApiKey(String apiKey) {
         if (apiKey == null || apiKey.trim().isEmpty()) {
             return Optional.empty();
         }
         
-        Optional<ApiKey> apiKeyEntity = apiKeyRepository.findByApiKeyAndActive(apiKey, LocalDateTime.now());
+        byte[] digest = ApiKeyHasher.digest(apiKey);
+        if (!apiKeyBloomFilter.mightContain(digest)) {
+            return Optional.empty();
+        }
+        
+        String keyHash = ApiKeyHasher.toHex(digest);
+        LocalDateTime now = LocalDateTime.now();
+        ResolvedApiKey resolved = apiKeyCache.get(keyHash, now);
         
-        if (apiKeyEntity.isPresent()) {
-            ApiKey key = apiKeyEntity.get();
-            // Update last used timestamp
-            apiKeyRepository.updateLastUsedAt(key.getId(), LocalDateTime.now());
-            return Optional.of(key.getRestaurantId());
+        if (resolved == null) {
+            if (apiKeyCache.isKnownInvalid(keyHash)) {
+                return Optional.empty();
+            }
+            
+            // The lookup is by hash; the stored digest is then checked in constant time before it is cached
+            Optional<ApiKey> apiKeyEntity = apiKeyRepository.findByKeyHashAndActive(keyHash, now)
+                    .filter(key -> ApiKeyHasher.matches(digest, key.getKeyHash()));
+            if (apiKeyEntity.isEmpty()) {
+                apiKeyCache.putInvalid(keyHash);
+                return Optional.empty();
+            }
+            
+            resolved = ResolvedApiKey.from(apiKeyEntity.get());
+            apiKeyCache.put(keyHash, resolved);
         }
         
-        return Optional.empty();
+        // Last used timestamp is written behind in batches
+        apiKeyUsageTracker.recordUsage(resolved.keyId(), now);
+        return Optional.of(resolved);
     }
     
     public boolean isValidApiKey(String apiKey) {
-        return apiKeyRepository.existsByApiKeyAndIsActiveTrue(apiKey);
+        return findByApiKey(apiKey).filter(key -> Boolean.TRUE.equals(key.getIsActive())).isPresent();
     }
     
     public Optional<ApiKey> findByApiKey(String apiKey) {
-        return apiKeyRepository.findByApiKey(apiKey);
+        byte[] digest = ApiKeyHasher.digest(apiKey);
+        return apiKeyRepository.findByKeyHash(ApiKeyHasher.toHex(digest))
+                .filter(key -> ApiKeyHasher.matches(digest, key.getKeyHash()));
     }
     
     public List<ApiKey> findByRestaurantIdAndActive(Long restaurantId) {
         return apiKeyRepository.findByRestaurantIdAndActive(restaurantId);
     }
     
+    // Also run by ApiKeyChangeListener whenever it starts listening
+    @Scheduled(fixedDelayString = "${checky.api-key.bloom-filter.rebuild-interval:10m}",
+               initialDelayString = "${checky.api-key.bloom-filter.rebuild-interval:10m}")
+    public void rebuildBloomFilter() {
+        apiKeyBloomFilter.rebuild(() -> apiKeyRepository.findActiveKeyHashes(LocalDateTime.now()).stream()
+                .map(ApiKeyHasher::fromHex)
+                .toList());
+    }
+    
     @Transactional
     public ApiKey createApiKey(Long restaurantId, String description) {
         String generatedApiKey = generateApiKey();
         
+        byte[] digest = ApiKeyHasher.digest(generatedApiKey);
+        String keyHash = ApiKeyHasher.toHex(digest);
+        
         ApiKey apiKey = new ApiKey();
         apiKey.setApiKey(generatedApiKey);
+        apiKey.setKeyHash(keyHash);
         apiKey.setRestaurantId(restaurantId);
         apiKey.setDescription(description);
         apiKey.setIsActive(true);
         
-        return apiKeyRepository.save(apiKey);
+        ApiKey savedKey = apiKeyRepository.save(apiKey);
+        invalidateCachedKey(keyHash, digest);
+        return savedKey;
     }
     
     @Transactional
     public void deactivateApiKey(String apiKey) {
-        Optional<ApiKey> existingKey = apiKeyRepository.findByApiKey(apiKey);
+        String keyHash = ApiKeyHasher.hash(apiKey);
+        Optional<ApiKey> existingKey = apiKeyRepository.findByKeyHash(keyHash);
         if (existingKey.isPresent()) {
             ApiKey key = existingKey.get();
             key.setIsActive(false);
             apiKeyRepository.save(key);
         }
+        invalidateCachedKey(keyHash, null);
+    }
+    
+    // Other instances hear of the change through ApiKeyChangeListener once the transaction commits
+    private void invalidateCachedKey(String keyHash, byte[] newDigest) {
+        apiKeyCache.invalidate(keyHash);
+        jdbcTemplate.queryForObject("SELECT pg_notify(?, ?)", String.class, ApiKeyChangeListener.CHANNEL, keyHash);
+        // Invalidate again once committed so a concurrent lookup cannot re-cache the old row. A new key
+        // is added to the filter only then, so a rebuild reading before the commit cannot drop it
+        AfterCommit.run(() -> {
+            if (newDigest != null) {
+                apiKeyBloomFilter.put(newDigest);
+            }
+            apiKeyCache.invalidate(keyHash);
+        });
     }
     
+    // 32 random bytes, base64url encoded
     private String generateApiKey() {
-        // Generate a secure API key (in production, use a more secure method)
-        return "api_key_" + System.currentTimeMillis() + "_" + (int)(Math.random() * 1000);
+        byte[] bytes = new byte[32];
+        RANDOM.nextBytes(bytes);
+        return "api_key_" + Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
     }
 } 
\ No newline at end of file
@@ -0,0 +1,76 @@
+package dev.msundaram.checky.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Write-behind buffer for ApiKey.lastUsedAt. Authentication only records the latest use per key
+ * in memory; the buffer is flushed periodically (and on shutdown) as a single JDBC batch.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ApiKeyUsageTracker {
+    
+    private static final String UPDATE_LAST_USED_SQL =
+            "UPDATE api_keys SET last_used_at = ? WHERE id = ? AND (last_used_at IS NULL OR last_used_at < ?)";
+    
+    private final JdbcTemplate jdbcTemplate;
+    
+    private final ConcurrentHashMap<Long, LocalDateTime> pendingUsage = new ConcurrentHashMap<>();
+    
+    public void recordUsage(Long keyId, LocalDateTime usedAt) {
+        pendingUsage.merge(keyId, usedAt, ApiKeyUsageTracker::latest);
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.api-key.last-used.flush-interval:30s}")
+    public void flush() {
+        if (pendingUsage.isEmpty()) {
+            return;
+        }
+        
+        List<Map.Entry<Long, LocalDateTime>> drained = new ArrayList<>(pendingUsage.size());
+        for (Map.Entry<Long, LocalDateTime> entry : pendingUsage.entrySet()) {
+            // Only drain the value we saw; a newer timestamp recorded meanwhile stays pending
+            if (pendingUsage.remove(entry.getKey(), entry.getValue())) {
+                drained.add(Map.entry(entry.getKey(), entry.getValue()));
+            }
+        }
+        if (drained.isEmpty()) {
+            return;
+        }
+        
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_LAST_USED_SQL, drained, drained.size(), (ps, entry) -> {
+                Timestamp lastUsedAt = Timestamp.valueOf(entry.getValue());
+                ps.setTimestamp(1, lastUsedAt);
+                ps.setLong(2, entry.getKey());
+                ps.setTimestamp(3, lastUsedAt);
+            });
+            log.debug("Flushed last used timestamps for {} API keys", drained.size());
+        } catch (RuntimeException e) {
+            drained.forEach(entry -> recordUsage(entry.getKey(), entry.getValue()));
+            log.warn("Failed to flush API key usage, will retry: {}", e.getMessage());
+        }
+    }
+    
+    @PreDestroy
+    public void drainOnShutdown() {
+        flush();
+    }
+    
+    private static LocalDateTime latest(LocalDateTime a, LocalDateTime b) {
+        return a.isAfter(b) ? a : b;
+    }
+}
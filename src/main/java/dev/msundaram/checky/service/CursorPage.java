@@ -0,0 +1,25 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * One page of a keyset-paginated listing. {@code nextCursor} is absent on the last page.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CursorPage<T>(List<T> items, String nextCursor) {
+    
+    /**
+     * Builds a page from a query that fetched up to {@code limit + 1} rows; the extra row only
+     * tells whether there is a next page and is dropped.
+     */
+    static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, KeysetCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new CursorPage<>(rows, null);
+        }
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,149 @@
+package dev.msundaram.checky.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.msundaram.checky.config.DocumentNumberProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.JdbcConnectionDetails;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hands out per-restaurant document numbers from blocks reserved in the document_sequences table.
+ * A block is reserved in its own transaction, so numbers are never reused even if the caller's
+ * transaction rolls back, and instances never share a block. Unused numbers of a block are lost on
+ * restart, leaving gaps but no duplicates.
+ * <p>
+ * Blocks are reserved on a small pool of their own ({@code checky.document-numbers.pool-size}) with
+ * auto-commit, never on the application pool: a caller refilling a block already holds a connection
+ * in its transaction, and with a second one taken from the same pool, as many concurrent refills as
+ * the pool has connections would wait on each other until the connection timeout.
+ */
+@Service
+@Slf4j
+public class DocumentNumberService {
+    
+    // next_value is the first number not yet reserved by any instance
+    private static final String RESERVE_BLOCK_SQL = """
+            INSERT INTO document_sequences (tenant_id, document_type, next_value)
+            VALUES (?, ?, 1 + ?)
+            ON CONFLICT (tenant_id, document_type)
+            DO UPDATE SET next_value = document_sequences.next_value + EXCLUDED.next_value - 1, updated_at = now()
+            RETURNING next_value""";
+    
+    private final DataSource reservationPool;
+    private final DocumentNumberProperties properties;
+    private final ConcurrentMap<SequenceKey, Sequence> sequences = new ConcurrentHashMap<>();
+    private final Counter blocksReserved;
+    // The reservation pool when this service created it, closed with the service
+    private HikariDataSource ownPool;
+    
+    @Autowired
+    public DocumentNumberService(JdbcConnectionDetails connectionDetails,
+                                 DocumentNumberProperties properties,
+                                 MeterRegistry meterRegistry) {
+        this(reservationPool(connectionDetails, properties), properties, meterRegistry);
+        this.ownPool = (HikariDataSource) this.reservationPool;
+    }
+    
+    DocumentNumberService(DataSource reservationPool, DocumentNumberProperties properties, MeterRegistry meterRegistry) {
+        this.reservationPool = reservationPool;
+        this.properties = properties;
+        this.blocksReserved = meterRegistry.counter("checky.document_numbers.blocks_reserved");
+    }
+    
+    private static HikariDataSource reservationPool(JdbcConnectionDetails connectionDetails, DocumentNumberProperties properties) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setPoolName("document-numbers");
+        pool.setJdbcUrl(connectionDetails.getJdbcUrl());
+        pool.setUsername(connectionDetails.getUsername());
+        pool.setPassword(connectionDetails.getPassword());
+        pool.setDriverClassName(connectionDetails.getDriverClassName());
+        pool.setMaximumPoolSize(Math.max(1, properties.getPoolSize()));
+        pool.setMinimumIdle(0);
+        pool.setAutoCommit(true);
+        return pool;
+    }
+    
+    @PreDestroy
+    public void close() {
+        if (ownPool != null) {
+            ownPool.close();
+        }
+    }
+    
+    public String next(DocumentType type, Long restaurantId) {
+        return String.format(properties.format(type), restaurantId, nextValue(type, restaurantId));
+    }
+    
+    long nextValue(DocumentType type, Long restaurantId) {
+        return sequences.computeIfAbsent(new SequenceKey(restaurantId, type), key -> new Sequence()).next(type, restaurantId);
+    }
+    
+    private Block reserveBlock(DocumentType type, Long restaurantId) {
+        int blockSize = Math.max(1, properties.getBlockSize());
+        long end;
+        // Plain JDBC: a JdbcTemplate would bind the connection to the caller's transaction until it ends
+        try (Connection connection = reservationPool.getConnection();
+             PreparedStatement statement = connection.prepareStatement(RESERVE_BLOCK_SQL)) {
+            statement.setLong(1, restaurantId);
+            statement.setString(2, type.name());
+            statement.setInt(3, blockSize);
+            try (ResultSet rs = statement.executeQuery()) {
+                rs.next();
+                end = rs.getLong(1);
+            }
+        } catch (SQLException e) {
+            throw new RuntimeException("Could not reserve " + type + " numbers for restaurant " + restaurantId, e);
+        }
+        blocksReserved.increment();
+        log.debug("Reserved {} numbers [{}, {}) for restaurant {}", type, end - blockSize, end, restaurantId);
+        return new Block(end - blockSize, end);
+    }
+    
+    private record SequenceKey(Long restaurantId, DocumentType type) {
+    }
+    
+    private static final class Block {
+        private final AtomicLong next;
+        private final long end;
+        
+        Block(long start, long end) {
+            this.next = new AtomicLong(start);
+            this.end = end;
+        }
+    }
+    
+    private final class Sequence {
+        private volatile Block current;
+        
+        long next(DocumentType type, Long restaurantId) {
+            while (true) {
+                Block block = current;
+                if (block != null) {
+                    long value = block.next.getAndIncrement();
+                    if (value < block.end) {
+                        return value;
+                    }
+                }
+                // Only one thread per sequence refills; the others retry against the new block
+                synchronized (this) {
+                    if (current == block) {
+                        current = reserveBlock(type, restaurantId);
+                    }
+                }
+            }
+        }
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,14 @@
+package dev.msundaram.checky.service;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+@Getter
+@RequiredArgsConstructor
+public enum DocumentType {
+    ORDER("ORD-%1$d-%2$06d"),
+    INVENTORY_TRANSACTION("INV-%1$d-%2$08d"),
+    RECIPE_TRANSACTION("RECIPE-%1$d-%2$08d");
+    
+    private final String defaultFormat;
+} 
\ No newline at end of file
@@ -0,0 +1,313 @@
+package dev.msundaram.checky.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs a request at most once per (restaurant, Idempotency-Key) and hands its response to retries.
+ * Recent responses are served from memory; concurrent duplicates on this instance wait for the
+ * first execution, and the idempotency_records table arbitrates between instances and restarts.
+ * <p>
+ * The request runs in a transaction that also records its response and holds the claim's row lock
+ * throughout, so its writes and the recorded response commit together or not at all. A claim
+ * without a response therefore never has committed writes, and only such claims are taken over
+ * once stale (e.g. the instance died). Writes in separate transactions (REQUIRES_NEW) are not
+ * covered and must be idempotent themselves.
+ * <p>
+ * Requests that commit their writes in transactions of their own and are idempotent anyway, such as
+ * batch ingestion, run outside that transaction ({@code transactional = false}): holding it would
+ * keep one pooled connection busy for the whole request on top of the ones its transactions take.
+ * Their response is recorded once they return.
+ */
+@Component
+@Slf4j
+public class IdempotencyStore {
+
+    // Claims the key, or takes over a claim whose request never completed (e.g. the instance died)
+    private static final String CLAIM_SQL = """
+            INSERT INTO idempotency_records (tenant_id, idempotency_key, request_fingerprint)
+            VALUES (?, ?, ?)
+            ON CONFLICT (tenant_id, idempotency_key) DO UPDATE
+                SET request_fingerprint = EXCLUDED.request_fingerprint, created_at = now()
+                WHERE idempotency_records.status_code IS NULL AND idempotency_records.created_at < ?
+            RETURNING created_at""";
+
+    // Held until the request's transaction ends, so a takeover waits for it to commit or roll back
+    private static final String LOCK_SQL =
+            "SELECT created_at FROM idempotency_records WHERE tenant_id = ? AND idempotency_key = ? FOR UPDATE";
+
+    private static final String FIND_SQL = """
+            SELECT request_fingerprint, status_code, content_type, response_body FROM idempotency_records
+            WHERE tenant_id = ? AND idempotency_key = ?""";
+
+    private static final String COMPLETE_SQL = """
+            UPDATE idempotency_records SET status_code = ?, content_type = ?, response_body = ?, completed_at = now()
+            WHERE tenant_id = ? AND idempotency_key = ? AND created_at = ?""";
+
+    // created_at identifies the claim, so a claim taken over in the meantime is left alone
+    private static final String RELEASE_SQL = """
+            DELETE FROM idempotency_records
+            WHERE tenant_id = ? AND idempotency_key = ? AND created_at = ? AND status_code IS NULL""";
+
+    public enum Outcome {
+        // This request ran; its response is the original
+        EXECUTED,
+        // A previous response for the same request is returned
+        REPLAYED,
+        // The key was first used with a different request
+        MISMATCH,
+        // The first request with this key is still running (possibly on another instance)
+        IN_PROGRESS
+    }
+
+    public record Result(Outcome outcome, IdempotentResponse response) {
+    }
+
+    @FunctionalInterface
+    public interface Execution<E extends Exception> {
+        IdempotentResponse run() throws E;
+    }
+
+    private record Key(Long tenantId, String idempotencyKey) {
+    }
+
+    // The response of a run and whether it was recorded with the request's writes
+    private record Attempt(IdempotentResponse response, boolean recorded) {
+    }
+
+    // Carries a checked exception of the execution out of the transaction callback
+    private static final class ExecutionFailure extends RuntimeException {
+        ExecutionFailure(Exception cause) {
+            super(cause);
+        }
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final Cache<Key, IdempotentResponse> responses;
+    private final ConcurrentMap<Key, CompletableFuture<IdempotentResponse>> inFlight = new ConcurrentHashMap<>();
+    private final Duration retention;
+    private final Duration pendingTimeout;
+    private final Duration waitTimeout;
+    private final Counter replayed;
+    private final Counter coalesced;
+
+    public IdempotencyStore(JdbcTemplate jdbcTemplate,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${checky.idempotency.cache.maximum-size:10000}") long maximumSize,
+                            @Value("${checky.idempotency.retention:24h}") Duration retention,
+                            @Value("${checky.idempotency.pending-timeout:1m}") Duration pendingTimeout,
+                            @Value("${checky.idempotency.wait-timeout:30s}") Duration waitTimeout,
+                            MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.retention = retention;
+        this.pendingTimeout = pendingTimeout;
+        this.waitTimeout = waitTimeout;
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(retention)
+                .recordStats()
+                .build();
+        this.replayed = meterRegistry.counter("checky.idempotency.replayed");
+        this.coalesced = meterRegistry.counter("checky.idempotency.coalesced");
+
+        CaffeineCacheMetrics.monitor(meterRegistry, responses, "idempotentResponses");
+    }
+
+    public <E extends Exception> Result execute(Long tenantId, String idempotencyKey, String fingerprint,
+                                                Execution<E> execution) throws E {
+        return execute(tenantId, idempotencyKey, fingerprint, true, execution);
+    }
+
+    public <E extends Exception> Result execute(Long tenantId, String idempotencyKey, String fingerprint,
+                                                boolean transactional, Execution<E> execution) throws E {
+        Key key = new Key(tenantId, idempotencyKey);
+        while (true) {
+            IdempotentResponse cached = responses.getIfPresent(key);
+            if (cached != null) {
+                return replay(cached, fingerprint);
+            }
+
+            CompletableFuture<IdempotentResponse> mine = new CompletableFuture<>();
+            CompletableFuture<IdempotentResponse> running = inFlight.putIfAbsent(key, mine);
+            if (running != null) {
+                coalesced.increment();
+                IdempotentResponse response = await(running);
+                if (response == null) {
+                    // The first execution timed out here, failed or was not recorded; try to run it ourselves
+                    if (!running.isDone()) {
+                        return new Result(Outcome.IN_PROGRESS, null);
+                    }
+                    continue;
+                }
+                return replay(response, fingerprint);
+            }
+
+            try {
+                return executeOnce(key, fingerprint, transactional, execution, mine);
+            } finally {
+                inFlight.remove(key, mine);
+                // Never leave waiters hanging, whatever happened above
+                mine.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(cron = "${checky.idempotency.purge-cron:0 15 * * * *}")
+    public void purgeExpired() {
+        int purged = jdbcTemplate.update("DELETE FROM idempotency_records WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(retention)));
+        if (purged > 0) {
+            log.info("Purged {} idempotency records older than {}", purged, retention);
+        }
+    }
+
+    private <E extends Exception> Result executeOnce(Key key, String fingerprint, boolean transactional,
+                                                     Execution<E> execution,
+                                                     CompletableFuture<IdempotentResponse> mine) throws E {
+        Timestamp claim = claim(key, fingerprint);
+        if (claim == null) {
+            IdempotentResponse persisted = findCompleted(key);
+            if (persisted == null) {
+                return new Result(Outcome.IN_PROGRESS, null);
+            }
+            responses.put(key, persisted);
+            mine.complete(persisted);
+            return replay(persisted, fingerprint);
+        }
+
+        Attempt attempt;
+        try {
+            attempt = !transactional ? new Attempt(run(execution), false) : transactionTemplate.execute(status -> {
+                List<Timestamp> locked = jdbcTemplate.queryForList(LOCK_SQL, Timestamp.class, key.tenantId(), key.idempotencyKey());
+                if (locked.isEmpty() || !locked.get(0).equals(claim)) {
+                    // Taken over before the lock was acquired
+                    return null;
+                }
+                IdempotentResponse response = run(execution);
+                // Server errors are not recorded, so a retry runs the request again
+                if (response.status() >= 500 || status.isRollbackOnly()) {
+                    status.setRollbackOnly();
+                    return new Attempt(response, false);
+                }
+                jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.body(),
+                        key.tenantId(), key.idempotencyKey(), claim);
+                return new Attempt(response, true);
+            });
+        } catch (ExecutionFailure e) {
+            release(key, claim);
+            throw IdempotencyStore.<E>rethrow(e.getCause());
+        } catch (RuntimeException e) {
+            release(key, claim);
+            throw e;
+        }
+        if (attempt == null) {
+            return new Result(Outcome.IN_PROGRESS, null);
+        }
+
+        IdempotentResponse response = attempt.response();
+        if (!attempt.recorded()) {
+            if (response.status() >= 500 || !recordSeparately(key, claim, response)) {
+                release(key, claim);
+                return new Result(Outcome.EXECUTED, response);
+            }
+        }
+        responses.put(key, response);
+        mine.complete(response);
+        return new Result(Outcome.EXECUTED, response);
+    }
+
+    // A failure the request caught itself (e.g. a 409) rolled its transaction back, so nothing was
+    // written, or the request ran outside it and committed its own writes
+    private boolean recordSeparately(Key key, Timestamp claim, IdempotentResponse response) {
+        try {
+            return jdbcTemplate.update(COMPLETE_SQL, response.status(), response.contentType(), response.body(),
+                    key.tenantId(), key.idempotencyKey(), claim) > 0;
+        } catch (RuntimeException e) {
+            log.warn("Could not record idempotency key {} of restaurant {}: {}", key.idempotencyKey(), key.tenantId(), e.getMessage());
+            return false;
+        }
+    }
+
+    private static <E extends Exception> IdempotentResponse run(Execution<E> execution) {
+        try {
+            return execution.run();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new ExecutionFailure(e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <E extends Exception> E rethrow(Throwable cause) {
+        return (E) cause;
+    }
+
+    // Returns the claim's created_at, or null if the key is taken
+    private Timestamp claim(Key key, String fingerprint) {
+        Timestamp staleBefore = Timestamp.valueOf(LocalDateTime.now().minus(pendingTimeout));
+        List<Timestamp> claimed = jdbcTemplate.queryForList(CLAIM_SQL, Timestamp.class,
+                key.tenantId(), key.idempotencyKey(), fingerprint, staleBefore);
+        return claimed.isEmpty() ? null : claimed.get(0);
+    }
+
+    private IdempotentResponse findCompleted(Key key) {
+        List<IdempotentResponse> found = jdbcTemplate.query(FIND_SQL, (rs, rowNum) -> {
+            int status = rs.getInt("status_code");
+            return rs.wasNull() ? null : new IdempotentResponse(rs.getString("request_fingerprint"), status,
+                    rs.getString("content_type"), rs.getBytes("response_body"));
+        }, key.tenantId(), key.idempotencyKey());
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    private void release(Key key, Timestamp claim) {
+        try {
+            jdbcTemplate.update(RELEASE_SQL, key.tenantId(), key.idempotencyKey(), claim);
+        } catch (RuntimeException e) {
+            // The claim goes stale after the pending timeout and is taken over then
+            log.warn("Could not release idempotency key {} of restaurant {}: {}", key.idempotencyKey(), key.tenantId(), e.getMessage());
+        }
+    }
+
+    private Result replay(IdempotentResponse response, String fingerprint) {
+        if (!response.fingerprint().equals(fingerprint)) {
+            return new Result(Outcome.MISMATCH, null);
+        }
+        replayed.increment();
+        return new Result(Outcome.REPLAYED, response);
+    }
+
+    private IdempotentResponse await(CompletableFuture<IdempotentResponse> running) {
+        try {
+            return running.get(waitTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        } catch (ExecutionException | TimeoutException e) {
+            return null;
+        }
+    }
+}
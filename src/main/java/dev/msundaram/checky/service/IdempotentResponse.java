@@ -0,0 +1,8 @@
+package dev.msundaram.checky.service;
+
+/**
+ * Response recorded for an Idempotency-Key, replayed to retries of the same request.
+ * The fingerprint identifies the request (method, path and body) the key was first used with.
+ */
+public record IdempotentResponse(String fingerprint, int status, String contentType, byte[] body) {
+} 
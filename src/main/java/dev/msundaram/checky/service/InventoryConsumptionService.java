@@ -0,0 +1,278 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Takes inventory deduction off the order path. Orders record the menu item quantities they consume
+ * in inventory_consumption_events, in their own transaction; a background worker drains the events
+ * in batches and deducts stock once per inventory item per batch. Batches are claimed with
+ * FOR UPDATE SKIP LOCKED, so several instances can drain without taking the same events.
+ * <p>
+ * Each restaurant's events are drained in their own transactions, so one restaurant whose deduction
+ * fails does not hold up the others. The events of a failed batch are then applied one per
+ * transaction, so a single bad event (e.g. a recipe pointing at a missing ingredient) does not take
+ * the rest of its batch down with it. Events that fail on their own are retried after
+ * {@code checky.inventory.consumption.retry-delay} times their attempt count and, after
+ * {@code max-attempts} failures, moved to inventory_consumption_dead_letters.
+ * In synchronous mode the consumption is applied in the order's transaction instead, skipping the queue.
+ */
+@Service
+@Slf4j
+public class InventoryConsumptionService {
+    
+    private static final String INSERT_SQL =
+            "INSERT INTO inventory_consumption_events (tenant_id, order_id, menu_item_id, quantity) VALUES (?, ?, ?, ?)";
+    
+    // Restaurants among the oldest events that are due
+    private static final String DUE_TENANTS_SQL = """
+            SELECT DISTINCT tenant_id FROM (
+                SELECT tenant_id FROM inventory_consumption_events
+                WHERE retry_at IS NULL OR retry_at <= now() ORDER BY id LIMIT ?) due""";
+    
+    // Claims a restaurant's oldest due events nobody else is draining; a rollback puts them back in the queue
+    private static final String DRAIN_SQL = """
+            DELETE FROM inventory_consumption_events WHERE id IN (
+                SELECT id FROM inventory_consumption_events
+                WHERE tenant_id = ? AND (retry_at IS NULL OR retry_at <= now())
+                ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED)
+            RETURNING id, menu_item_id, quantity""";
+    
+    // Claims one event of a failed batch, unless another instance has taken it in the meantime
+    private static final String DRAIN_ONE_SQL = """
+            DELETE FROM inventory_consumption_events WHERE id IN (
+                SELECT id FROM inventory_consumption_events WHERE id = ? FOR UPDATE SKIP LOCKED)
+            RETURNING id, menu_item_id, quantity""";
+    
+    private static final String RETRY_SQL = """
+            UPDATE inventory_consumption_events
+            SET attempts = attempts + 1, last_error = ?, retry_at = now() + make_interval(secs => ? * (attempts + 1))
+            WHERE id = ANY (?)""";
+    
+    private static final String DEAD_LETTER_SQL = """
+            WITH dead AS (
+                DELETE FROM inventory_consumption_events WHERE id = ANY (?) AND attempts >= ?
+                RETURNING id, tenant_id, order_id, menu_item_id, quantity, created_at, attempts, last_error)
+            INSERT INTO inventory_consumption_dead_letters
+                (id, tenant_id, order_id, menu_item_id, quantity, created_at, attempts, last_error)
+            SELECT id, tenant_id, order_id, menu_item_id, quantity, created_at, attempts, last_error FROM dead""";
+    
+    private static final String BACKLOG_SQL = """
+            SELECT count(*), coalesce(extract(epoch FROM now() - min(created_at)) * 1000, 0)
+            FROM inventory_consumption_events""";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final RecipeService recipeService;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final boolean synchronous;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Counter consumed;
+    private final Counter deadLettered;
+    private final AtomicLong pending = new AtomicLong();
+    // Wall-clock time of the oldest pending event as of the last drain, 0 when the queue was empty
+    private final AtomicLong oldestPendingAt = new AtomicLong();
+    
+    public InventoryConsumptionService(JdbcTemplate jdbcTemplate,
+                                       RecipeService recipeService,
+                                       PlatformTransactionManager transactionManager,
+                                       @Value("${checky.inventory.consumption.batch-size:500}") int batchSize,
+                                       @Value("${checky.inventory.consumption.synchronous:false}") boolean synchronous,
+                                       @Value("${checky.inventory.consumption.max-attempts:5}") int maxAttempts,
+                                       @Value("${checky.inventory.consumption.retry-delay:30s}") Duration retryDelay,
+                                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.recipeService = recipeService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = Math.max(1, batchSize);
+        this.synchronous = synchronous;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+        this.consumed = meterRegistry.counter("checky.inventory.consumption.events");
+        this.deadLettered = meterRegistry.counter("checky.inventory.consumption.dead-lettered");
+        
+        Gauge.builder("checky.inventory.consumption.pending", pending, AtomicLong::get)
+                .description("Consumption events waiting to be applied to inventory")
+                .register(meterRegistry);
+        Gauge.builder("checky.inventory.consumption.lag", this, InventoryConsumptionService::lagSeconds)
+                .description("Age of the oldest consumption event not yet applied")
+                .baseUnit("seconds")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * Queues the consumption of the given saved orders. Must run in the transaction that saves them,
+     * so an order and its events are committed together.
+     */
+    public void enqueue(List<Order> orders) {
+        if (synchronous) {
+            Map<Long, Map<Long, Integer>> quantitiesByTenant = new HashMap<>();
+            for (Order order : orders) {
+                Map<Long, Integer> quantities = quantitiesByTenant.computeIfAbsent(order.getTenantId(), tenantId -> new HashMap<>());
+                for (OrderItem orderItem : order.getOrderItems()) {
+                    quantities.merge(orderItem.getMenuItem().getId(), quantityOf(orderItem), Integer::sum);
+                }
+            }
+            apply(quantitiesByTenant);
+            return;
+        }
+        
+        List<Object[]> rows = new ArrayList<>();
+        for (Order order : orders) {
+            Map<Long, Integer> quantitiesByMenuItem = new LinkedHashMap<>();
+            for (OrderItem orderItem : order.getOrderItems()) {
+                quantitiesByMenuItem.merge(orderItem.getMenuItem().getId(), quantityOf(orderItem), Integer::sum);
+            }
+            quantitiesByMenuItem.forEach((menuItemId, quantity) ->
+                    rows.add(new Object[]{order.getTenantId(), order.getId(), menuItemId, quantity}));
+        }
+        if (rows.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.inventory.consumption.poll-interval:1s}")
+    public void drainScheduled() {
+        if (synchronous) {
+            return;
+        }
+        try {
+            drain();
+        } catch (RuntimeException e) {
+            // Failed batches were rolled back; their events stay queued and are retried on a later poll
+            log.error("Failed to apply inventory consumption events: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Applies due events until none are left and returns how many were applied. Events of restaurants
+     * whose batch failed are not due again until their retry time.
+     */
+    public int drain() {
+        int total = 0;
+        try {
+            int drained;
+            do {
+                drained = 0;
+                for (Long tenantId : jdbcTemplate.queryForList(DUE_TENANTS_SQL, Long.class, batchSize)) {
+                    drained += drainTenant(tenantId);
+                }
+                total += drained;
+            } while (drained > 0);
+        } finally {
+            refreshBacklog();
+        }
+        return total;
+    }
+    
+    private int drainTenant(Long tenantId) {
+        int total = 0;
+        List<Long> claimed = new ArrayList<>();
+        try {
+            int drained;
+            do {
+                claimed.clear();
+                drained = transactionTemplate.execute(status -> drainBatch(tenantId, claimed, DRAIN_SQL, tenantId, batchSize));
+                total += drained;
+            } while (drained == batchSize);
+        } catch (RuntimeException e) {
+            if (claimed.size() <= 1) {
+                log.error("Failed to apply inventory consumption events of restaurant {}: {}", tenantId, e.getMessage());
+                recordFailure(claimed, e);
+            } else {
+                log.warn("Failed to apply {} inventory consumption events of restaurant {}, retrying one by one: {}",
+                        claimed.size(), tenantId, e.getMessage());
+                total += drainOneByOne(tenantId, List.copyOf(claimed));
+            }
+        }
+        return total;
+    }
+    
+    // Only the events that also fail on their own are rescheduled
+    private int drainOneByOne(Long tenantId, List<Long> ids) {
+        int total = 0;
+        for (Long id : ids) {
+            List<Long> claimed = new ArrayList<>(1);
+            try {
+                total += transactionTemplate.execute(status -> drainBatch(tenantId, claimed, DRAIN_ONE_SQL, id));
+            } catch (RuntimeException e) {
+                log.error("Failed to apply inventory consumption event {} of restaurant {}: {}", id, tenantId, e.getMessage());
+                recordFailure(claimed, e);
+            }
+        }
+        return total;
+    }
+    
+    private int drainBatch(Long tenantId, List<Long> claimed, String drainSql, Object... args) {
+        Map<Long, Integer> quantitiesByMenuItem = new HashMap<>();
+        jdbcTemplate.query(drainSql, rs -> {
+            claimed.add(rs.getLong("id"));
+            quantitiesByMenuItem.merge(rs.getLong("menu_item_id"), rs.getInt("quantity"), Integer::sum);
+        }, args);
+        if (claimed.isEmpty()) {
+            return 0;
+        }
+        
+        recipeService.trackInventoryForMenuItems(tenantId, quantitiesByMenuItem);
+        consumed.increment(claimed.size());
+        return claimed.size();
+    }
+    
+    // The failed batch was rolled back, so its events are back in the queue to be rescheduled
+    private void recordFailure(List<Long> claimed, RuntimeException failure) {
+        if (claimed.isEmpty()) {
+            return;
+        }
+        Long[] ids = claimed.toArray(new Long[0]);
+        Integer dead = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(RETRY_SQL, String.valueOf(failure), retryDelay.toMillis() / 1000.0, ids);
+            return jdbcTemplate.update(DEAD_LETTER_SQL, ids, maxAttempts);
+        });
+        if (dead != null && dead > 0) {
+            deadLettered.increment(dead);
+            log.error("Moved {} inventory consumption events to the dead letter table after {} attempts", dead, maxAttempts);
+        }
+    }
+    
+    private void apply(Map<Long, Map<Long, Integer>> quantitiesByTenant) {
+        quantitiesByTenant.forEach(recipeService::trackInventoryForMenuItems);
+    }
+    
+    private static int quantityOf(OrderItem orderItem) {
+        return orderItem.getQuantity() != null ? orderItem.getQuantity() : 1;
+    }
+    
+    private void refreshBacklog() {
+        jdbcTemplate.query(BACKLOG_SQL, rs -> {
+            long count = rs.getLong(1);
+            long ageMillis = rs.getLong(2);
+            pending.set(count);
+            oldestPendingAt.set(count == 0 ? 0 : System.currentTimeMillis() - ageMillis);
+        });
+    }
+    
+    private double lagSeconds() {
+        long oldest = oldestPendingAt.get();
+        return oldest == 0 ? 0 : (System.currentTimeMillis() - oldest) / 1000.0;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,30 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.entity.InventoryItem;
+import dev.msundaram.checky.entity.InventoryTransaction;
+
+import java.math.BigDecimal;
+
+/**
+ * Payload of the inventory outbox events; the transaction fields are only set for stock changes.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record InventoryEventPayload(Long inventoryItemId,
+                                    String itemCode,
+                                    Boolean active,
+                                    BigDecimal currentStock,
+                                    String transactionNumber,
+                                    InventoryTransaction.TransactionType transactionType,
+                                    BigDecimal quantity) {
+    
+    static InventoryEventPayload of(InventoryItem item) {
+        return new InventoryEventPayload(item.getId(), item.getItemCode(), item.getIsActive(), item.getCurrentStock(),
+                null, null, null);
+    }
+    
+    static InventoryEventPayload of(InventoryItem item, InventoryTransaction transaction) {
+        return new InventoryEventPayload(item.getId(), item.getItemCode(), item.getIsActive(), item.getCurrentStock(),
+                transaction.getTransactionNumber(), transaction.getTransactionType(), transaction.getQuantity());
+    }
+} 
@@ -1,17 +1,18 @@
 package dev.msundaram.checky.service;
 
+import dev.msundaram.checky.config.PaginationProperties;
 import dev.msundaram.checky.entity.InventoryItem;
 import dev.msundaram.checky.entity.InventoryTransaction;
 import dev.msundaram.checky.repository.InventoryItemRepository;
 import dev.msundaram.checky.repository.InventoryTransactionRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Optional;
 
@@ -23,11 +24,24 @@ public class InventoryService {
     private final InventoryItemRepository inventoryItemRepository;
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final TenantService tenantService;
+    private final DocumentNumberService documentNumberService;
+    private final PaginationProperties paginationProperties;
+    private final OutboxService outboxService;
     
     // Inventory Item Management
-    public List<InventoryItem> getAllInventoryItems() {
+    public CursorPage<InventoryItem> getInventoryItems(String cursor, Integer limit) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return inventoryItemRepository.findByTenantIdAndActive(currentRestaurant);
+        int pageSize = paginationProperties.resolveLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        
+        List<InventoryItem> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = inventoryItemRepository.findPageByTenantIdAndActive(currentRestaurant, fetch);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = inventoryItemRepository.findPageByTenantIdAndActiveAfter(currentRestaurant, after.key(), after.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, item -> new KeysetCursor(item.getName(), item.getId()));
     }
     
     public List<InventoryItem> getInventoryItemsByCategory(InventoryItem.InventoryCategory category) {
@@ -58,11 +72,7 @@ public class InventoryService {
     
     public Optional<InventoryItem> getInventoryItemById(Long itemId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
-        Optional<InventoryItem> itemOpt = inventoryItemRepository.findById(itemId);
-        if (itemOpt.isPresent() && itemOpt.get().getTenantId().equals(currentRestaurant)) {
-            return itemOpt;
-        }
-        return Optional.empty();
+        return inventoryItemRepository.findByIdAndTenantId(itemId, currentRestaurant);
     }
     
     public Optional<InventoryItem> getInventoryItemByCode(String itemCode) {
@@ -81,6 +91,7 @@ public class InventoryService {
         }
         
         InventoryItem savedItem = inventoryItemRepository.save(itemRequest);
+        outboxService.record(savedItem.getTenantId(), OutboxEventType.INVENTORY_ITEM_CREATED, savedItem.getId(), InventoryEventPayload.of(savedItem));
         log.info("Created inventory item {} for restaurant {}", savedItem.getItemCode(), tenantService.getCurrentRestaurant());
         return savedItem;
     }
@@ -89,8 +100,8 @@ public class InventoryService {
     public InventoryItem updateInventoryItem(Long itemId, InventoryItem itemRequest) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<InventoryItem> existingItemOpt = inventoryItemRepository.findById(itemId);
-        if (existingItemOpt.isEmpty() || !existingItemOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<InventoryItem> existingItemOpt = inventoryItemRepository.findByIdAndTenantId(itemId, currentRestaurant);
+        if (existingItemOpt.isEmpty()) {
             throw new RuntimeException("Inventory item not found");
         }
         
@@ -114,6 +125,7 @@ public class InventoryService {
         existingItem.setNotes(itemRequest.getNotes());
         
         InventoryItem updatedItem = inventoryItemRepository.save(existingItem);
+        outboxService.record(currentRestaurant, OutboxEventType.INVENTORY_ITEM_UPDATED, itemId, InventoryEventPayload.of(updatedItem));
         log.info("Updated inventory item {} for restaurant {}", updatedItem.getItemCode(), currentRestaurant);
         return updatedItem;
     }
@@ -122,22 +134,33 @@ public class InventoryService {
     public void deleteInventoryItem(Long itemId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<InventoryItem> itemOpt = inventoryItemRepository.findById(itemId);
-        if (itemOpt.isEmpty() || !itemOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<InventoryItem> itemOpt = inventoryItemRepository.findByIdAndTenantId(itemId, currentRestaurant);
+        if (itemOpt.isEmpty()) {
             throw new RuntimeException("Inventory item not found");
         }
         
         InventoryItem item = itemOpt.get();
         item.setIsActive(false);
         inventoryItemRepository.save(item);
+        outboxService.record(currentRestaurant, OutboxEventType.INVENTORY_ITEM_DEACTIVATED, itemId, InventoryEventPayload.of(item));
         
         log.info("Deactivated inventory item {} for restaurant {}", item.getItemCode(), currentRestaurant);
     }
     
     // Inventory Transaction Management
-    public List<InventoryTransaction> getAllTransactions() {
+    public CursorPage<InventoryTransaction> getTransactions(String cursor, Integer limit) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return inventoryTransactionRepository.findByTenantId(currentRestaurant);
+        int pageSize = paginationProperties.resolveLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        
+        List<InventoryTransaction> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = inventoryTransactionRepository.findPageByTenantId(currentRestaurant, fetch);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = inventoryTransactionRepository.findPageByTenantIdBefore(currentRestaurant, after.timestampKey(), after.id(), fetch);
+        }
+        return CursorPage.of(rows, pageSize, transaction -> KeysetCursor.of(transaction.getTransactionDate(), transaction.getId()));
     }
     
     public List<InventoryTransaction> getTransactionsByItem(Long itemId) {
@@ -194,8 +217,8 @@ public class InventoryService {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
         // Get inventory item
-        Optional<InventoryItem> itemOpt = inventoryItemRepository.findById(itemId);
-        if (itemOpt.isEmpty() || !itemOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<InventoryItem> itemOpt = inventoryItemRepository.findByIdAndTenantId(itemId, currentRestaurant);
+        if (itemOpt.isEmpty()) {
             throw new RuntimeException("Inventory item not found");
         }
         
@@ -225,7 +248,7 @@ public class InventoryService {
         // Create transaction
         InventoryTransaction transaction = new InventoryTransaction();
         transaction.setTenantId(currentRestaurant);
-        transaction.setTransactionNumber(generateTransactionNumber());
+        transaction.setTransactionNumber(documentNumberService.next(DocumentType.INVENTORY_TRANSACTION, currentRestaurant));
         transaction.setInventoryItemId(itemId);
         transaction.setTransactionType(type);
         transaction.setQuantity(quantity);
@@ -251,17 +274,12 @@ public class InventoryService {
             item.setLastRestockedDate(LocalDateTime.now());
         }
         inventoryItemRepository.save(item);
+        outboxService.record(currentRestaurant, OutboxEventType.INVENTORY_STOCK_CHANGED, itemId, InventoryEventPayload.of(item, savedTransaction));
         
         log.info("Created {} transaction for item {}: {} -> {}", type, item.getItemCode(), previousStock, newStock);
         return savedTransaction;
     }
     
-    private String generateTransactionNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return String.format("INV-%d-%s", currentRestaurant, timestamp);
-    }
-    
     // Utility Methods
     public InventoryItem.InventoryCategory[] getInventoryCategories() {
         return InventoryItem.InventoryCategory.values();
@@ -0,0 +1,384 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+/**
+ * Kitchen board of each restaurant, kept in memory: the items of its open orders that are still
+ * PENDING or PREPARING, ordered by priority and then promised time. Screens read the board without
+ * touching the database; starting, bumping, completing and recalling an item are O(log n) on the
+ * board, and the item's status and priority are written to order_items in the background.
+ * <p>
+ * A board is loaded on first use and reloaded once it is older than {@code checky.kitchen.board-ttl}.
+ * In between, orders created, served or cancelled on any instance reach it as {@link OrderFeedEvent}s
+ * from the order feed listener and are applied when the board is next read. Item changes made on
+ * other instances show up with the next reload.
+ */
+@Service
+@Slf4j
+public class KitchenQueueService {
+    
+    private static final String TICKET_SQL = """
+            SELECT oi.id, oi.order_id, o.order_number, o.order_type, o.table_number, oi.menu_item_id, m.name,
+                   oi.quantity, oi.notes, oi.item_status, oi.kitchen_priority, o.created_at, m.preparation_time_minutes
+            FROM orders o
+            JOIN order_items oi ON oi.order_id = o.id AND oi.tenant_id = o.tenant_id
+            JOIN menu_items m ON m.id = oi.menu_item_id
+            WHERE o.tenant_id = ? AND o.created_at >= ?
+              AND o.order_status IN ('PENDING', 'CONFIRMED', 'PREPARING', 'READY')""";
+    
+    private static final String BOARD_SQL = TICKET_SQL;
+    private static final String ORDERS_SQL = TICKET_SQL + " AND o.id = ANY(?)";
+    private static final String ITEM_SQL = TICKET_SQL + " AND oi.id = ?";
+    
+    private static final String FLUSH_SQL =
+            "UPDATE order_items SET item_status = ?, kitchen_priority = ?, updated_at = localtimestamp WHERE id = ? AND tenant_id = ?";
+    
+    private static final Set<Order.OrderStatus> FINISHED = Set.of(Order.OrderStatus.SERVED, Order.OrderStatus.CANCELLED);
+    
+    private static final RowMapper<KitchenTicket> TICKET_MAPPER = (rs, rowNum) -> {
+        String itemStatus = rs.getString("item_status");
+        String orderType = rs.getString("order_type");
+        LocalDateTime orderedAt = rs.getTimestamp("created_at").toLocalDateTime();
+        int preparationMinutes = rs.getInt("preparation_time_minutes");
+        return new KitchenTicket(rs.getLong("id"), rs.getLong("order_id"), rs.getString("order_number"),
+                orderType != null ? Order.OrderType.valueOf(orderType) : null, rs.getString("table_number"),
+                rs.getLong("menu_item_id"), rs.getString("name"), rs.getInt("quantity"), rs.getString("notes"),
+                itemStatus != null ? OrderItem.ItemStatus.valueOf(itemStatus) : OrderItem.ItemStatus.PENDING,
+                rs.getInt("kitchen_priority"), orderedAt, orderedAt.plusMinutes(preparationMinutes));
+    };
+    
+    // Status and priority of an item not yet written to order_items
+    private record PendingWrite(Long tenantId, OrderItem.ItemStatus status, int priority) {
+    }
+    
+    // One restaurant's board; changes and reloads synchronize on it, reads use the last snapshot
+    private final class Board {
+        
+        private final Long tenantId;
+        private final TreeSet<KitchenTicket> queue = new TreeSet<>(KitchenTicket.BOARD_ORDER);
+        private final Map<Long, KitchenTicket> tickets = new HashMap<>();
+        // Orders created or finished since the board was last read, recorded without taking its lock
+        private final Set<Long> createdOrders = ConcurrentHashMap.newKeySet();
+        private final Set<Long> finishedOrders = ConcurrentHashMap.newKeySet();
+        private volatile List<KitchenTicket> snapshot;
+        private volatile long loadedAt;
+        private volatile boolean loaded;
+        private volatile boolean reloading;
+        
+        Board(Long tenantId) {
+            this.tenantId = tenantId;
+        }
+        
+        boolean isFresh() {
+            return loaded && System.nanoTime() - loadedAt < boardTtl.toNanos();
+        }
+        
+        // Order events are recorded during a reload too: its query may have started before they committed
+        boolean followsOrders() {
+            return reloading || isFresh();
+        }
+        
+        synchronized void reloadIfStale() {
+            if (isFresh()) {
+                return;
+            }
+            reloading = true;
+            try {
+                createdOrders.clear();
+                finishedOrders.clear();
+                queue.clear();
+                tickets.clear();
+                for (KitchenTicket ticket : findTickets(BOARD_SQL, tenantId, since())) {
+                    tickets.put(ticket.itemId(), ticket);
+                    queue.add(ticket);
+                }
+                snapshot = null;
+                loadedAt = System.nanoTime();
+                loaded = true;
+                loads.increment();
+            } finally {
+                reloading = false;
+            }
+        }
+        
+        void invalidate() {
+            loaded = false;
+        }
+        
+        boolean hasOrderChanges() {
+            return !createdOrders.isEmpty() || !finishedOrders.isEmpty();
+        }
+        
+        // The items of all new orders come from one query; an order finished meanwhile is removed after
+        synchronized void applyOrderChanges() {
+            if (!createdOrders.isEmpty()) {
+                Set<Long> created = Set.copyOf(createdOrders);
+                for (KitchenTicket ticket : findTickets(ORDERS_SQL, tenantId, since(), created.toArray(new Long[0]))) {
+                    add(ticket, false);
+                }
+                createdOrders.removeAll(created);
+            }
+            if (!finishedOrders.isEmpty()) {
+                Set<Long> finished = Set.copyOf(finishedOrders);
+                removeOrders(finished);
+                finishedOrders.removeAll(finished);
+            }
+        }
+        
+        List<KitchenTicket> snapshot() {
+            List<KitchenTicket> current = snapshot;
+            if (current == null) {
+                synchronized (this) {
+                    current = snapshot;
+                    if (current == null) {
+                        current = List.copyOf(queue);
+                        snapshot = current;
+                    }
+                }
+            }
+            return current;
+        }
+        
+        synchronized KitchenTicket get(Long itemId) {
+            return tickets.get(itemId);
+        }
+        
+        synchronized Optional<KitchenTicket> update(Long itemId, UnaryOperator<KitchenTicket> change) {
+            KitchenTicket ticket = tickets.get(itemId);
+            if (ticket == null) {
+                return Optional.empty();
+            }
+            KitchenTicket changed = change.apply(ticket);
+            queue.remove(ticket);
+            if (isOnBoard(changed)) {
+                tickets.put(itemId, changed);
+                queue.add(changed);
+            } else {
+                tickets.remove(itemId);
+            }
+            snapshot = null;
+            pendingWrites.put(itemId, new PendingWrite(tenantId, changed.status(), changed.priority()));
+            return Optional.of(changed);
+        }
+        
+        synchronized KitchenTicket add(KitchenTicket ticket, boolean write) {
+            KitchenTicket current = tickets.get(ticket.itemId());
+            if (current != null) {
+                return current;
+            }
+            tickets.put(ticket.itemId(), ticket);
+            queue.add(ticket);
+            snapshot = null;
+            if (write) {
+                pendingWrites.put(ticket.itemId(), new PendingWrite(tenantId, ticket.status(), ticket.priority()));
+            }
+            return ticket;
+        }
+        
+        synchronized void removeOrders(Set<Long> orderIds) {
+            if (queue.removeIf(ticket -> orderIds.contains(ticket.orderId()))) {
+                tickets.values().removeIf(ticket -> orderIds.contains(ticket.orderId()));
+                snapshot = null;
+            }
+        }
+    }
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantService tenantService;
+    private final Duration boardTtl;
+    private final Duration lookback;
+    private final ConcurrentMap<Long, Board> boards = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Long, PendingWrite> pendingWrites = new ConcurrentHashMap<>();
+    private final Counter loads;
+    
+    public KitchenQueueService(JdbcTemplate jdbcTemplate,
+                               TenantService tenantService,
+                               @Value("${checky.kitchen.board-ttl:1m}") Duration boardTtl,
+                               @Value("${checky.kitchen.lookback:24h}") Duration lookback,
+                               MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantService = tenantService;
+        this.boardTtl = boardTtl;
+        this.lookback = lookback;
+        this.loads = meterRegistry.counter("checky.kitchen.board.loads");
+        
+        Gauge.builder("checky.kitchen.pending-writes", pendingWrites, Map::size)
+                .description("Kitchen item changes not yet written to order_items")
+                .register(meterRegistry);
+    }
+    
+    /**
+     * The current restaurant's board, next item to cook first.
+     */
+    public List<KitchenTicket> getBoard() {
+        return board(tenantService.getCurrentRestaurant()).snapshot();
+    }
+    
+    /**
+     * Marks a queued item as being prepared.
+     */
+    public Optional<KitchenTicket> start(Long itemId) {
+        return board(tenantService.getCurrentRestaurant())
+                .update(itemId, ticket -> ticket.withStatus(OrderItem.ItemStatus.PREPARING));
+    }
+    
+    /**
+     * Moves an item ahead of every item of lower priority, whatever their promised times.
+     */
+    public Optional<KitchenTicket> bump(Long itemId) {
+        return board(tenantService.getCurrentRestaurant())
+                .update(itemId, ticket -> ticket.withPriority(ticket.priority() + 1));
+    }
+    
+    /**
+     * Marks an item READY, taking it off the board.
+     */
+    public Optional<KitchenTicket> complete(Long itemId) {
+        return board(tenantService.getCurrentRestaurant())
+                .update(itemId, ticket -> ticket.withStatus(OrderItem.ItemStatus.READY));
+    }
+    
+    /**
+     * Puts an item that was completed back on the board as PENDING, keeping its priority.
+     * Items of served or cancelled orders cannot be recalled.
+     */
+    public Optional<KitchenTicket> recall(Long itemId) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        Board board = board(currentRestaurant);
+        KitchenTicket queued = board.get(itemId);
+        if (queued != null) {
+            return Optional.of(queued);
+        }
+        
+        Map<Long, PendingWrite> writes = new HashMap<>(pendingWrites);
+        List<KitchenTicket> found = jdbcTemplate.query(ITEM_SQL, TICKET_MAPPER, currentRestaurant, since(), itemId);
+        if (found.isEmpty()) {
+            return Optional.empty();
+        }
+        KitchenTicket ticket = withPendingWrite(found.get(0), writes);
+        if (ticket.status() == OrderItem.ItemStatus.CANCELLED) {
+            return Optional.empty();
+        }
+        return Optional.of(board.add(ticket.withStatus(OrderItem.ItemStatus.PENDING), true));
+    }
+    
+    /**
+     * Records an order created, served or cancelled on any instance on its restaurant's board, if loaded.
+     */
+    @EventListener
+    public void onOrderFeedEvent(OrderFeedEvent event) {
+        Board board = boards.get(event.tenantId());
+        if (board == null || !board.followsOrders()) {
+            // Loaded from the database on its next use
+            return;
+        }
+        if (event.created()) {
+            board.createdOrders.add(event.orderId());
+        } else if (FINISHED.contains(event.orderStatus())) {
+            board.finishedOrders.add(event.orderId());
+        }
+    }
+    
+    /**
+     * Order events were lost while the feed listener reconnected: every board is reloaded on its next use.
+     */
+    @EventListener
+    public void onOrderFeedMissed(OrderFeedEvent.Missed missed) {
+        boards.values().forEach(Board::invalidate);
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.kitchen.flush-interval:1s}")
+    public void flushScheduled() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            // Unwritten changes stay pending and are retried on the next flush
+            log.error("Failed to write kitchen item changes: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Writes pending item changes to order_items and returns how many were written.
+     */
+    public int flush() {
+        if (pendingWrites.isEmpty()) {
+            return 0;
+        }
+        Map<Long, PendingWrite> writes = new HashMap<>(pendingWrites);
+        List<Object[]> rows = new ArrayList<>(writes.size());
+        writes.forEach((itemId, write) -> rows.add(new Object[]{write.status().name(), write.priority(), itemId, write.tenantId()}));
+        jdbcTemplate.batchUpdate(FLUSH_SQL, rows);
+        // An item changed again meanwhile keeps its newer write
+        writes.forEach(pendingWrites::remove);
+        return writes.size();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        flushScheduled();
+    }
+    
+    private Board board(Long tenantId) {
+        Board board = boards.computeIfAbsent(tenantId, Board::new);
+        if (!board.isFresh()) {
+            board.reloadIfStale();
+        } else if (board.hasOrderChanges()) {
+            board.applyOrderChanges();
+        }
+        return board;
+    }
+    
+    // Tickets still to be cooked, with the changes not yet written applied
+    private List<KitchenTicket> findTickets(String sql, Object... args) {
+        // Taken first: a flush finishing during the query may drop writes the query did not see
+        Map<Long, PendingWrite> writes = new HashMap<>(pendingWrites);
+        List<KitchenTicket> tickets = new ArrayList<>();
+        for (KitchenTicket ticket : jdbcTemplate.query(sql, TICKET_MAPPER, args)) {
+            ticket = withPendingWrite(ticket, writes);
+            if (isOnBoard(ticket)) {
+                tickets.add(ticket);
+            }
+        }
+        return tickets;
+    }
+    
+    private static KitchenTicket withPendingWrite(KitchenTicket ticket, Map<Long, PendingWrite> writes) {
+        PendingWrite write = writes.get(ticket.itemId());
+        return write == null ? ticket : ticket.withStatus(write.status()).withPriority(write.priority());
+    }
+    
+    private static boolean isOnBoard(KitchenTicket ticket) {
+        return ticket.status() == OrderItem.ItemStatus.PENDING || ticket.status() == OrderItem.ItemStatus.PREPARING;
+    }
+    
+    // Open orders older than this are left off the board, which keeps the load on recent partitions
+    private Timestamp since() {
+        return Timestamp.valueOf(LocalDateTime.now().minus(lookback));
+    }
+} 
\ No newline at end of file
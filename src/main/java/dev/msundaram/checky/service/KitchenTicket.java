@@ -0,0 +1,44 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+
+/**
+ * Order item as shown on the kitchen board. Tickets are immutable; a change replaces the ticket.
+ * The promised time is when the order was placed plus the menu item's preparation time.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record KitchenTicket(Long itemId,
+                            Long orderId,
+                            String orderNumber,
+                            Order.OrderType orderType,
+                            String tableNumber,
+                            Long menuItemId,
+                            String menuItemName,
+                            Integer quantity,
+                            String notes,
+                            OrderItem.ItemStatus status,
+                            int priority,
+                            LocalDateTime orderedAt,
+                            LocalDateTime promisedAt) {
+    
+    // Highest priority first, then the earliest promise; the item id keeps the order total
+    static final Comparator<KitchenTicket> BOARD_ORDER = Comparator
+            .comparingInt(KitchenTicket::priority).reversed()
+            .thenComparing(KitchenTicket::promisedAt)
+            .thenComparing(KitchenTicket::itemId);
+    
+    KitchenTicket withStatus(OrderItem.ItemStatus newStatus) {
+        return new KitchenTicket(itemId, orderId, orderNumber, orderType, tableNumber, menuItemId, menuItemName,
+                quantity, notes, newStatus, priority, orderedAt, promisedAt);
+    }
+    
+    KitchenTicket withPriority(int newPriority) {
+        return new KitchenTicket(itemId, orderId, orderNumber, orderType, tableNumber, menuItemId, menuItemName,
+                quantity, notes, status, newPriority, orderedAt, promisedAt);
+    }
+} 
\ No newline at end of file
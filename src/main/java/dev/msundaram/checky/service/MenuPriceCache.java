@@ -0,0 +1,88 @@
+package dev.msundaram.checky.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.msundaram.checky.repository.MenuItemRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Menu prices per restaurant, in minor units, for server-side order pricing. Each restaurant's
+ * table is loaded with one query and invalidated by {@code MenuItemPriceListener} whenever a menu
+ * item changes. The TTL is only a safety net.
+ */
+@Component
+public class MenuPriceCache {
+    
+    public static final long NOT_FOUND = -1;
+    
+    /**
+     * Immutable price table: menu item ids in ascending order with their prices at the same index.
+     */
+    public static final class PriceTable {
+        
+        private final long[] menuItemIds;
+        private final long[] prices;
+        
+        PriceTable(long[] menuItemIds, long[] prices) {
+            this.menuItemIds = menuItemIds;
+            this.prices = prices;
+        }
+        
+        public long priceOf(long menuItemId) {
+            int index = Arrays.binarySearch(menuItemIds, menuItemId);
+            return index >= 0 ? prices[index] : NOT_FOUND;
+        }
+        
+        public int size() {
+            return menuItemIds.length;
+        }
+    }
+    
+    private final MenuItemRepository menuItemRepository;
+    private final Cache<Long, PriceTable> tables;
+    
+    public MenuPriceCache(MenuItemRepository menuItemRepository,
+                          @Value("${checky.menu-prices.cache.maximum-size:10000}") long maximumSize,
+                          @Value("${checky.menu-prices.cache.ttl:1h}") Duration ttl,
+                          MeterRegistry meterRegistry) {
+        this.menuItemRepository = menuItemRepository;
+        this.tables = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, tables, "menuPrices");
+    }
+    
+    public PriceTable get(Long restaurantId) {
+        return tables.get(restaurantId, this::load);
+    }
+    
+    public void invalidate(Long restaurantId) {
+        tables.invalidate(restaurantId);
+    }
+    
+    private PriceTable load(Long restaurantId) {
+        List<Object[]> rows = new ArrayList<>(menuItemRepository.findPricesByTenantId(restaurantId));
+        rows.sort(Comparator.comparingLong(row -> (Long) row[0]));
+        
+        long[] menuItemIds = new long[rows.size()];
+        long[] prices = new long[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            menuItemIds[i] = (Long) rows.get(i)[0];
+            prices[i] = PricingEngine.toMinorUnits((BigDecimal) rows.get(i)[1]);
+        }
+        return new PriceTable(menuItemIds, prices);
+    }
+} 
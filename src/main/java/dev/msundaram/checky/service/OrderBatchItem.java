@@ -0,0 +1,10 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+
+/**
+ * One queued order replayed by a terminal, identified by a key the terminal generated when the
+ * order was first taken.
+ */
+public record OrderBatchItem(String idempotencyKey, Order order) {
+} 
@@ -0,0 +1,23 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderBatchResult(String idempotencyKey, Status status, Long orderId, String orderNumber, String error) {
+    
+    public enum Status {
+        CREATED, DUPLICATE, FAILED
+    }
+    
+    static OrderBatchResult created(String idempotencyKey, Long orderId, String orderNumber) {
+        return new OrderBatchResult(idempotencyKey, Status.CREATED, orderId, orderNumber, null);
+    }
+    
+    static OrderBatchResult duplicate(String idempotencyKey, Long orderId, String orderNumber) {
+        return new OrderBatchResult(idempotencyKey, Status.DUPLICATE, orderId, orderNumber, null);
+    }
+    
+    static OrderBatchResult failed(String idempotencyKey, String error) {
+        return new OrderBatchResult(idempotencyKey, Status.FAILED, null, null, error);
+    }
+} 
@@ -0,0 +1,264 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Ingests orders queued by terminals while offline. Settings are looked up once per batch and orders
+ * are written in chunks of one transaction each (falling back to one transaction per order when a
+ * chunk fails). Each chunk queues its inventory consumption with its orders.
+ */
+@Service
+@Slf4j
+public class OrderBatchService {
+    
+    private static final int MAX_KEY_LENGTH = 255;
+    
+    private static final String INSERT_KEY_SQL =
+            "INSERT INTO order_idempotency_keys (tenant_id, idempotency_key, order_id, order_number) VALUES (?, ?, ?, ?)";
+    
+    private static final String FIND_KEYS_SQL = """
+            SELECT idempotency_key, order_id, order_number FROM order_idempotency_keys
+            WHERE tenant_id = :tenantId AND idempotency_key IN (:keys)""";
+    
+    private final OrderService orderService;
+    private final InventoryConsumptionService inventoryConsumptionService;
+    private final OutboxService outboxService;
+    private final RestaurantSettingsCache restaurantSettingsCache;
+    private final DocumentNumberService documentNumberService;
+    private final TenantService tenantService;
+    private final JdbcTemplate jdbcTemplate;
+    private final NamedParameterJdbcTemplate namedParameterJdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final EntityManager entityManager;
+    private final int maxOrders;
+    private final int chunkSize;
+    private final Duration keyRetention;
+    
+    public OrderBatchService(OrderService orderService,
+                             InventoryConsumptionService inventoryConsumptionService,
+                             OutboxService outboxService,
+                             RestaurantSettingsCache restaurantSettingsCache,
+                             DocumentNumberService documentNumberService,
+                             TenantService tenantService,
+                             JdbcTemplate jdbcTemplate,
+                             NamedParameterJdbcTemplate namedParameterJdbcTemplate,
+                             PlatformTransactionManager transactionManager,
+                             EntityManager entityManager,
+                             @Value("${checky.orders.batch.max-orders:500}") int maxOrders,
+                             @Value("${checky.orders.batch.chunk-size:50}") int chunkSize,
+                             @Value("${checky.orders.batch.key-retention:7d}") Duration keyRetention) {
+        this.orderService = orderService;
+        this.inventoryConsumptionService = inventoryConsumptionService;
+        this.outboxService = outboxService;
+        this.restaurantSettingsCache = restaurantSettingsCache;
+        this.documentNumberService = documentNumberService;
+        this.tenantService = tenantService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.namedParameterJdbcTemplate = namedParameterJdbcTemplate;
+        // Chunks commit on their own, and Idempotency-Key batch requests run outside the request
+        // transaction (see IdempotencyKeyFilter); the order idempotency keys make re-running them safe
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.entityManager = entityManager;
+        this.maxOrders = maxOrders;
+        this.chunkSize = Math.max(1, chunkSize);
+        this.keyRetention = keyRetention;
+    }
+    
+    public int getMaxOrders() {
+        return maxOrders;
+    }
+    
+    /**
+     * Returns one result per item, in request order.
+     */
+    public List<OrderBatchResult> createOrders(List<OrderBatchItem> items) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        Optional<RestaurantSettings> settings = restaurantSettingsCache.get(currentRestaurant);
+        
+        OrderBatchResult[] results = new OrderBatchResult[items.size()];
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < items.size(); i++) {
+            OrderBatchItem item = items.get(i);
+            String error = validate(item);
+            if (error != null) {
+                results[i] = OrderBatchResult.failed(item != null ? item.idempotencyKey() : null, error);
+            } else if (firstIndexByKey.putIfAbsent(item.idempotencyKey(), i) == null) {
+                pending.add(i);
+            }
+        }
+        
+        // Keys already ingested by an earlier replay
+        Map<String, OrderBatchResult> existing = findExisting(currentRestaurant, firstIndexByKey.keySet());
+        pending.removeIf(i -> {
+            OrderBatchResult duplicate = existing.get(items.get(i).idempotencyKey());
+            results[i] = duplicate;
+            return duplicate != null;
+        });
+        
+        // Orders are priced from the menu before any of them takes an order number
+        pending.removeIf(i -> {
+            try {
+                price(items.get(i).order(), currentRestaurant, settings);
+                return false;
+            } catch (IllegalArgumentException e) {
+                results[i] = OrderBatchResult.failed(items.get(i).idempotencyKey(), e.getMessage());
+                return true;
+            }
+        });
+        
+        for (int from = 0; from < pending.size(); from += chunkSize) {
+            List<Integer> chunk = pending.subList(from, Math.min(from + chunkSize, pending.size()));
+            List<String> keys = new ArrayList<>(chunk.size());
+            List<Order> orders = new ArrayList<>(chunk.size());
+            for (Integer i : chunk) {
+                keys.add(items.get(i).idempotencyKey());
+                Order order = items.get(i).order();
+                order.setOrderNumber(documentNumberService.next(DocumentType.ORDER, currentRestaurant));
+                orders.add(order);
+            }
+            
+            try {
+                transactionTemplate.executeWithoutResult(status -> persist(currentRestaurant, keys, orders));
+                for (int k = 0; k < chunk.size(); k++) {
+                    results[chunk.get(k)] = OrderBatchResult.created(keys.get(k), orders.get(k).getId(), orders.get(k).getOrderNumber());
+                }
+            } catch (RuntimeException e) {
+                log.warn("Batch chunk of {} orders failed for restaurant {}, retrying one by one: {}",
+                        chunk.size(), currentRestaurant, e.getMessage());
+                for (int k = 0; k < chunk.size(); k++) {
+                    results[chunk.get(k)] = persistOne(currentRestaurant, keys.get(k), orders.get(k));
+                }
+            }
+        }
+        
+        // Repeated keys within the request share the outcome of their first occurrence
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] == null) {
+                String key = items.get(i).idempotencyKey();
+                OrderBatchResult first = results[firstIndexByKey.get(key)];
+                results[i] = first.status() == OrderBatchResult.Status.FAILED
+                        ? OrderBatchResult.failed(key, first.error())
+                        : OrderBatchResult.duplicate(key, first.orderId(), first.orderNumber());
+            }
+        }
+        
+        log.info("Ingested batch of {} orders for restaurant {}", items.size(), currentRestaurant);
+        return Arrays.asList(results);
+    }
+    
+    @Scheduled(cron = "${checky.orders.batch.key-purge-cron:0 30 3 * * *}")
+    public void purgeExpiredKeys() {
+        int purged = jdbcTemplate.update("DELETE FROM order_idempotency_keys WHERE created_at < ?",
+                Timestamp.valueOf(LocalDateTime.now().minus(keyRetention)));
+        if (purged > 0) {
+            log.info("Purged {} order idempotency keys older than {}", purged, keyRetention);
+        }
+    }
+    
+    private String validate(OrderBatchItem item) {
+        if (item == null || item.order() == null) {
+            return "order is required";
+        }
+        String key = item.idempotencyKey();
+        if (key == null || key.isBlank()) {
+            return "idempotencyKey is required";
+        }
+        if (key.length() > MAX_KEY_LENGTH) {
+            return "idempotencyKey must be at most " + MAX_KEY_LENGTH + " characters";
+        }
+        if (item.order().getOrderItems() != null) {
+            for (OrderItem orderItem : item.order().getOrderItems()) {
+                if (orderItem == null || orderItem.getMenuItem() == null || orderItem.getMenuItem().getId() == null) {
+                    return "every order item needs a menu item";
+                }
+            }
+        }
+        return null;
+    }
+    
+    private void price(Order order, Long restaurantId, Optional<RestaurantSettings> settings) {
+        OrderService.resetToNew(order);
+        order.setTenantId(restaurantId);
+        if (order.getOrderItems() == null) {
+            order.setOrderItems(new ArrayList<>());
+        }
+        for (OrderItem orderItem : order.getOrderItems()) {
+            orderItem.setTenantId(restaurantId);
+            orderItem.setOrder(order);
+        }
+        orderService.calculateOrderTotals(order, settings);
+    }
+    
+    private void persist(Long restaurantId, List<String> keys, List<Order> orders) {
+        // Ids come from the pooled sequences, so they are known before the batched inserts run. Persisting
+        // rather than saving keeps the orders themselves managed; a merge would put the ids on copies
+        orders.forEach(entityManager::persist);
+        
+        List<Object[]> keyRows = new ArrayList<>(orders.size());
+        List<OutboxService.Entry> events = new ArrayList<>(orders.size());
+        for (int k = 0; k < orders.size(); k++) {
+            Order order = orders.get(k);
+            keyRows.add(new Object[]{restaurantId, keys.get(k), order.getId(), order.getOrderNumber()});
+            events.add(new OutboxService.Entry(restaurantId, OutboxEventType.ORDER_CREATED, order.getId(), OrderEventPayload.of(order)));
+        }
+        jdbcTemplate.batchUpdate(INSERT_KEY_SQL, keyRows);
+        inventoryConsumptionService.enqueue(orders);
+        outboxService.record(events);
+        
+        entityManager.flush();
+        entityManager.clear();
+    }
+    
+    private OrderBatchResult persistOne(Long restaurantId, String key, Order order) {
+        // The ids and version assigned during the rolled back chunk are discarded
+        OrderService.resetToNew(order);
+        try {
+            transactionTemplate.executeWithoutResult(status -> persist(restaurantId, List.of(key), List.of(order)));
+            return OrderBatchResult.created(key, order.getId(), order.getOrderNumber());
+        } catch (DuplicateKeyException e) {
+            // Ingested concurrently by another request
+            OrderBatchResult duplicate = findExisting(restaurantId, List.of(key)).get(key);
+            return duplicate != null ? duplicate : OrderBatchResult.failed(key, "idempotencyKey is already in use");
+        } catch (RuntimeException e) {
+            log.warn("Failed to create batch order {} for restaurant {}: {}", key, restaurantId, e.getMessage());
+            return OrderBatchResult.failed(key, "order could not be saved");
+        }
+    }
+    
+    private Map<String, OrderBatchResult> findExisting(Long restaurantId, Collection<String> keys) {
+        Map<String, OrderBatchResult> existing = new HashMap<>();
+        if (keys.isEmpty()) {
+            return existing;
+        }
+        namedParameterJdbcTemplate.query(FIND_KEYS_SQL, Map.of("tenantId", restaurantId, "keys", keys), rs -> {
+            String key = rs.getString("idempotency_key");
+            existing.put(key, OrderBatchResult.duplicate(key, rs.getLong("order_id"), rs.getString("order_number")));
+        });
+        return existing;
+    }
+} 
\ No newline at end of file
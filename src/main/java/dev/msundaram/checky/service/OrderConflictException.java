@@ -0,0 +1,12 @@
+package dev.msundaram.checky.service;
+
+/**
+ * Thrown when an order cannot make a status transition: its current status does not allow it, or
+ * it no longer has the version the client expected.
+ */
+public class OrderConflictException extends RuntimeException {
+    
+    public OrderConflictException(String message) {
+        super(message);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,20 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+
+import java.math.BigDecimal;
+
+/**
+ * Payload of the order outbox events.
+ */
+public record OrderEventPayload(Long orderId,
+                                String orderNumber,
+                                Order.OrderStatus orderStatus,
+                                Order.PaymentStatus paymentStatus,
+                                BigDecimal totalAmount) {
+    
+    static OrderEventPayload of(Order order) {
+        return new OrderEventPayload(order.getId(), order.getOrderNumber(), order.getOrderStatus(),
+                order.getPaymentStatus(), order.getTotalAmount());
+    }
+} 
@@ -0,0 +1,59 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * One line of the order export. Items reference their menu item by id only, so writing a line
+ * never loads anything beyond the order and its items. {@code cursor} resumes the export after
+ * this order.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderExportLine(String cursor,
+                              Long id,
+                              String orderNumber,
+                              Order.OrderType orderType,
+                              Order.OrderStatus orderStatus,
+                              String tableNumber,
+                              String customerName,
+                              String customerPhone,
+                              BigDecimal subtotal,
+                              BigDecimal taxAmount,
+                              BigDecimal serviceCharge,
+                              BigDecimal discountAmount,
+                              BigDecimal totalAmount,
+                              String paymentMethod,
+                              Order.PaymentStatus paymentStatus,
+                              String notes,
+                              LocalDateTime createdAt,
+                              LocalDateTime updatedAt,
+                              List<Item> items) {
+    
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Item(Long id,
+                       Long menuItemId,
+                       Integer quantity,
+                       BigDecimal unitPrice,
+                       BigDecimal totalPrice,
+                       String notes,
+                       OrderItem.ItemStatus itemStatus) {
+    }
+    
+    static OrderExportLine of(Order order, List<OrderItem> orderItems) {
+        List<Item> items = orderItems.stream()
+                .map(orderItem -> new Item(orderItem.getId(), orderItem.getMenuItem().getId(), orderItem.getQuantity(),
+                        orderItem.getUnitPrice(), orderItem.getTotalPrice(), orderItem.getNotes(), orderItem.getItemStatus()))
+                .toList();
+        return new OrderExportLine(KeysetCursor.of(order.getCreatedAt(), order.getId()).encode(),
+                order.getId(), order.getOrderNumber(), order.getOrderType(), order.getOrderStatus(),
+                order.getTableNumber(), order.getCustomerName(), order.getCustomerPhone(),
+                order.getSubtotal(), order.getTaxAmount(), order.getServiceCharge(), order.getDiscountAmount(),
+                order.getTotalAmount(), order.getPaymentMethod(), order.getPaymentStatus(), order.getNotes(),
+                order.getCreatedAt(), order.getUpdatedAt(), items);
+    }
+} 
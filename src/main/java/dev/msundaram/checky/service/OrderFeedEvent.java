@@ -0,0 +1,17 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+
+/**
+ * An order event as the order feed listener received it, published to the application context of
+ * every instance. {@link Missed} is published when the listener reconnects: events sent while it was
+ * disconnected are lost.
+ */
+public record OrderFeedEvent(Long tenantId,
+                             Long orderId,
+                             boolean created,
+                             Order.OrderStatus orderStatus) {
+    
+    public record Missed() {
+    }
+} 
\ No newline at end of file
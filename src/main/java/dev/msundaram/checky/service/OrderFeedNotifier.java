@@ -0,0 +1,70 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import dev.msundaram.checky.entity.Order;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Forwards order events from the outbox to the kitchen feed of every instance through PostgreSQL
+ * NOTIFY. Notifications are sent in the relay's transaction, so they go out only once its batch
+ * commits, in commit order.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderFeedNotifier implements OutboxSink {
+    
+    static final String CHANNEL = "checky_order_feed";
+    
+    private static final String NOTIFY_SQL = "SELECT pg_notify('" + CHANNEL + "', message) FROM unnest(?::text[]) AS message";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Override
+    public void publish(List<OutboxEvent> events) throws Exception {
+        List<String> messages = new ArrayList<>();
+        for (OutboxEvent event : events) {
+            String name = switch (event.eventType()) {
+                case "ORDER_CREATED" -> "order-created";
+                case "ORDER_STATUS_CHANGED" -> "order-status-changed";
+                default -> null;
+            };
+            if (name == null) {
+                continue;
+            }
+            
+            JsonNode data;
+            try {
+                data = objectMapper.readTree(event.payload());
+            } catch (JsonProcessingException e) {
+                // Retrying cannot fix the payload; leaving the event out keeps the restaurant's outbox moving
+                log.warn("Leaving outbox event {} out of the order feed, unreadable payload: {}", event.id(), e.getMessage());
+                continue;
+            }
+            if (Order.OrderStatus.CANCELLED.name().equals(data.path("orderStatus").asText())) {
+                name = "order-cancelled";
+            }
+            ObjectNode message = objectMapper.createObjectNode();
+            message.put("id", event.id());
+            message.put("tenantId", event.tenantId());
+            message.put("name", name);
+            message.set("data", data);
+            messages.add(objectMapper.writeValueAsString(message));
+        }
+        
+        if (!messages.isEmpty()) {
+            jdbcTemplate.query(NOTIFY_SQL, rs -> {
+            }, (Object) messages.toArray(new String[0]));
+        }
+    }
+} 
\ No newline at end of file
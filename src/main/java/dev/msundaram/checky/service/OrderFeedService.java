@@ -0,0 +1,469 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.msundaram.checky.entity.Order;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Live order feed for kitchen screens over Server-Sent Events. Order events reach every instance
+ * through {@link OrderFeedNotifier}; one thread per instance listens for them and fans them out to
+ * the restaurant's subscribers.
+ * <p>
+ * Subscribers cost no thread while idle: each has a bounded buffer that a small dispatch pool
+ * drains, and a subscriber that falls so far behind that its buffer fills up is disconnected, to
+ * resume from its Last-Event-ID. A send that blocks for longer than
+ * {@code checky.orders.feed.stall-threshold} gets the pool an extra thread until it returns, so a
+ * client that stopped reading does not hold up the others.
+ * <p>
+ * The last {@code checky.orders.feed.replay-size} events of each restaurant with subscribers are kept
+ * for resuming; when a resume reaches further back, the subscriber gets a {@code reset} event and
+ * should reload the orders instead. A restaurant's events are dropped once it has had no subscribers
+ * for {@code checky.orders.feed.idle-retention}.
+ * <p>
+ * Every event received is also published in-process as an {@link OrderFeedEvent}, whether or not
+ * anyone here subscribes to its restaurant, so other components can follow orders made on any instance.
+ */
+@Service
+@Slf4j
+public class OrderFeedService {
+    
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+    private static final long CLIENT_RETRY_MILLIS = 3_000;
+    private static final int MAX_DISPATCH_THREADS = 256;
+    
+    // A message queued for one subscriber: an event, a reset or a heartbeat comment
+    private record Message(long id, String name, String data) {
+        static final Message HEARTBEAT = new Message(0, null, null);
+        static final Message RESET = new Message(0, "reset", "{}");
+    }
+    
+    private final class Subscriber {
+        
+        private final TenantFeed feed;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Message> buffer;
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+        private final AtomicBoolean completed = new AtomicBoolean();
+        private final AtomicBoolean stalled = new AtomicBoolean();
+        private volatile boolean closed;
+        // System.nanoTime() when the current send started
+        private volatile long sendingSince;
+        
+        Subscriber(TenantFeed feed, SseEmitter emitter) {
+            this.feed = feed;
+            this.emitter = emitter;
+            this.buffer = new LinkedBlockingQueue<>(replaySize + subscriberBuffer);
+        }
+        
+        void offer(Message message) {
+            if (closed) {
+                return;
+            }
+            if (!buffer.offer(message)) {
+                overflows.increment();
+                close();
+                return;
+            }
+            schedule();
+        }
+        
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    dispatcher.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    // Shutting down
+                    scheduled.set(false);
+                }
+            }
+        }
+        
+        private void drain() {
+            try {
+                Message message;
+                while (!closed && (message = buffer.poll()) != null) {
+                    send(message);
+                }
+            } catch (IOException | IllegalStateException e) {
+                // The client went away
+                closed = true;
+                remove();
+            } finally {
+                scheduled.set(false);
+            }
+            if (closed) {
+                complete();
+            } else if (!buffer.isEmpty()) {
+                schedule();
+            }
+        }
+        
+        private void send(Message message) throws IOException {
+            sendingSince = System.nanoTime();
+            sending.add(this);
+            try {
+                if (message == Message.HEARTBEAT) {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                } else if (message == Message.RESET) {
+                    emitter.send(SseEmitter.event().name(message.name()).data(message.data()));
+                } else {
+                    emitter.send(SseEmitter.event().id(Long.toString(message.id())).name(message.name()).data(message.data()));
+                }
+            } finally {
+                sending.remove(this);
+                if (stalled.compareAndSet(true, false)) {
+                    resizeDispatcher(-1);
+                }
+            }
+        }
+        
+        // Completes on a dispatch thread: the emitter is locked while a send is in progress
+        void close() {
+            closed = true;
+            remove();
+            schedule();
+        }
+        
+        private void complete() {
+            if (completed.compareAndSet(false, true)) {
+                buffer.clear();
+                emitter.complete();
+            }
+        }
+        
+        void remove() {
+            if (feed.subscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+                feed.lastLeftAt = System.nanoTime();
+            }
+        }
+    }
+    
+    // Subscribers and recent events of one restaurant; appends and subscriptions synchronize on it
+    private final class TenantFeed {
+        
+        private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+        private final Message[] ring = new Message[replaySize];
+        // Ids of the events in the ring, to drop redeliveries
+        private final Set<Long> ringIds = new HashSet<>();
+        private int start;
+        private int size;
+        // System.nanoTime() when the last subscriber left; an evicted feed takes no more subscribers
+        private volatile long lastLeftAt = System.nanoTime();
+        private boolean evicted;
+        
+        synchronized void append(Message message) {
+            // The outbox delivers at least once, in commit order per restaurant, which ids do not follow
+            if (!ringIds.add(message.id())) {
+                return;
+            }
+            if (size == ring.length) {
+                ringIds.remove(ring[start].id());
+                ring[start] = message;
+                start = (start + 1) % ring.length;
+            } else {
+                ring[(start + size) % ring.length] = message;
+                size++;
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(message);
+            }
+        }
+        
+        synchronized boolean subscribe(Subscriber subscriber, Long lastEventId) {
+            if (evicted) {
+                return false;
+            }
+            if (lastEventId != null) {
+                // Events after lastEventId are all here only if it is still in the ring
+                int position = size - 1;
+                while (position >= 0 && ring[(start + position) % ring.length].id() != lastEventId) {
+                    position--;
+                }
+                if (position < 0) {
+                    subscriber.offer(Message.RESET);
+                } else {
+                    for (int i = position + 1; i < size; i++) {
+                        subscriber.offer(ring[(start + i) % ring.length]);
+                    }
+                }
+            }
+            subscribers.add(subscriber);
+            subscriberCount.incrementAndGet();
+            return true;
+        }
+        
+        synchronized boolean evictIfIdleSince(long cutoff) {
+            if (subscribers.isEmpty() && lastLeftAt - cutoff <= 0) {
+                evicted = true;
+            }
+            return evicted;
+        }
+        
+        synchronized void reset() {
+            start = 0;
+            size = 0;
+            ringIds.clear();
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(Message.RESET);
+            }
+        }
+    }
+    
+    private final DataSource dataSource;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final Duration timeout;
+    private final int replaySize;
+    private final int subscriberBuffer;
+    private final int dispatchThreads;
+    private final Duration stallThreshold;
+    private final Duration idleRetention;
+    private final ThreadPoolExecutor dispatcher;
+    private final ConcurrentMap<Long, TenantFeed> feeds = new ConcurrentHashMap<>();
+    private final Set<Subscriber> sending = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private int stalledSends;
+    private final Counter overflows;
+    private final Counter stalls;
+    private volatile boolean running;
+    private Thread listener;
+    
+    public OrderFeedService(DataSource dataSource,
+                            ObjectMapper objectMapper,
+                            ApplicationEventPublisher eventPublisher,
+                            @Value("${checky.orders.feed.enabled:true}") boolean enabled,
+                            @Value("${checky.orders.feed.timeout:30m}") Duration timeout,
+                            @Value("${checky.orders.feed.replay-size:500}") int replaySize,
+                            @Value("${checky.orders.feed.subscriber-buffer:256}") int subscriberBuffer,
+                            @Value("${checky.orders.feed.dispatch-threads:4}") int dispatchThreads,
+                            @Value("${checky.orders.feed.stall-threshold:2s}") Duration stallThreshold,
+                            @Value("${checky.orders.feed.idle-retention:5m}") Duration idleRetention,
+                            MeterRegistry meterRegistry) {
+        this.dataSource = dataSource;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.timeout = timeout;
+        this.replaySize = Math.max(1, replaySize);
+        this.subscriberBuffer = Math.max(1, subscriberBuffer);
+        this.dispatchThreads = Math.max(1, dispatchThreads);
+        this.stallThreshold = stallThreshold;
+        this.idleRetention = idleRetention;
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.dispatcher = new ThreadPoolExecutor(this.dispatchThreads, MAX_DISPATCH_THREADS, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), runnable -> {
+            Thread thread = new Thread(runnable, "order-feed-dispatch-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.overflows = meterRegistry.counter("checky.orders.feed.overflows");
+        this.stalls = meterRegistry.counter("checky.orders.feed.stalled-sends");
+        
+        Gauge.builder("checky.orders.feed.subscribers", subscriberCount, AtomicInteger::get)
+                .description("Open order feed connections")
+                .register(meterRegistry);
+        Gauge.builder("checky.orders.feed.restaurants", feeds, Map::size)
+                .description("Restaurants whose recent order events are kept for the feed")
+                .register(meterRegistry);
+    }
+    
+    public boolean isEnabled() {
+        return enabled;
+    }
+    
+    /**
+     * Opens a feed of the restaurant's order events, replaying those after {@code lastEventId} when given.
+     */
+    public SseEmitter subscribe(Long restaurantId, Long lastEventId) {
+        return subscribe(restaurantId, lastEventId, new SseEmitter(timeout.toMillis()));
+    }
+    
+    SseEmitter subscribe(Long restaurantId, Long lastEventId, SseEmitter emitter) {
+        try {
+            // Flushes the response headers and tells EventSource clients how soon to reconnect
+            emitter.send(SseEmitter.event().reconnectTime(CLIENT_RETRY_MILLIS).comment("connected"));
+        } catch (IOException e) {
+            emitter.completeWithError(e);
+            return emitter;
+        }
+        
+        Subscriber subscriber;
+        do {
+            // Retried if the feed was evicted in between
+            subscriber = new Subscriber(feeds.computeIfAbsent(restaurantId, id -> new TenantFeed()), emitter);
+        } while (!subscriber.feed.subscribe(subscriber, lastEventId));
+        Subscriber subscribed = subscriber;
+        emitter.onCompletion(subscribed::remove);
+        emitter.onTimeout(subscribed::remove);
+        emitter.onError(e -> subscribed.remove());
+        return emitter;
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.orders.feed.heartbeat-interval:15s}")
+    public void sendHeartbeats() {
+        // Keeps idle connections from being closed by proxies and reveals dead clients
+        long cutoff = System.nanoTime() - idleRetention.toNanos();
+        feeds.forEach((restaurantId, feed) -> {
+            if (feed.evictIfIdleSince(cutoff)) {
+                feeds.remove(restaurantId, feed);
+                return;
+            }
+            for (Subscriber subscriber : feed.subscribers) {
+                subscriber.offer(Message.HEARTBEAT);
+            }
+        });
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.orders.feed.stall-threshold:2s}")
+    public void compensateStalledSends() {
+        long cutoff = System.nanoTime() - stallThreshold.toNanos();
+        for (Subscriber subscriber : sending) {
+            long since = subscriber.sendingSince;
+            if (since - cutoff < 0 && subscriber.stalled.compareAndSet(false, true)) {
+                stalls.increment();
+                resizeDispatcher(1);
+                // The send may have returned just before the flag was set
+                if (!sending.contains(subscriber) && subscriber.stalled.compareAndSet(true, false)) {
+                    resizeDispatcher(-1);
+                }
+            }
+        }
+    }
+    
+    // One extra dispatch thread per send that is blocked on a slow client
+    private synchronized void resizeDispatcher(int delta) {
+        stalledSends += delta;
+        dispatcher.setCorePoolSize(Math.min(MAX_DISPATCH_THREADS, dispatchThreads + stalledSends));
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        running = true;
+        listener = new Thread(this::listen, "order-feed-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+    
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+        for (TenantFeed feed : feeds.values()) {
+            for (Subscriber subscriber : feed.subscribers) {
+                subscriber.close();
+            }
+        }
+        dispatcher.shutdown();
+    }
+    
+    private void listen() {
+        boolean reconnecting = false;
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + OrderFeedNotifier.CHANNEL);
+                }
+                if (reconnecting) {
+                    // Events sent while disconnected are lost; subscribers have to reload
+                    log.info("Order feed listener reconnected");
+                    feeds.values().forEach(TenantFeed::reset);
+                    publish(new OrderFeedEvent.Missed());
+                }
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) RECONNECT_DELAY_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            dispatch(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Order feed listener lost its connection, reconnecting: {}", e.getMessage());
+                reconnecting = true;
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+    
+    void dispatch(String notification) {
+        long tenantId;
+        Message parsed;
+        OrderFeedEvent event;
+        try {
+            JsonNode message = objectMapper.readTree(notification);
+            JsonNode data = message.get("data");
+            String orderStatus = data.path("orderStatus").asText(null);
+            tenantId = message.get("tenantId").asLong();
+            parsed = new Message(message.get("id").asLong(), message.get("name").asText(), data.toString());
+            event = new OrderFeedEvent(tenantId, data.path("orderId").asLong(), "order-created".equals(parsed.name()),
+                    orderStatus != null ? Order.OrderStatus.valueOf(orderStatus) : null);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Ignoring malformed order feed notification: {}", e.getMessage());
+            return;
+        }
+        
+        // Restaurants nobody here watches are not kept
+        TenantFeed feed = feeds.get(tenantId);
+        if (feed != null) {
+            feed.append(parsed);
+        }
+        publish(event);
+    }
+    
+    // Runs the listeners on the listener thread; a failing one must not stop the feed
+    private void publish(Object event) {
+        try {
+            eventPublisher.publishEvent(event);
+        } catch (RuntimeException e) {
+            log.warn("Order feed event listener failed: {}", e.getMessage());
+        }
+    }
+} 
\ No newline at end of file
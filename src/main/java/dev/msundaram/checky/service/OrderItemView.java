@@ -0,0 +1,23 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.entity.OrderItem;
+
+import java.math.BigDecimal;
+
+/**
+ * Order item as returned by the order read endpoints, with the menu item flattened to its id
+ * and name. Built directly by a query, so no entity or proxy is involved.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderItemView(@JsonIgnore Long orderId,
+                            Long id,
+                            Long menuItemId,
+                            String menuItemName,
+                            Integer quantity,
+                            BigDecimal unitPrice,
+                            BigDecimal totalPrice,
+                            String notes,
+                            OrderItem.ItemStatus itemStatus) {
+} 
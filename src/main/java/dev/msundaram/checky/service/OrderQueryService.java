@@ -0,0 +1,93 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.config.PaginationProperties;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.repository.OrderRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Order reads for the API. Every method runs a fixed number of queries however many orders it
+ * returns: one for the orders and one for all of their items with the menu item names, projected
+ * straight into {@link OrderView}s so serialization never touches a lazy association.
+ */
+@Service
+@RequiredArgsConstructor
+@Transactional(readOnly = true)
+public class OrderQueryService {
+    
+    private final OrderRepository orderRepository;
+    private final TenantService tenantService;
+    private final PaginationProperties paginationProperties;
+    
+    /**
+     * Newest orders first, one page at a time; pass the previous page's nextCursor to continue.
+     */
+    public CursorPage<OrderView> getOrders(String cursor, Integer limit) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        int pageSize = paginationProperties.resolveLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findPageByTenantId(currentRestaurant, fetch);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = orderRepository.findPageByTenantIdBefore(currentRestaurant, after.timestampKey(), after.id(), fetch);
+        }
+        
+        CursorPage<Order> page = CursorPage.of(rows, pageSize, order -> KeysetCursor.of(order.getCreatedAt(), order.getId()));
+        return new CursorPage<>(toViews(currentRestaurant, page.items()), page.nextCursor());
+    }
+    
+    /**
+     * Newest orders with the given status first, paged like {@link #getOrders}.
+     */
+    public CursorPage<OrderView> getOrdersByStatus(Order.OrderStatus status, String cursor, Integer limit) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        int pageSize = paginationProperties.resolveLimit(limit);
+        Limit fetch = Limit.of(pageSize + 1);
+        
+        List<Order> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = orderRepository.findPageByTenantIdAndStatus(currentRestaurant, status, fetch);
+        } else {
+            KeysetCursor after = KeysetCursor.decode(cursor);
+            rows = orderRepository.findPageByTenantIdAndStatusBefore(currentRestaurant, status, after.timestampKey(), after.id(), fetch);
+        }
+        
+        CursorPage<Order> page = CursorPage.of(rows, pageSize, order -> KeysetCursor.of(order.getCreatedAt(), order.getId()));
+        return new CursorPage<>(toViews(currentRestaurant, page.items()), page.nextCursor());
+    }
+    
+    public Optional<OrderView> getOrderById(Long orderId) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        return orderRepository.findByIdAndTenantId(orderId, currentRestaurant)
+                .map(order -> toViews(currentRestaurant, List.of(order)).get(0));
+    }
+    
+    public Optional<OrderView> getOrderByNumber(String orderNumber) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        return orderRepository.findByTenantIdAndOrderNumber(currentRestaurant, orderNumber)
+                .map(order -> toViews(currentRestaurant, List.of(order)).get(0));
+    }
+    
+    private List<OrderView> toViews(Long restaurantId, List<Order> orders) {
+        if (orders.isEmpty()) {
+            return List.of();
+        }
+        List<Long> orderIds = orders.stream().map(Order::getId).toList();
+        Map<Long, List<OrderItemView>> itemsByOrder = orderRepository.findItemViewsByTenantIdAndOrderIds(restaurantId, orderIds).stream()
+                .collect(Collectors.groupingBy(OrderItemView::orderId));
+        return orders.stream()
+                .map(order -> OrderView.of(order, itemsByOrder.getOrDefault(order.getId(), List.of())))
+                .toList();
+    }
+} 
@@ -7,10 +7,10 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import java.math.BigDecimal;
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Predicate;
 
 @Service
 @RequiredArgsConstructor
@@ -18,62 +18,38 @@ import java.util.Optional;
 public class OrderService {
     
     private final OrderRepository orderRepository;
-    private final MenuItemRepository menuItemRepository;
-    private final RestaurantRepository restaurantRepository;
+    private final RestaurantSettingsCache restaurantSettingsCache;
+    private final MenuPriceCache menuPriceCache;
     private final TenantService tenantService;
-    private final RecipeService recipeService;
-    
-    public List<Order> getAllOrders() {
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return orderRepository.findByTenantId(currentRestaurant);
-    }
-    
-    public List<Order> getOrdersByStatus(Order.OrderStatus status) {
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return orderRepository.findByTenantIdAndStatus(currentRestaurant, status);
-    }
-    
-    public Optional<Order> getOrderById(Long orderId) {
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isPresent() && orderOpt.get().getTenantId().equals(currentRestaurant)) {
-            return orderOpt;
-        }
-        return Optional.empty();
-    }
-    
-    public Optional<Order> getOrderByNumber(String orderNumber) {
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return orderRepository.findByTenantIdAndOrderNumber(currentRestaurant, orderNumber);
-    }
+    private final InventoryConsumptionService inventoryConsumptionService;
+    private final DocumentNumberService documentNumberService;
+    private final OutboxService outboxService;
     
     @Transactional
     public Order createOrder(Order orderRequest) {
+        resetToNew(orderRequest);
+        
         // Set tenant context
         tenantService.setRestaurantOnEntity(orderRequest);
+        if (orderRequest.getOrderItems() != null) {
+            for (OrderItem orderItem : orderRequest.getOrderItems()) {
+                orderItem.setTenantId(orderRequest.getTenantId());
+                orderItem.setOrder(orderRequest);
+            }
+        }
         
-        // Generate order number
-        orderRequest.setOrderNumber(generateOrderNumber());
-        
-        // Calculate order totals
+        // Calculate order totals, rejecting unknown menu items before a number is taken
         calculateOrderTotals(orderRequest);
         
+        // Generate order number
+        orderRequest.setOrderNumber(documentNumberService.next(DocumentType.ORDER, tenantService.getCurrentRestaurant()));
+        
         // Save order
         Order savedOrder = orderRepository.save(orderRequest);
         
-        // Track inventory for each order item
-        if (savedOrder.getOrderItems() != null) {
-            for (OrderItem orderItem : savedOrder.getOrderItems()) {
-                if (orderItem.getMenuItem() != null && orderItem.getMenuItem().getId() != null) {
-                    try {
-                        recipeService.trackInventoryForOrderItem(orderItem.getMenuItem().getId(), orderItem.getQuantity());
-                    } catch (Exception e) {
-                        log.warn("Failed to track inventory for menu item {}: {}", 
-                                orderItem.getMenuItem().getId(), e.getMessage());
-                    }
-                }
-            }
-        }
+        // Inventory is deducted in the background from the queued consumption
+        inventoryConsumptionService.enqueue(List.of(savedOrder));
+        outboxService.record(savedOrder.getTenantId(), OutboxEventType.ORDER_CREATED, savedOrder.getId(), OrderEventPayload.of(savedOrder));
         
         log.info("Created order {} for restaurant {}", savedOrder.getOrderNumber(), tenantService.getCurrentRestaurant());
         return savedOrder;
@@ -81,17 +57,31 @@ public class OrderService {
     
     @Transactional
     public Order updateOrderStatus(Long orderId, Order.OrderStatus newStatus) {
+        return updateOrderStatus(orderId, newStatus, null);
+    }
+    
+    /**
+     * Moves the order to {@code newStatus} with a single conditional update.
+     *
+     * @param expectedVersion the version the client read, or null to skip the check
+     * @throws OrderConflictException if the transition is not allowed from the order's current status
+     *                                or the order is no longer at {@code expectedVersion}
+     */
+    @Transactional
+    public Order updateOrderStatus(Long orderId, Order.OrderStatus newStatus, Long expectedVersion) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty() || !orderOpt.get().getTenantId().equals(currentRestaurant)) {
-            throw new RuntimeException("Order not found");
+        List<String> fromStatuses = OrderTransitions.sourcesOf(newStatus);
+        Optional<Order> orderOpt = fromStatuses.isEmpty() ? Optional.empty()
+                : orderRepository.transitionStatus(currentRestaurant, orderId, fromStatuses, newStatus.name(), expectedVersion);
+        if (orderOpt.isEmpty()) {
+            throw rejectedTransition(orderId, currentRestaurant, expectedVersion,
+                    order -> OrderTransitions.isAllowed(order.getOrderStatus(), newStatus),
+                    order -> "Order cannot move from " + order.getOrderStatus() + " to " + newStatus);
         }
         
-        Order order = orderOpt.get();
-        order.setOrderStatus(newStatus);
-        
-        Order updatedOrder = orderRepository.save(order);
+        Order updatedOrder = orderOpt.get();
+        outboxService.record(currentRestaurant, OutboxEventType.ORDER_STATUS_CHANGED, orderId, OrderEventPayload.of(updatedOrder));
         log.info("Updated order {} status to {} for restaurant {}", 
                 updatedOrder.getOrderNumber(), newStatus, currentRestaurant);
         return updatedOrder;
@@ -99,17 +89,31 @@ public class OrderService {
     
     @Transactional
     public Order updatePaymentStatus(Long orderId, Order.PaymentStatus newStatus) {
+        return updatePaymentStatus(orderId, newStatus, null);
+    }
+    
+    /**
+     * Moves the order's payment to {@code newStatus} with a single conditional update.
+     *
+     * @param expectedVersion the version the client read, or null to skip the check
+     * @throws OrderConflictException if the transition is not allowed from the current payment status
+     *                                or the order is no longer at {@code expectedVersion}
+     */
+    @Transactional
+    public Order updatePaymentStatus(Long orderId, Order.PaymentStatus newStatus, Long expectedVersion) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty() || !orderOpt.get().getTenantId().equals(currentRestaurant)) {
-            throw new RuntimeException("Order not found");
+        List<String> fromStatuses = OrderTransitions.sourcesOf(newStatus);
+        Optional<Order> orderOpt = orderRepository.transitionPaymentStatus(currentRestaurant, orderId, fromStatuses,
+                newStatus.name(), expectedVersion);
+        if (orderOpt.isEmpty()) {
+            throw rejectedTransition(orderId, currentRestaurant, expectedVersion,
+                    order -> OrderTransitions.isAllowed(order.getPaymentStatus(), newStatus),
+                    order -> "Payment cannot move from " + order.getPaymentStatus() + " to " + newStatus);
         }
         
-        Order order = orderOpt.get();
-        order.setPaymentStatus(newStatus);
-        
-        Order updatedOrder = orderRepository.save(order);
+        Order updatedOrder = orderOpt.get();
+        outboxService.record(currentRestaurant, OutboxEventType.ORDER_PAYMENT_STATUS_CHANGED, orderId, OrderEventPayload.of(updatedOrder));
         log.info("Updated order {} payment status to {} for restaurant {}", 
                 updatedOrder.getOrderNumber(), newStatus, currentRestaurant);
         return updatedOrder;
@@ -117,62 +121,102 @@ public class OrderService {
     
     @Transactional
     public Order cancelOrder(Long orderId) {
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        
-        Optional<Order> orderOpt = orderRepository.findById(orderId);
-        if (orderOpt.isEmpty() || !orderOpt.get().getTenantId().equals(currentRestaurant)) {
-            throw new RuntimeException("Order not found");
+        return updateOrderStatus(orderId, Order.OrderStatus.CANCELLED, null);
+    }
+    
+    /**
+     * Drops the ids and version of an order built from a request, so that it is always inserted as a new
+     * order: with an id or version set, saving it would merge it into another order or into a copy. The
+     * order and its items also start out PENDING whatever statuses the request carries (including null),
+     * so they only ever move on through the transitions.
+     */
+    static void resetToNew(Order order) {
+        order.setId(null);
+        order.setVersion(null);
+        order.setOrderStatus(Order.OrderStatus.PENDING);
+        order.setPaymentStatus(Order.PaymentStatus.PENDING);
+        if (order.getOrderItems() != null) {
+            order.getOrderItems().forEach(orderItem -> {
+                orderItem.setId(null);
+                orderItem.setItemStatus(OrderItem.ItemStatus.PENDING);
+            });
+        }
+    }
+    
+    // Works out why a conditional update matched no row; only runs when a transition was refused
+    private RuntimeException rejectedTransition(Long orderId, Long restaurantId, Long expectedVersion,
+                                                Predicate<Order> allowed, Function<Order, String> notAllowedMessage) {
+        Optional<Order> orderOpt = orderRepository.findByIdAndTenantId(orderId, restaurantId);
+        if (orderOpt.isEmpty()) {
+            return new RuntimeException("Order not found");
         }
-        
         Order order = orderOpt.get();
-        order.setOrderStatus(Order.OrderStatus.CANCELLED);
-        orderRepository.save(order);
-        log.info("Cancelled order {} for restaurant {}", order.getOrderNumber(), currentRestaurant);
-        
-        return order;
+        if (!allowed.test(order)) {
+            return new OrderConflictException(notAllowedMessage.apply(order));
+        }
+        if (expectedVersion == null) {
+            return new OrderConflictException("Order " + orderId + " was changed concurrently");
+        }
+        return new OrderConflictException("Order " + orderId + " is at version " + order.getVersion() + ", not " + expectedVersion);
     }
     
     private void calculateOrderTotals(Order order) {
-        BigDecimal subtotal = BigDecimal.ZERO;
-        
+        // Get cached restaurant settings for tax and service charge rates
+        calculateOrderTotals(order, restaurantSettingsCache.get(order.getTenantId()));
+    }
+    
+    /**
+     * Prices the order from the menu: unit prices come from {@link MenuPriceCache}, never from the
+     * request, and all totals are computed in minor units by {@link PricingEngine}.
+     *
+     * @throws IllegalArgumentException if an item has no orderable menu item of this restaurant or a non-positive
+     *                                  quantity, or the discount is negative or larger than the subtotal
+     */
+    void calculateOrderTotals(Order order, Optional<RestaurantSettings> settingsOpt) {
+        MenuPriceCache.PriceTable prices = menuPriceCache.get(order.getTenantId());
+        
+        long subtotal = 0;
         if (order.getOrderItems() != null) {
             for (OrderItem orderItem : order.getOrderItems()) {
-                if (orderItem.getTotalPrice() != null) {
-                    subtotal = subtotal.add(orderItem.getTotalPrice());
+                if (orderItem.getMenuItem() == null || orderItem.getMenuItem().getId() == null) {
+                    throw new IllegalArgumentException("Every order item needs a menu item");
+                }
+                Long menuItemId = orderItem.getMenuItem().getId();
+                long unitPrice = prices.priceOf(menuItemId);
+                if (unitPrice == MenuPriceCache.NOT_FOUND) {
+                    // Deleted and unavailable items are not in the table either
+                    throw new IllegalArgumentException("Menu item " + menuItemId + " not found");
+                }
+                int quantity = orderItem.getQuantity() != null ? orderItem.getQuantity() : 1;
+                if (quantity <= 0) {
+                    throw new IllegalArgumentException("Quantity must be positive");
                 }
+                
+                long lineTotal = PricingEngine.lineTotal(unitPrice, quantity);
+                orderItem.setQuantity(quantity);
+                orderItem.setUnitPrice(PricingEngine.toBigDecimal(unitPrice));
+                orderItem.setTotalPrice(PricingEngine.toBigDecimal(lineTotal));
+                subtotal = Math.addExact(subtotal, lineTotal);
             }
         }
         
-        order.setSubtotal(subtotal);
-        
-        // Get restaurant for tax and service charge rates
-        Optional<Restaurant> restaurantOpt = restaurantRepository.findById(order.getTenantId());
-        if (restaurantOpt.isPresent()) {
-            Restaurant restaurant = restaurantOpt.get();
-            
-            // Calculate tax
-            BigDecimal taxAmount = subtotal.multiply(BigDecimal.valueOf(restaurant.getTaxRate()))
-                    .divide(BigDecimal.valueOf(100), 2, BigDecimal.ROUND_HALF_UP);
-            order.setTaxAmount(taxAmount);
-            
-            // Calculate service charge
-            BigDecimal serviceCharge = subtotal.multiply(BigDecimal.valueOf(restaurant.getServiceChargeRate()))
-                    .divide(BigDecimal.valueOf(100), 2, BigDecimal.ROUND_HALF_UP);
-            order.setServiceCharge(serviceCharge);
-            
-            // Calculate total
-            BigDecimal total = subtotal.add(taxAmount).add(serviceCharge);
-            if (order.getDiscountAmount() != null) {
-                total = total.subtract(order.getDiscountAmount());
-            }
-            order.setTotalAmount(total);
+        long discount = order.getDiscountAmount() != null ? PricingEngine.toMinorUnits(order.getDiscountAmount()) : 0;
+        if (discount < 0 || discount > subtotal) {
+            throw new IllegalArgumentException("Discount must be between 0 and the subtotal");
         }
-    }
-    
-    private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return String.format("ORD-%d-%s", currentRestaurant, timestamp);
+        long taxRate = 0;
+        long serviceChargeRate = 0;
+        if (settingsOpt.isPresent()) {
+            taxRate = PricingEngine.rate(settingsOpt.get().taxRate());
+            serviceChargeRate = PricingEngine.rate(settingsOpt.get().serviceChargeRate());
+        }
+        PricingEngine.Totals totals = PricingEngine.totals(subtotal, discount, taxRate, serviceChargeRate);
+        
+        order.setSubtotal(PricingEngine.toBigDecimal(totals.subtotal()));
+        order.setTaxAmount(PricingEngine.toBigDecimal(totals.taxAmount()));
+        order.setServiceCharge(PricingEngine.toBigDecimal(totals.serviceCharge()));
+        order.setDiscountAmount(PricingEngine.toBigDecimal(totals.discountAmount()));
+        order.setTotalAmount(PricingEngine.toBigDecimal(totals.totalAmount()));
     }
     
     public Order.OrderStatus[] getOrderStatuses() {
@@ -0,0 +1,9 @@
+package dev.msundaram.checky.service;
+
+import java.util.List;
+
+/**
+ * Orders to move to a new status, a new payment status or both at once.
+ */
+public record OrderTransitionRequest(List<Long> orderIds, String status, String paymentStatus) {
+} 
\ No newline at end of file
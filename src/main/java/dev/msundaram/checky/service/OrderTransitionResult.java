@@ -0,0 +1,23 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderTransitionResult(Long orderId, Status status, Long version, String error) {
+    
+    public enum Status {
+        UPDATED, CONFLICT, NOT_FOUND
+    }
+    
+    static OrderTransitionResult updated(Long orderId, Long version) {
+        return new OrderTransitionResult(orderId, Status.UPDATED, version, null);
+    }
+    
+    static OrderTransitionResult conflict(Long orderId, Long version, String error) {
+        return new OrderTransitionResult(orderId, Status.CONFLICT, version, error);
+    }
+    
+    static OrderTransitionResult notFound(Long orderId) {
+        return new OrderTransitionResult(orderId, Status.NOT_FOUND, null, null);
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,164 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Moves many orders to a new status and/or payment status at once, e.g. when expo serves a rush or
+ * the floor closes out. All orders go through one conditional UPDATE that only matches those whose
+ * current statuses allow the transition (see {@link OrderTransitions}); the ones it did not match
+ * are then looked up in one query to tell conflicts from unknown ids.
+ */
+@Service
+@Slf4j
+public class OrderTransitionService {
+    
+    private static final String FIND_SQL =
+            "SELECT id, order_status, payment_status, version FROM orders WHERE tenant_id = ? AND id = ANY(?)";
+    
+    private record Updated(Long id, Long version, OrderEventPayload payload) {
+    }
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final OutboxService outboxService;
+    private final TenantService tenantService;
+    private final int maxOrders;
+    
+    public OrderTransitionService(JdbcTemplate jdbcTemplate,
+                                  OutboxService outboxService,
+                                  TenantService tenantService,
+                                  @Value("${checky.orders.transitions.max-orders:500}") int maxOrders) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.outboxService = outboxService;
+        this.tenantService = tenantService;
+        this.maxOrders = maxOrders;
+    }
+    
+    public int getMaxOrders() {
+        return maxOrders;
+    }
+    
+    /**
+     * Applies the transition to every order it is legal for and returns one result per distinct id,
+     * in request order. An order gets either all of the requested changes or none.
+     *
+     * @param status        target order status, or null to leave it
+     * @param paymentStatus target payment status, or null to leave it
+     */
+    @Transactional
+    public List<OrderTransitionResult> transition(List<Long> orderIds, Order.OrderStatus status, Order.PaymentStatus paymentStatus) {
+        if (status == null && paymentStatus == null) {
+            throw new IllegalArgumentException("A status or payment status is required");
+        }
+        Set<Long> ids = new LinkedHashSet<>();
+        for (Long orderId : orderIds) {
+            if (orderId == null) {
+                throw new IllegalArgumentException("Order ids cannot be null");
+            }
+            ids.add(orderId);
+        }
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        Long[] idArray = ids.toArray(new Long[0]);
+        
+        Map<Long, Updated> updated = update(currentRestaurant, idArray, status, paymentStatus);
+        
+        Map<Long, OrderTransitionResult> rejected = new HashMap<>();
+        if (updated.size() < ids.size()) {
+            Long[] missing = ids.stream().filter(id -> !updated.containsKey(id)).toArray(Long[]::new);
+            jdbcTemplate.query(FIND_SQL, rs -> {
+                long id = rs.getLong("id");
+                Order.OrderStatus currentStatus = Order.OrderStatus.valueOf(rs.getString("order_status"));
+                Order.PaymentStatus currentPayment = Order.PaymentStatus.valueOf(rs.getString("payment_status"));
+                String error;
+                if (status != null && !OrderTransitions.isAllowed(currentStatus, status)) {
+                    error = "Order cannot move from " + currentStatus + " to " + status;
+                } else if (paymentStatus != null && !OrderTransitions.isAllowed(currentPayment, paymentStatus)) {
+                    error = "Payment cannot move from " + currentPayment + " to " + paymentStatus;
+                } else {
+                    error = "Order was changed concurrently";
+                }
+                rejected.put(id, OrderTransitionResult.conflict(id, rs.getLong("version"), error));
+            }, currentRestaurant, missing);
+        }
+        
+        List<OutboxService.Entry> events = new ArrayList<>();
+        for (Updated order : updated.values()) {
+            if (status != null) {
+                events.add(new OutboxService.Entry(currentRestaurant, OutboxEventType.ORDER_STATUS_CHANGED, order.id(), order.payload()));
+            }
+            if (paymentStatus != null) {
+                events.add(new OutboxService.Entry(currentRestaurant, OutboxEventType.ORDER_PAYMENT_STATUS_CHANGED, order.id(), order.payload()));
+            }
+        }
+        outboxService.record(events);
+        
+        List<OrderTransitionResult> results = new ArrayList<>(ids.size());
+        for (Long id : ids) {
+            Updated order = updated.get(id);
+            if (order != null) {
+                results.add(OrderTransitionResult.updated(id, order.version()));
+            } else {
+                results.add(rejected.getOrDefault(id, OrderTransitionResult.notFound(id)));
+            }
+        }
+        log.info("Moved {} of {} orders to status {} / payment status {} for restaurant {}",
+                updated.size(), ids.size(), status, paymentStatus, currentRestaurant);
+        return results;
+    }
+    
+    // One statement for all orders; a target no status can reach matches nothing and skips the query
+    private Map<Long, Updated> update(Long restaurantId, Long[] ids, Order.OrderStatus status, Order.PaymentStatus paymentStatus) {
+        StringBuilder set = new StringBuilder("version = version + 1, updated_at = localtimestamp");
+        StringBuilder where = new StringBuilder("tenant_id = ? AND id = ANY(?)");
+        List<Object> setArgs = new ArrayList<>();
+        List<Object> whereArgs = new ArrayList<>(List.of(restaurantId, ids));
+        if (status != null) {
+            List<String> fromStatuses = OrderTransitions.sourcesOf(status);
+            if (fromStatuses.isEmpty()) {
+                return Map.of();
+            }
+            set.append(", order_status = ?");
+            setArgs.add(status.name());
+            where.append(" AND order_status = ANY(?)");
+            whereArgs.add(fromStatuses.toArray(new String[0]));
+        }
+        if (paymentStatus != null) {
+            List<String> fromStatuses = OrderTransitions.sourcesOf(paymentStatus);
+            if (fromStatuses.isEmpty()) {
+                return Map.of();
+            }
+            set.append(", payment_status = ?");
+            setArgs.add(paymentStatus.name());
+            where.append(" AND payment_status = ANY(?)");
+            whereArgs.add(fromStatuses.toArray(new String[0]));
+        }
+        
+        String sql = "UPDATE orders SET " + set + " WHERE " + where +
+                " RETURNING id, order_number, order_status, payment_status, total_amount, version";
+        List<Object> args = new ArrayList<>(setArgs);
+        args.addAll(whereArgs);
+        
+        Map<Long, Updated> updated = new LinkedHashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            long id = rs.getLong("id");
+            OrderEventPayload payload = new OrderEventPayload(id, rs.getString("order_number"),
+                    Order.OrderStatus.valueOf(rs.getString("order_status")),
+                    Order.PaymentStatus.valueOf(rs.getString("payment_status")),
+                    rs.getBigDecimal("total_amount"));
+            updated.put(id, new Updated(id, rs.getLong("version"), payload));
+        }, args.toArray());
+        return updated;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,58 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order.OrderStatus;
+import dev.msundaram.checky.entity.Order.PaymentStatus;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Legal order and payment status transitions. Orders only move forward through PENDING, CONFIRMED,
+ * PREPARING, READY and SERVED, possibly skipping steps, and can be cancelled until they are served.
+ * The transitions are kept by target status, as the statuses an order may be in for an update to
+ * that target to apply.
+ */
+final class OrderTransitions {
+    
+    private static final Map<OrderStatus, Set<OrderStatus>> ORDER_SOURCES = new EnumMap<>(OrderStatus.class);
+    private static final Map<PaymentStatus, Set<PaymentStatus>> PAYMENT_SOURCES = new EnumMap<>(PaymentStatus.class);
+    
+    static {
+        ORDER_SOURCES.put(OrderStatus.PENDING, EnumSet.noneOf(OrderStatus.class));
+        ORDER_SOURCES.put(OrderStatus.CONFIRMED, EnumSet.of(OrderStatus.PENDING));
+        ORDER_SOURCES.put(OrderStatus.PREPARING, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED));
+        ORDER_SOURCES.put(OrderStatus.READY, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING));
+        ORDER_SOURCES.put(OrderStatus.SERVED, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY));
+        ORDER_SOURCES.put(OrderStatus.CANCELLED, EnumSet.of(OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY));
+        
+        PAYMENT_SOURCES.put(PaymentStatus.PENDING, EnumSet.of(PaymentStatus.FAILED));
+        PAYMENT_SOURCES.put(PaymentStatus.PAID, EnumSet.of(PaymentStatus.PENDING, PaymentStatus.FAILED));
+        PAYMENT_SOURCES.put(PaymentStatus.FAILED, EnumSet.of(PaymentStatus.PENDING));
+        PAYMENT_SOURCES.put(PaymentStatus.REFUNDED, EnumSet.of(PaymentStatus.PAID));
+    }
+    
+    private OrderTransitions() {
+    }
+    
+    static boolean isAllowed(OrderStatus from, OrderStatus to) {
+        return ORDER_SOURCES.get(to).contains(from);
+    }
+    
+    static boolean isAllowed(PaymentStatus from, PaymentStatus to) {
+        return PAYMENT_SOURCES.get(to).contains(from);
+    }
+    
+    /**
+     * Names of the statuses an order can move to {@code target} from, as stored in orders.order_status.
+     */
+    static List<String> sourcesOf(OrderStatus target) {
+        return ORDER_SOURCES.get(target).stream().map(Enum::name).toList();
+    }
+    
+    static List<String> sourcesOf(PaymentStatus target) {
+        return PAYMENT_SOURCES.get(target).stream().map(Enum::name).toList();
+    }
+} 
\ No newline at end of file
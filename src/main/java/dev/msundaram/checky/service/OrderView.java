@@ -0,0 +1,42 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import dev.msundaram.checky.entity.Order;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Order as returned by the order read endpoints. The version can be passed back to make a status
+ * update conditional on the order not having changed.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record OrderView(Long id,
+                        String orderNumber,
+                        Order.OrderType orderType,
+                        Order.OrderStatus orderStatus,
+                        String tableNumber,
+                        String customerName,
+                        String customerPhone,
+                        BigDecimal subtotal,
+                        BigDecimal taxAmount,
+                        BigDecimal serviceCharge,
+                        BigDecimal discountAmount,
+                        BigDecimal totalAmount,
+                        String paymentMethod,
+                        Order.PaymentStatus paymentStatus,
+                        String notes,
+                        Long version,
+                        LocalDateTime createdAt,
+                        LocalDateTime updatedAt,
+                        List<OrderItemView> orderItems) {
+    
+    static OrderView of(Order order, List<OrderItemView> orderItems) {
+        return new OrderView(order.getId(), order.getOrderNumber(), order.getOrderType(), order.getOrderStatus(),
+                order.getTableNumber(), order.getCustomerName(), order.getCustomerPhone(),
+                order.getSubtotal(), order.getTaxAmount(), order.getServiceCharge(), order.getDiscountAmount(),
+                order.getTotalAmount(), order.getPaymentMethod(), order.getPaymentStatus(), order.getNotes(),
+                order.getVersion(), order.getCreatedAt(), order.getUpdatedAt(), orderItems);
+    }
+} 
@@ -0,0 +1,16 @@
+package dev.msundaram.checky.service;
+
+import java.time.LocalDateTime;
+
+/**
+ * An event delivered by {@link OutboxRelay}. The payload is the JSON written with the event.
+ * Delivery is at least once, so consumers should ignore ids they have already seen.
+ */
+public record OutboxEvent(long id,
+                          Long tenantId,
+                          String aggregateType,
+                          Long aggregateId,
+                          String eventType,
+                          String payload,
+                          LocalDateTime createdAt) {
+} 
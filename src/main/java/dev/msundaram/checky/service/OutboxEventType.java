@@ -0,0 +1,25 @@
+package dev.msundaram.checky.service;
+
+/**
+ * Domain events recorded in the outbox, with the type of aggregate they belong to.
+ */
+public enum OutboxEventType {
+    
+    ORDER_CREATED("Order"),
+    ORDER_STATUS_CHANGED("Order"),
+    ORDER_PAYMENT_STATUS_CHANGED("Order"),
+    INVENTORY_ITEM_CREATED("InventoryItem"),
+    INVENTORY_ITEM_UPDATED("InventoryItem"),
+    INVENTORY_ITEM_DEACTIVATED("InventoryItem"),
+    INVENTORY_STOCK_CHANGED("InventoryItem");
+    
+    private final String aggregateType;
+    
+    OutboxEventType(String aggregateType) {
+        this.aggregateType = aggregateType;
+    }
+    
+    public String aggregateType() {
+        return aggregateType;
+    }
+} 
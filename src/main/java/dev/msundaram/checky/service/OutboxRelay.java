@@ -0,0 +1,224 @@
+package dev.msundaram.checky.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Delivers outbox events to every {@link OutboxSink} and then to in-process listeners of
+ * {@link OutboxEvent}, deleting them in the same transaction once delivered. Delivery is at least
+ * once: a failing batch is rolled back and retried from its first event.
+ * <p>
+ * Restaurants are relayed one at a time, each batch in its own transaction that first takes an
+ * advisory lock on the restaurant, skipping restaurants another relay instance holds. A restaurant's
+ * events are thus only ever delivered by one instance at a time and always in sequence order, which
+ * {@link OutboxService} makes their commit order. Batches are bounded by {@code checky.outbox.batch-size};
+ * a poll keeps relaying until no deliverable events are left.
+ * <p>
+ * A failed batch only holds up its own restaurant: each poll relays every restaurant whose next event
+ * is due, however many events another restaurant has waiting. The failure is charged to the batch's first event,
+ * which is retried on its own after {@code checky.outbox.retry-delay} times its attempt count. Once it
+ * has failed {@code checky.outbox.max-attempts} times it is moved to outbox_dead_letters and the
+ * restaurant's later events are delivered.
+ */
+@Component
+@Slf4j
+public class OutboxRelay {
+    
+    // Restaurants whose next event is due, found by one probe of (tenant_id, sequence) per restaurant, so
+    // a restaurant's backlog never hides the others
+    private static final String DUE_TENANTS_SQL = """
+            WITH RECURSIVE heads AS (
+                (SELECT tenant_id, retry_at FROM outbox_events ORDER BY tenant_id, sequence LIMIT 1)
+                UNION ALL
+                SELECT next.tenant_id, next.retry_at FROM heads, LATERAL (
+                    SELECT tenant_id, retry_at FROM outbox_events WHERE tenant_id > heads.tenant_id
+                    ORDER BY tenant_id, sequence LIMIT 1) next)
+            SELECT tenant_id FROM heads WHERE retry_at IS NULL OR retry_at <= now()""";
+    
+    // hashtext('checky.outbox') namespaces the locks and the second key is the restaurant
+    private static final String LOCK_TENANT_SQL = "SELECT pg_try_advisory_xact_lock(hashtext('checky.outbox'), ?::integer)";
+    
+    // The restaurant's next event: how often it failed and whether it is waiting to be retried
+    private static final String HEAD_SQL = """
+            SELECT attempts, coalesce(retry_at > now(), false) AS waiting FROM outbox_events
+            WHERE tenant_id = ? ORDER BY sequence LIMIT 1""";
+    
+    private static final String FETCH_SQL = """
+            SELECT id, tenant_id, aggregate_type, aggregate_id, event_type, payload, created_at FROM outbox_events
+            WHERE tenant_id = ? ORDER BY sequence LIMIT ?""";
+    
+    private static final String DELETE_SQL = "DELETE FROM outbox_events WHERE id = ANY (?)";
+    
+    private static final String RETRY_SQL = """
+            UPDATE outbox_events
+            SET attempts = attempts + 1, last_error = ?, retry_at = now() + make_interval(secs => ? * (attempts + 1))
+            WHERE id = ?""";
+    
+    private static final String DEAD_LETTER_SQL = """
+            WITH dead AS (
+                DELETE FROM outbox_events WHERE id = ? AND attempts >= ?
+                RETURNING id, tenant_id, sequence, aggregate_type, aggregate_id, event_type, payload, created_at,
+                          attempts, last_error)
+            INSERT INTO outbox_dead_letters (id, tenant_id, sequence, aggregate_type, aggregate_id, event_type, payload,
+                                             created_at, attempts, last_error)
+            SELECT id, tenant_id, sequence, aggregate_type, aggregate_id, event_type, payload, created_at, attempts,
+                   last_error FROM dead""";
+    
+    private static final RowMapper<OutboxEvent> EVENT_MAPPER = (rs, rowNum) -> new OutboxEvent(
+            rs.getLong("id"),
+            rs.getLong("tenant_id"),
+            rs.getString("aggregate_type"),
+            rs.getLong("aggregate_id"),
+            rs.getString("event_type"),
+            rs.getString("payload"),
+            rs.getTimestamp("created_at").toLocalDateTime());
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<OutboxSink> sinks;
+    private final int batchSize;
+    private final boolean enabled;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Counter published;
+    private final Counter failed;
+    private final Counter deadLettered;
+    
+    public OutboxRelay(JdbcTemplate jdbcTemplate,
+                       PlatformTransactionManager transactionManager,
+                       ApplicationEventPublisher eventPublisher,
+                       ObjectProvider<OutboxSink> sinks,
+                       @Value("${checky.outbox.batch-size:500}") int batchSize,
+                       @Value("${checky.outbox.relay-enabled:true}") boolean enabled,
+                       @Value("${checky.outbox.max-attempts:10}") int maxAttempts,
+                       @Value("${checky.outbox.retry-delay:10s}") Duration retryDelay,
+                       MeterRegistry meterRegistry) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.sinks = sinks;
+        this.batchSize = Math.max(1, batchSize);
+        this.enabled = enabled;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.retryDelay = retryDelay;
+        this.published = meterRegistry.counter("checky.outbox.published");
+        this.failed = meterRegistry.counter("checky.outbox.failed-batches");
+        this.deadLettered = meterRegistry.counter("checky.outbox.dead-lettered");
+    }
+    
+    @Scheduled(fixedDelayString = "${checky.outbox.poll-interval:500ms}")
+    public void relayScheduled() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            relay();
+        } catch (RuntimeException e) {
+            log.error("Failed to relay outbox events, retrying on the next poll: {}", e.getMessage());
+        }
+    }
+    
+    /**
+     * Relays batches until no deliverable events are left and returns how many were delivered.
+     */
+    public int relay() {
+        int total = 0;
+        int relayed;
+        do {
+            relayed = 0;
+            for (Long tenantId : jdbcTemplate.queryForList(DUE_TENANTS_SQL, Long.class)) {
+                relayed += relayTenant(tenantId);
+            }
+            total += relayed;
+        } while (relayed > 0);
+        return total;
+    }
+    
+    private int relayTenant(Long tenantId) {
+        int total = 0;
+        List<OutboxEvent> batch = new ArrayList<>();
+        try {
+            boolean full;
+            do {
+                batch.clear();
+                full = Boolean.TRUE.equals(transactionTemplate.execute(status -> relayBatch(tenantId, batch)));
+                total += batch.size();
+            } while (full);
+        } catch (RuntimeException e) {
+            failed.increment();
+            log.error("Failed to relay outbox events of restaurant {}: {}", tenantId, e.getMessage());
+            if (!batch.isEmpty()) {
+                recordFailure(batch.get(0), e);
+            }
+        }
+        return total;
+    }
+    
+    // Delivers the restaurant's next events into batch and returns whether more may be waiting
+    private boolean relayBatch(Long tenantId, List<OutboxEvent> batch) {
+        if (!Boolean.TRUE.equals(jdbcTemplate.queryForObject(LOCK_TENANT_SQL, Boolean.class, tenantId))) {
+            return false;
+        }
+        // After a failure events go one at a time, so the next failure is charged to the right one
+        int limit = batchSize;
+        for (Map<String, Object> head : jdbcTemplate.queryForList(HEAD_SQL, tenantId)) {
+            if ((Boolean) head.get("waiting")) {
+                return false;
+            }
+            limit = (Integer) head.get("attempts") > 0 ? 1 : batchSize;
+        }
+        batch.addAll(jdbcTemplate.query(FETCH_SQL, EVENT_MAPPER, tenantId, limit));
+        if (batch.isEmpty()) {
+            return false;
+        }
+        
+        for (OutboxSink sink : sinks.orderedStream().toList()) {
+            try {
+                sink.publish(batch);
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IllegalStateException("Outbox sink " + sink.getClass().getSimpleName() + " failed", e);
+            }
+        }
+        for (OutboxEvent event : batch) {
+            eventPublisher.publishEvent(event);
+        }
+        
+        Long[] ids = new Long[batch.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = batch.get(i).id();
+        }
+        jdbcTemplate.update(DELETE_SQL, (Object) ids);
+        published.increment(batch.size());
+        return batch.size() == limit;
+    }
+    
+    private void recordFailure(OutboxEvent event, RuntimeException failure) {
+        Integer dead = transactionTemplate.execute(status -> {
+            jdbcTemplate.update(RETRY_SQL, String.valueOf(failure), retryDelay.toMillis() / 1000.0, event.id());
+            return jdbcTemplate.update(DEAD_LETTER_SQL, event.id(), maxAttempts);
+        });
+        if (dead != null && dead > 0) {
+            deadLettered.increment();
+            log.error("Moved outbox event {} ({}) of restaurant {} to the dead letter table after {} attempts",
+                    event.id(), event.eventType(), event.tenantId(), maxAttempts);
+        }
+    }
+} 
\ No newline at end of file
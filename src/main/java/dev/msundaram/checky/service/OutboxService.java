@@ -0,0 +1,115 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Writes domain events to the outbox. Events must be recorded in the transaction of the change they
+ * describe, so they are committed (or rolled back) with it; {@link OutboxRelay} delivers them afterwards.
+ * <p>
+ * The events are written just before the transaction commits, after its other changes are flushed.
+ * Each restaurant's events are numbered from its row in outbox_sequences, which stays locked until the
+ * commit: a transaction writing events of the same restaurant waits for it, so a restaurant's events
+ * commit in sequence order and the relay never passes one that is still in flight. Nothing but the
+ * outbox rows is written while the row is held, so the wait is short and cannot deadlock.
+ */
+@Service
+@RequiredArgsConstructor
+public class OutboxService {
+    
+    // Reserves the next count sequence numbers of a restaurant and returns the last one
+    private static final String RESERVE_SQL = """
+            INSERT INTO outbox_sequences AS s (tenant_id, last_sequence) VALUES (?, ?)
+            ON CONFLICT (tenant_id) DO UPDATE SET last_sequence = s.last_sequence + EXCLUDED.last_sequence
+            RETURNING last_sequence""";
+    
+    private static final String INSERT_SQL = """
+            INSERT INTO outbox_events (tenant_id, sequence, aggregate_type, aggregate_id, event_type, payload)
+            VALUES (?, ?, ?, ?, ?, ?::jsonb)""";
+    
+    public record Entry(Long tenantId, OutboxEventType type, Long aggregateId, Object payload) {
+    }
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Long tenantId, OutboxEventType type, Long aggregateId, Object payload) {
+        record(List.of(new Entry(tenantId, type, aggregateId, payload)));
+    }
+    
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(List<Entry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        List<Object[]> rows = pendingRows();
+        for (Entry entry : entries) {
+            rows.add(new Object[]{entry.tenantId(), null, entry.type().aggregateType(), entry.aggregateId(),
+                    entry.type().name(), toJson(entry.payload())});
+        }
+    }
+    
+    // Rows recorded in the current transaction, kept with its synchronization so a suspended outer
+    // transaction keeps its own
+    private List<Object[]> pendingRows() {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingEvents pending) {
+                return pending.rows;
+            }
+        }
+        PendingEvents pending = new PendingEvents();
+        TransactionSynchronizationManager.registerSynchronization(pending);
+        return pending.rows;
+    }
+    
+    private void write(List<Object[]> rows) {
+        // Take the transaction's other row locks before the sequence rows
+        entityManager.flush();
+        
+        // Restaurants in id order, so two transactions never wait for each other's sequence rows
+        Map<Long, List<Object[]>> rowsByTenant = new TreeMap<>();
+        for (Object[] row : rows) {
+            rowsByTenant.computeIfAbsent((Long) row[0], tenantId -> new ArrayList<>()).add(row);
+        }
+        rowsByTenant.forEach((tenantId, tenantRows) -> {
+            long sequence = jdbcTemplate.queryForObject(RESERVE_SQL, Long.class, tenantId, tenantRows.size()) - tenantRows.size();
+            for (Object[] row : tenantRows) {
+                row[1] = ++sequence;
+            }
+        });
+        jdbcTemplate.batchUpdate(INSERT_SQL, rows);
+    }
+    
+    private final class PendingEvents implements TransactionSynchronization {
+        
+        private final List<Object[]> rows = new ArrayList<>();
+        
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            write(rows);
+        }
+    }
+    
+    private String toJson(Object payload) {
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not serialize outbox payload " + payload.getClass().getSimpleName(), e);
+        }
+    }
+} 
@@ -0,0 +1,13 @@
+package dev.msundaram.checky.service;
+
+import java.util.List;
+
+/**
+ * Destination for outbox events outside the application, such as a message broker. Every sink bean
+ * receives each batch, all of one restaurant in sequence order, before in-process listeners. If it
+ * throws, the batch is retried later from its first event, so a sink may see events it already published.
+ */
+public interface OutboxSink {
+    
+    void publish(List<OutboxEvent> events) throws Exception;
+} 
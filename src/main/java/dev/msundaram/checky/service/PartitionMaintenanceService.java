@@ -0,0 +1,88 @@
+package dev.msundaram.checky.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Keeps the month partitions of orders and inventory_transactions (see V2 migration) ahead of
+ * time, so new rows never land in the default partition, and detaches months past retention.
+ */
+@Service
+@Slf4j
+public class PartitionMaintenanceService {
+    
+    private static final List<PartitionedTable> TABLES = List.of(
+            new PartitionedTable("orders", "created_at"),
+            new PartitionedTable("inventory_transactions", "transaction_date"));
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final boolean enabled;
+    private final int monthsAhead;
+    private final int hashPartitions;
+    private final int retentionMonths;
+    
+    public PartitionMaintenanceService(JdbcTemplate jdbcTemplate,
+                                       @Value("${checky.partitioning.enabled:true}") boolean enabled,
+                                       @Value("${checky.partitioning.months-ahead:3}") int monthsAhead,
+                                       @Value("${checky.partitioning.hash-partitions:8}") int hashPartitions,
+                                       @Value("${checky.partitioning.retention-months:0}") int retentionMonths) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.enabled = enabled;
+        this.monthsAhead = monthsAhead;
+        this.hashPartitions = hashPartitions;
+        this.retentionMonths = retentionMonths;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${checky.partitioning.maintenance-cron:0 0 3 * * *}")
+    public void maintainPartitions() {
+        if (!enabled) {
+            return;
+        }
+        
+        LocalDate currentMonth = LocalDate.now().withDayOfMonth(1);
+        for (PartitionedTable table : TABLES) {
+            try {
+                createFuturePartitions(table, currentMonth);
+                if (retentionMonths > 0) {
+                    detachExpiredPartitions(table, currentMonth.minusMonths(retentionMonths));
+                }
+            } catch (RuntimeException e) {
+                // Another instance may be maintaining the same partitions; retried on the next run
+                log.warn("Partition maintenance for {} failed: {}", table.name(), e.getMessage());
+            }
+        }
+    }
+    
+    private void createFuturePartitions(PartitionedTable table, LocalDate currentMonth) {
+        for (int i = 0; i <= monthsAhead; i++) {
+            LocalDate month = currentMonth.plusMonths(i);
+            Boolean created = jdbcTemplate.queryForObject(
+                    "SELECT checky_create_month_partition(?, ?, ?, ?)", Boolean.class,
+                    table.name(), table.timeColumn(), Date.valueOf(month), hashPartitions);
+            if (Boolean.TRUE.equals(created)) {
+                log.info("Created partition {} {} for {}", table.name(), month, table.timeColumn());
+            }
+        }
+    }
+    
+    private void detachExpiredPartitions(PartitionedTable table, LocalDate cutoff) {
+        List<String> detached = jdbcTemplate.queryForList(
+                "SELECT checky_detach_partitions_before(?, ?)", String.class, table.name(), Date.valueOf(cutoff));
+        if (!detached.isEmpty()) {
+            log.info("Detached {} partitions of {} before {}: {}", detached.size(), table.name(), cutoff, detached);
+        }
+    }
+    
+    private record PartitionedTable(String name, String timeColumn) {
+    }
+}
@@ -0,0 +1,65 @@
+package dev.msundaram.checky.service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Order arithmetic in {@code long} minor units (cents, the scale of the money columns). Amounts are
+ * converted from and to {@link BigDecimal} only when read from or written to entities. Percentages
+ * are rounded half up (away from zero) to the cent, exactly like the BigDecimal calculation
+ * {@code amount * rate / 100} at scale 2.
+ */
+public final class PricingEngine {
+    
+    public static final int SCALE = 2;
+    
+    // Rates are percentages with up to four decimals, e.g. 8.875% is 88_750
+    static final long RATE_SCALE = 10_000;
+    private static final long PERCENT_DIVISOR = 100 * RATE_SCALE;
+    
+    public record Totals(long subtotal, long taxAmount, long serviceCharge, long discountAmount, long totalAmount) {
+    }
+    
+    private PricingEngine() {
+    }
+    
+    public static long lineTotal(long unitPrice, int quantity) {
+        return Math.multiplyExact(unitPrice, quantity);
+    }
+    
+    /**
+     * Converts a percentage such as 8.875 to a rate for {@link #percentOf}; digits beyond the fourth
+     * decimal are rounded.
+     */
+    public static long rate(double percent) {
+        return Math.round(percent * RATE_SCALE);
+    }
+    
+    public static long percentOf(long amount, long rate) {
+        return divideHalfUp(Math.multiplyExact(amount, rate), PERCENT_DIVISOR);
+    }
+    
+    public static Totals totals(long subtotal, long discountAmount, long taxRate, long serviceChargeRate) {
+        long taxAmount = percentOf(subtotal, taxRate);
+        long serviceCharge = percentOf(subtotal, serviceChargeRate);
+        long total = Math.subtractExact(Math.addExact(Math.addExact(subtotal, taxAmount), serviceCharge), discountAmount);
+        return new Totals(subtotal, taxAmount, serviceCharge, discountAmount, total);
+    }
+    
+    public static long toMinorUnits(BigDecimal amount) {
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+    
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+    
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = dividend % divisor;
+        if (Math.abs(remainder) * 2 >= divisor) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+} 
@@ -8,7 +8,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 @Service
@@ -23,6 +26,8 @@ public class RecipeService {
     private final InventoryTransactionRepository inventoryTransactionRepository;
     private final MenuItemRepository menuItemRepository;
     private final TenantService tenantService;
+    private final DocumentNumberService documentNumberService;
+    private final OutboxService outboxService;
     
     // Recipe Management
     public List<Recipe> getAllRecipes() {
@@ -32,11 +37,7 @@ public class RecipeService {
     
     public Optional<Recipe> getRecipeById(Long recipeId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
-        Optional<Recipe> recipeOpt = recipeRepository.findById(recipeId);
-        if (recipeOpt.isPresent() && recipeOpt.get().getTenantId().equals(currentRestaurant)) {
-            return recipeOpt;
-        }
-        return Optional.empty();
+        return recipeRepository.findByIdAndTenantId(recipeId, currentRestaurant);
     }
     
     public Optional<Recipe> getRecipeByMenuItem(Long menuItemId) {
@@ -88,8 +89,8 @@ public class RecipeService {
     public Recipe updateRecipe(Long recipeId, Recipe recipeRequest) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<Recipe> existingRecipeOpt = recipeRepository.findById(recipeId);
-        if (existingRecipeOpt.isEmpty() || !existingRecipeOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<Recipe> existingRecipeOpt = recipeRepository.findByIdAndTenantId(recipeId, currentRestaurant);
+        if (existingRecipeOpt.isEmpty()) {
             throw new RuntimeException("Recipe not found");
         }
         
@@ -117,8 +118,8 @@ public class RecipeService {
     public void deleteRecipe(Long recipeId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<Recipe> recipeOpt = recipeRepository.findById(recipeId);
-        if (recipeOpt.isEmpty() || !recipeOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<Recipe> recipeOpt = recipeRepository.findByIdAndTenantId(recipeId, currentRestaurant);
+        if (recipeOpt.isEmpty()) {
             throw new RuntimeException("Recipe not found");
         }
         
@@ -140,14 +141,14 @@ public class RecipeService {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
         // Verify recipe exists and belongs to current tenant
-        Optional<Recipe> recipeOpt = recipeRepository.findById(recipeId);
-        if (recipeOpt.isEmpty() || !recipeOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<Recipe> recipeOpt = recipeRepository.findByIdAndTenantId(recipeId, currentRestaurant);
+        if (recipeOpt.isEmpty()) {
             throw new RuntimeException("Recipe not found");
         }
         
         // Verify inventory item exists and belongs to current tenant
-        Optional<InventoryItem> inventoryItemOpt = inventoryItemRepository.findById(ingredientRequest.getInventoryItemId());
-        if (inventoryItemOpt.isEmpty() || !inventoryItemOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<InventoryItem> inventoryItemOpt = inventoryItemRepository.findByIdAndTenantId(ingredientRequest.getInventoryItemId(), currentRestaurant);
+        if (inventoryItemOpt.isEmpty()) {
             throw new RuntimeException("Inventory item not found");
         }
         
@@ -169,9 +170,8 @@ public class RecipeService {
     public void removeIngredientFromRecipe(Long recipeId, Long ingredientId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<RecipeIngredient> ingredientOpt = recipeIngredientRepository.findById(ingredientId);
-        if (ingredientOpt.isEmpty() || !ingredientOpt.get().getTenantId().equals(currentRestaurant) || 
-            !ingredientOpt.get().getRecipeId().equals(recipeId)) {
+        Optional<RecipeIngredient> ingredientOpt = recipeIngredientRepository.findByIdAndTenantId(ingredientId, currentRestaurant);
+        if (ingredientOpt.isEmpty() || !ingredientOpt.get().getRecipeId().equals(recipeId)) {
             throw new RuntimeException("Recipe ingredient not found");
         }
         
@@ -190,8 +190,8 @@ public class RecipeService {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
         // Verify recipe exists and belongs to current tenant
-        Optional<Recipe> recipeOpt = recipeRepository.findById(recipeId);
-        if (recipeOpt.isEmpty() || !recipeOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<Recipe> recipeOpt = recipeRepository.findByIdAndTenantId(recipeId, currentRestaurant);
+        if (recipeOpt.isEmpty()) {
             throw new RuntimeException("Recipe not found");
         }
         
@@ -207,9 +207,8 @@ public class RecipeService {
     public void removeInstructionFromRecipe(Long recipeId, Long instructionId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<Instruction> instructionOpt = instructionRepository.findById(instructionId);
-        if (instructionOpt.isEmpty() || !instructionOpt.get().getTenantId().equals(currentRestaurant) || 
-            !instructionOpt.get().getRecipeId().equals(recipeId)) {
+        Optional<Instruction> instructionOpt = instructionRepository.findByIdAndTenantId(instructionId, currentRestaurant);
+        if (instructionOpt.isEmpty() || !instructionOpt.get().getRecipeId().equals(recipeId)) {
             throw new RuntimeException("Recipe instruction not found");
         }
         
@@ -239,7 +238,7 @@ public class RecipeService {
             BigDecimal totalQuantityNeeded = ingredient.getQuantity().multiply(BigDecimal.valueOf(quantity));
             
             // Get inventory item
-            Optional<InventoryItem> inventoryItemOpt = inventoryItemRepository.findById(ingredient.getInventoryItemId());
+            Optional<InventoryItem> inventoryItemOpt = inventoryItemRepository.findByIdAndTenantId(ingredient.getInventoryItemId(), currentRestaurant);
             if (inventoryItemOpt.isEmpty()) {
                 log.warn("Inventory item {} not found for recipe ingredient", ingredient.getInventoryItemId());
                 continue;
@@ -256,12 +255,14 @@ public class RecipeService {
             
             // Create stock-out transaction
             try {
-                inventoryTransactionRepository.save(createStockOutTransaction(inventoryItem, totalQuantityNeeded, 
-                        "Order consumption for " + recipe.getName()));
+                InventoryTransaction transaction = inventoryTransactionRepository.save(createStockOutTransaction(inventoryItem, 
+                        totalQuantityNeeded, "Order consumption for " + recipe.getName()));
                 
                 // Update inventory item stock
                 inventoryItem.setCurrentStock(inventoryItem.getCurrentStock().subtract(totalQuantityNeeded));
                 inventoryItemRepository.save(inventoryItem);
+                outboxService.record(currentRestaurant, OutboxEventType.INVENTORY_STOCK_CHANGED, inventoryItem.getId(),
+                        InventoryEventPayload.of(inventoryItem, transaction));
                 
                 log.info("Deducted {} {} of {} for recipe {}", totalQuantityNeeded, ingredient.getUnit(), 
                         inventoryItem.getName(), recipe.getName());
@@ -271,10 +272,64 @@ public class RecipeService {
         }
     }
     
+    // Deducts inventory for many order items at once, e.g. a batch of consumption events: recipes, ingredients
+    // and inventory items are loaded in one query each, and every inventory item gets a single stock-out.
+    // Takes the restaurant explicitly since it also runs outside of requests
+    @Transactional
+    public void trackInventoryForMenuItems(Long currentRestaurant, Map<Long, Integer> quantitiesByMenuItem) {
+        if (quantitiesByMenuItem.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Recipe> recipesById = new HashMap<>();
+        for (Recipe recipe : recipeRepository.findByTenantIdAndMenuItemIds(currentRestaurant, quantitiesByMenuItem.keySet())) {
+            recipesById.put(recipe.getId(), recipe);
+        }
+        if (recipesById.isEmpty()) {
+            return;
+        }
+        
+        // Total quantity needed per inventory item across all menu items
+        Map<Long, BigDecimal> requiredByInventoryItem = new HashMap<>();
+        for (RecipeIngredient ingredient : recipeIngredientRepository.findByTenantIdAndRecipeIds(
+                currentRestaurant, new ArrayList<>(recipesById.keySet()))) {
+            Integer quantity = quantitiesByMenuItem.get(recipesById.get(ingredient.getRecipeId()).getMenuItemId());
+            requiredByInventoryItem.merge(ingredient.getInventoryItemId(),
+                    ingredient.getQuantity().multiply(BigDecimal.valueOf(quantity)), BigDecimal::add);
+        }
+        
+        List<InventoryTransaction> transactions = new ArrayList<>();
+        List<InventoryItem> deductedItems = new ArrayList<>();
+        for (InventoryItem inventoryItem : inventoryItemRepository.findByTenantIdAndIdsForUpdate(currentRestaurant, requiredByInventoryItem.keySet())) {
+            BigDecimal totalQuantityNeeded = requiredByInventoryItem.get(inventoryItem.getId());
+            if (inventoryItem.getCurrentStock().compareTo(totalQuantityNeeded) < 0) {
+                log.warn("Insufficient stock for {}: required {}, available {}", 
+                        inventoryItem.getName(), totalQuantityNeeded, inventoryItem.getCurrentStock());
+                continue;
+            }
+            
+            transactions.add(createStockOutTransaction(inventoryItem, totalQuantityNeeded, "Order consumption"));
+            inventoryItem.setCurrentStock(inventoryItem.getCurrentStock().subtract(totalQuantityNeeded));
+            deductedItems.add(inventoryItem);
+        }
+        
+        inventoryTransactionRepository.saveAll(transactions);
+        inventoryItemRepository.saveAll(deductedItems);
+        
+        List<OutboxService.Entry> events = new ArrayList<>(deductedItems.size());
+        for (int i = 0; i < deductedItems.size(); i++) {
+            InventoryItem inventoryItem = deductedItems.get(i);
+            events.add(new OutboxService.Entry(currentRestaurant, OutboxEventType.INVENTORY_STOCK_CHANGED, inventoryItem.getId(),
+                    InventoryEventPayload.of(inventoryItem, transactions.get(i))));
+        }
+        outboxService.record(events);
+        log.info("Deducted stock of {} inventory items for {} menu items", deductedItems.size(), quantitiesByMenuItem.size());
+    }
+    
     private InventoryTransaction createStockOutTransaction(InventoryItem inventoryItem, BigDecimal quantity, String notes) {
         InventoryTransaction transaction = new InventoryTransaction();
         transaction.setTenantId(inventoryItem.getTenantId());
-        transaction.setTransactionNumber(generateTransactionNumber());
+        transaction.setTransactionNumber(documentNumberService.next(DocumentType.RECIPE_TRANSACTION, inventoryItem.getTenantId()));
         transaction.setInventoryItemId(inventoryItem.getId());
         transaction.setTransactionType(InventoryTransaction.TransactionType.STOCK_OUT);
         transaction.setQuantity(quantity);
@@ -286,12 +341,6 @@ public class RecipeService {
         return transaction;
     }
     
-    private String generateTransactionNumber() {
-        String timestamp = java.time.LocalDateTime.now().format(java.time.format.DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
-        Long currentRestaurant = tenantService.getCurrentRestaurant();
-        return String.format("RECIPE-%d-%s", currentRestaurant, timestamp);
-    }
-    
     // Utility Methods
     public List<String> getCuisineTypes() {
         return List.of("ITALIAN", "AMERICAN", "JAPANESE", "CHINESE", "INDIAN", "MEXICAN", "FRENCH", "THAI", "MEDITERRANEAN", "OTHER");
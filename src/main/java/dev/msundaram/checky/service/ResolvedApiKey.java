@@ -0,0 +1,19 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.ApiKey;
+
+import java.time.LocalDateTime;
+
+/**
+ * Immutable view of an active API key, as held by {@link ApiKeyCache}.
+ */
+public record ResolvedApiKey(Long keyId, Long restaurantId, LocalDateTime expiresAt) {
+    
+    public static ResolvedApiKey from(ApiKey apiKey) {
+        return new ResolvedApiKey(apiKey.getId(), apiKey.getRestaurantId(), apiKey.getExpiresAt());
+    }
+    
+    public boolean isExpiredAt(LocalDateTime time) {
+        return expiresAt != null && !expiresAt.isAfter(time);
+    }
+}
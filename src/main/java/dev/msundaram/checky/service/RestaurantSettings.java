@@ -0,0 +1,34 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Restaurant;
+
+import java.time.DateTimeException;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+
+/**
+ * Immutable snapshot of the restaurant settings needed for pricing and reporting.
+ */
+public record RestaurantSettings(Long restaurantId, double taxRate, double serviceChargeRate,
+                                 String currencyCode, ZoneId zoneId) {
+    
+    public static RestaurantSettings from(Restaurant restaurant) {
+        return new RestaurantSettings(
+                restaurant.getId(),
+                restaurant.getTaxRate() != null ? restaurant.getTaxRate() : 0.0,
+                restaurant.getServiceChargeRate() != null ? restaurant.getServiceChargeRate() : 0.0,
+                restaurant.getCurrencyCode() != null ? restaurant.getCurrencyCode() : "USD",
+                toZoneId(restaurant.getTimezone()));
+    }
+    
+    private static ZoneId toZoneId(String timezone) {
+        if (timezone == null || timezone.isBlank()) {
+            return ZoneOffset.UTC;
+        }
+        try {
+            return ZoneId.of(timezone);
+        } catch (DateTimeException e) {
+            return ZoneOffset.UTC;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package dev.msundaram.checky.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import dev.msundaram.checky.repository.RestaurantRepository;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * Per-restaurant settings, loaded lazily and invalidated by {@code RestaurantSettingsListener}
+ * whenever a Restaurant row changes, and on other instances by {@link RestaurantSettingsChangeListener}.
+ * The TTL is only a safety net.
+ */
+@Component
+public class RestaurantSettingsCache {
+    
+    private final RestaurantRepository restaurantRepository;
+    private final Cache<Long, RestaurantSettings> settings;
+    
+    public RestaurantSettingsCache(RestaurantRepository restaurantRepository,
+                                   @Value("${checky.restaurant-settings.cache.maximum-size:10000}") long maximumSize,
+                                   @Value("${checky.restaurant-settings.cache.ttl:1h}") Duration ttl,
+                                   MeterRegistry meterRegistry) {
+        this.restaurantRepository = restaurantRepository;
+        this.settings = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+        
+        CaffeineCacheMetrics.monitor(meterRegistry, settings, "restaurantSettings");
+    }
+    
+    public Optional<RestaurantSettings> get(Long restaurantId) {
+        if (restaurantId == null) {
+            return Optional.empty();
+        }
+        // Unknown restaurants are not cached (the loader returns null)
+        return Optional.ofNullable(settings.get(restaurantId, id ->
+                restaurantRepository.findById(id).map(RestaurantSettings::from).orElse(null)));
+    }
+    
+    public void invalidate(Long restaurantId) {
+        settings.invalidate(restaurantId);
+    }
+    
+    public void invalidateAll() {
+        settings.invalidateAll();
+    }
+}
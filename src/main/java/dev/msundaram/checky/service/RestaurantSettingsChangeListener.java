@@ -0,0 +1,94 @@
+package dev.msundaram.checky.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Evicts restaurant settings changed on other instances from this instance's
+ * {@link RestaurantSettingsCache}. {@code RestaurantSettingsListener} sends the restaurant id with
+ * NOTIFY in the changing transaction, so it goes out once committed. The whole cache is cleared each
+ * time the listener (re)connects, which covers anything sent while it was not listening.
+ */
+@Component
+@Slf4j
+public class RestaurantSettingsChangeListener {
+
+    public static final String CHANNEL = "checky_restaurant_settings";
+
+    private static final long RECONNECT_DELAY_MILLIS = 5_000;
+
+    private final DataSource dataSource;
+    private final RestaurantSettingsCache restaurantSettingsCache;
+    private volatile boolean running;
+    private Thread listener;
+
+    public RestaurantSettingsChangeListener(DataSource dataSource, RestaurantSettingsCache restaurantSettingsCache) {
+        this.dataSource = dataSource;
+        this.restaurantSettingsCache = restaurantSettingsCache;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        listener = new Thread(this::listen, "restaurant-settings-change-listener");
+        listener.setDaemon(true);
+        listener.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        if (listener != null) {
+            listener.interrupt();
+        }
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = dataSource.getConnection()) {
+                PGConnection pgConnection = connection.unwrap(PGConnection.class);
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + CHANNEL);
+                }
+                // Changes committed before LISTEN took effect may be cached already
+                restaurantSettingsCache.invalidateAll();
+                while (running) {
+                    PGNotification[] notifications = pgConnection.getNotifications((int) RECONNECT_DELAY_MILLIS);
+                    if (notifications != null) {
+                        for (PGNotification notification : notifications) {
+                            apply(notification.getParameter());
+                        }
+                    }
+                }
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Restaurant settings change listener failed, reconnecting: {}", e.getMessage());
+                try {
+                    Thread.sleep(RECONNECT_DELAY_MILLIS);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void apply(String restaurantId) {
+        try {
+            restaurantSettingsCache.invalidate(Long.valueOf(restaurantId));
+        } catch (NumberFormatException e) {
+            log.warn("Ignoring malformed restaurant settings notification: {}", restaurantId);
+        }
+    }
+}
\ No newline at end of file
@@ -50,11 +50,7 @@ public class RestaurantTableService {
     
     public Optional<RestaurantTable> getTableById(Long tableId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
-        Optional<RestaurantTable> tableOpt = restaurantTableRepository.findById(tableId);
-        if (tableOpt.isPresent() && tableOpt.get().getTenantId().equals(currentRestaurant)) {
-            return tableOpt;
-        }
-        return Optional.empty();
+        return restaurantTableRepository.findByIdAndTenantId(tableId, currentRestaurant);
     }
     
     public Optional<RestaurantTable> getTableByNumber(String tableNumber) {
@@ -81,8 +77,8 @@ public class RestaurantTableService {
     public RestaurantTable updateTable(Long tableId, RestaurantTable tableRequest) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<RestaurantTable> existingTableOpt = restaurantTableRepository.findById(tableId);
-        if (existingTableOpt.isEmpty() || !existingTableOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<RestaurantTable> existingTableOpt = restaurantTableRepository.findByIdAndTenantId(tableId, currentRestaurant);
+        if (existingTableOpt.isEmpty()) {
             throw new RuntimeException("Table not found");
         }
         
@@ -106,8 +102,8 @@ public class RestaurantTableService {
     public RestaurantTable updateTableStatus(Long tableId, RestaurantTable.TableStatus newStatus) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<RestaurantTable> tableOpt = restaurantTableRepository.findById(tableId);
-        if (tableOpt.isEmpty() || !tableOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<RestaurantTable> tableOpt = restaurantTableRepository.findByIdAndTenantId(tableId, currentRestaurant);
+        if (tableOpt.isEmpty()) {
             throw new RuntimeException("Table not found");
         }
         
@@ -123,8 +119,8 @@ public class RestaurantTableService {
     public void deleteTable(Long tableId) {
         Long currentRestaurant = tenantService.getCurrentRestaurant();
         
-        Optional<RestaurantTable> tableOpt = restaurantTableRepository.findById(tableId);
-        if (tableOpt.isEmpty() || !tableOpt.get().getTenantId().equals(currentRestaurant)) {
+        Optional<RestaurantTable> tableOpt = restaurantTableRepository.findByIdAndTenantId(tableId, currentRestaurant);
+        if (tableOpt.isEmpty()) {
             throw new RuntimeException("Table not found");
         }
         
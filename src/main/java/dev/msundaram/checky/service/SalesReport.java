@@ -0,0 +1,29 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sales of a restaurant over a day, week or month in its own time zone. The series has one bucket
+ * per hour for a day and one per day for a week or month, including empty ones.
+ */
+public record SalesReport(Period period,
+                          LocalDate startDate,
+                          LocalDate endDate,
+                          String currencyCode,
+                          SalesTotals totals,
+                          Map<Order.OrderType, SalesTotals> byOrderType,
+                          Map<Order.PaymentStatus, SalesTotals> byPaymentStatus,
+                          List<Bucket> series) {
+    
+    public enum Period {
+        DAY, WEEK, MONTH
+    }
+    
+    public record Bucket(LocalDateTime start, SalesTotals totals) {
+    }
+} 
\ No newline at end of file
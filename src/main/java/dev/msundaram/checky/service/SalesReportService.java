@@ -0,0 +1,169 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Sales reports served from {@code sales_hourly_rollups}, which statement triggers on orders keep
+ * current (see V13 and V17), so a report reads at most a few hundred rows whatever the number of orders.
+ * <p>
+ * Rollup hours follow orders.created_at, i.e. the server clock. A report period in the restaurant's
+ * zone starts at the first rollup hour that starts within it, so for zones whose offset from the
+ * server is not a whole number of hours an order can land in the neighbouring day.
+ */
+@Service
+@Slf4j
+public class SalesReportService {
+    
+    private static final String REPORT_SQL =
+            "SELECT hour_start, order_type, payment_status, order_count, cancelled_count, subtotal, tax_amount, " +
+            "service_charge, discount_amount, total_amount FROM sales_hourly_rollups " +
+            "WHERE tenant_id = ? AND hour_start >= ? AND hour_start < ?";
+    
+    // Taken shared by the rollup triggers for each restaurant they write for (V17)
+    private static final String LOCK_TENANT_SQL = "SELECT pg_advisory_xact_lock(hashtext('checky.sales_rollup'), ?::integer)";
+    
+    private static final String DELETE_SQL =
+            "DELETE FROM sales_hourly_rollups WHERE tenant_id = ? AND hour_start >= ? AND hour_start < ?";
+    
+    private static final String REBUILD_SQL =
+            "INSERT INTO sales_hourly_rollups (tenant_id, hour_start, order_type, payment_status, order_count, " +
+            "cancelled_count, subtotal, tax_amount, service_charge, discount_amount, total_amount) " +
+            "SELECT tenant_id, date_trunc('hour', created_at), coalesce(order_type, 'DINE_IN'), coalesce(payment_status, 'PENDING'), " +
+            "count(*) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), " +
+            "count(*) FILTER (WHERE order_status = 'CANCELLED'), " +
+            "coalesce(sum(subtotal) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0), " +
+            "coalesce(sum(tax_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0), " +
+            "coalesce(sum(service_charge) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0), " +
+            "coalesce(sum(discount_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0), " +
+            "coalesce(sum(total_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0) " +
+            "FROM orders WHERE tenant_id = ? AND created_at >= ? AND created_at < ? GROUP BY 1, 2, 3, 4";
+    
+    private final JdbcTemplate jdbcTemplate;
+    private final TenantService tenantService;
+    private final RestaurantSettingsCache restaurantSettingsCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int maxRebuildDays;
+    
+    public SalesReportService(JdbcTemplate jdbcTemplate,
+                              TenantService tenantService,
+                              RestaurantSettingsCache restaurantSettingsCache,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${checky.reports.rebuild.max-days:92}") int maxRebuildDays) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.tenantService = tenantService;
+        this.restaurantSettingsCache = restaurantSettingsCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.maxRebuildDays = maxRebuildDays;
+    }
+    
+    /**
+     * Reports the day, the Monday-to-Sunday week or the calendar month containing {@code date}.
+     */
+    public SalesReport report(SalesReport.Period period, LocalDate date) {
+        Long currentRestaurant = tenantService.getCurrentRestaurant();
+        RestaurantSettings settings = restaurantSettingsCache.get(currentRestaurant).orElse(null);
+        ZoneId zone = settings != null ? settings.zoneId() : ZoneOffset.UTC;
+        String currencyCode = settings != null ? settings.currencyCode() : "USD";
+        
+        LocalDate startDate = switch (period) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+        LocalDate endDate = switch (period) {
+            case DAY -> startDate.plusDays(1);
+            case WEEK -> startDate.plusWeeks(1);
+            case MONTH -> startDate.plusMonths(1);
+        };
+        
+        ChronoUnit bucketUnit = period == SalesReport.Period.DAY ? ChronoUnit.HOURS : ChronoUnit.DAYS;
+        Map<LocalDateTime, SalesTotals> buckets = new TreeMap<>();
+        LocalDateTime end = endDate.atStartOfDay();
+        for (LocalDateTime start = startDate.atStartOfDay(); start.isBefore(end); start = start.plus(1, bucketUnit)) {
+            buckets.put(start, SalesTotals.ZERO);
+        }
+        
+        Map<Order.OrderType, SalesTotals> byOrderType = new EnumMap<>(Order.OrderType.class);
+        Map<Order.PaymentStatus, SalesTotals> byPaymentStatus = new EnumMap<>(Order.PaymentStatus.class);
+        SalesTotals[] totals = {SalesTotals.ZERO};
+        jdbcTemplate.query(REPORT_SQL, rs -> {
+            SalesTotals row = new SalesTotals(rs.getLong("order_count"), rs.getLong("cancelled_count"),
+                    rs.getBigDecimal("subtotal"), rs.getBigDecimal("tax_amount"), rs.getBigDecimal("service_charge"),
+                    rs.getBigDecimal("discount_amount"), rs.getBigDecimal("total_amount"));
+            LocalDateTime local = toRestaurantTime(rs.getTimestamp("hour_start").toLocalDateTime(), zone)
+                    .truncatedTo(bucketUnit);
+            totals[0] = totals[0].plus(row);
+            byOrderType.merge(Order.OrderType.valueOf(rs.getString("order_type")), row, SalesTotals::plus);
+            byPaymentStatus.merge(Order.PaymentStatus.valueOf(rs.getString("payment_status")), row, SalesTotals::plus);
+            buckets.merge(local, row, SalesTotals::plus);
+        }, currentRestaurant, toServerHour(startDate, zone), toServerHour(endDate, zone));
+        
+        List<SalesReport.Bucket> series = new ArrayList<>(buckets.size());
+        buckets.forEach((start, bucket) -> series.add(new SalesReport.Bucket(start, bucket)));
+        return new SalesReport(period, startDate, endDate, currencyCode, totals[0], byOrderType, byPaymentStatus, series);
+    }
+    
+    /**
+     * Recomputes a restaurant's rollups of orders created in [startDate, endDate) from the orders
+     * table, one day per transaction. Each day takes the restaurant's rollup lock exclusively, so the
+     * restaurant's order writes wait until its rows are replaced and no concurrent update is lost;
+     * other restaurants are not held up.
+     *
+     * @return the number of rollup rows written
+     * @throws IllegalArgumentException if the range is empty or longer than {@code checky.reports.rebuild.max-days}
+     */
+    public int rebuild(Long restaurantId, LocalDate startDate, LocalDate endDate) {
+        if (!startDate.isBefore(endDate)) {
+            throw new IllegalArgumentException("Start date must be before end date");
+        }
+        if (ChronoUnit.DAYS.between(startDate, endDate) > maxRebuildDays) {
+            throw new IllegalArgumentException("A rebuild covers at most " + maxRebuildDays + " days");
+        }
+        ZoneId zone = restaurantSettingsCache.get(restaurantId).map(RestaurantSettings::zoneId).orElse(ZoneOffset.UTC);
+        
+        int rows = 0;
+        for (LocalDate day = startDate; day.isBefore(endDate); day = day.plusDays(1)) {
+            LocalDateTime from = toServerHour(day, zone);
+            LocalDateTime to = toServerHour(day.plusDays(1), zone);
+            Integer written = transactionTemplate.execute(status -> {
+                jdbcTemplate.query(LOCK_TENANT_SQL, rs -> {
+                }, restaurantId);
+                jdbcTemplate.update(DELETE_SQL, restaurantId, from, to);
+                return jdbcTemplate.update(REBUILD_SQL, restaurantId, from, to);
+            });
+            rows += written != null ? written : 0;
+        }
+        log.info("Rebuilt {} sales rollup rows from {} to {} for restaurant {}", rows, startDate, endDate, restaurantId);
+        return rows;
+    }
+    
+    // Start of the first server-clock hour that starts on or after the restaurant's midnight
+    private static LocalDateTime toServerHour(LocalDate date, ZoneId zone) {
+        LocalDateTime server = date.atStartOfDay(zone).withZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        LocalDateTime hour = server.truncatedTo(ChronoUnit.HOURS);
+        return hour.equals(server) ? hour : hour.plusHours(1);
+    }
+    
+    private static LocalDateTime toRestaurantTime(LocalDateTime serverTime, ZoneId zone) {
+        return serverTime.atZone(ZoneId.systemDefault()).withZoneSameInstant(zone).toLocalDateTime();
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,75 @@
+package dev.msundaram.checky.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Backfill job that rebuilds the sales rollups of {@code checky.reports.rebuild.start-date} to
+ * {@code end-date} (exclusive) from the orders once the instance has started, e.g. after orders were
+ * fixed by hand or restored. It is not exposed over the API: an operator sets the dates on one
+ * instance for the run. It covers the restaurants listed in {@code checky.reports.rebuild.restaurants},
+ * or all restaurants when none are listed, one at a time; a restaurant that fails is logged and skipped.
+ */
+@Component
+@Slf4j
+public class SalesRollupRebuildJob {
+    
+    private final SalesReportService salesReportService;
+    private final JdbcTemplate jdbcTemplate;
+    private final String startDate;
+    private final String endDate;
+    private final List<Long> restaurantIds;
+    
+    public SalesRollupRebuildJob(SalesReportService salesReportService,
+                                 JdbcTemplate jdbcTemplate,
+                                 @Value("${checky.reports.rebuild.start-date:}") String startDate,
+                                 @Value("${checky.reports.rebuild.end-date:}") String endDate,
+                                 @Value("${checky.reports.rebuild.restaurants:}") List<Long> restaurantIds) {
+        this.salesReportService = salesReportService;
+        this.jdbcTemplate = jdbcTemplate;
+        this.startDate = startDate;
+        this.endDate = endDate;
+        this.restaurantIds = restaurantIds;
+    }
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void runIfConfigured() {
+        if (startDate.isBlank() && endDate.isBlank()) {
+            return;
+        }
+        if (startDate.isBlank() || endDate.isBlank()) {
+            log.error("Sales rollup rebuild needs both checky.reports.rebuild.start-date and end-date");
+            return;
+        }
+        run(LocalDate.parse(startDate), LocalDate.parse(endDate));
+    }
+    
+    /**
+     * Rebuilds the range for every configured restaurant and returns the number of rollup rows written.
+     */
+    public int run(LocalDate from, LocalDate to) {
+        List<Long> restaurants = restaurantIds.isEmpty()
+                ? jdbcTemplate.queryForList("SELECT id FROM restaurants ORDER BY id", Long.class)
+                : restaurantIds;
+        int rows = 0;
+        int failed = 0;
+        for (Long restaurantId : restaurants) {
+            try {
+                rows += salesReportService.rebuild(restaurantId, from, to);
+            } catch (RuntimeException e) {
+                failed++;
+                log.error("Failed to rebuild sales rollups from {} to {} for restaurant {}: {}", from, to, restaurantId, e.getMessage());
+            }
+        }
+        log.info("Sales rollup rebuild from {} to {} wrote {} rows for {} restaurants, {} failed",
+                from, to, rows, restaurants.size() - failed, failed);
+        return rows;
+    }
+} 
\ No newline at end of file
@@ -0,0 +1,28 @@
+package dev.msundaram.checky.service;
+
+import java.math.BigDecimal;
+
+/**
+ * Sales figures of a set of orders. Cancelled orders are only counted; the amounts cover the rest.
+ */
+public record SalesTotals(long orderCount,
+                          long cancelledCount,
+                          BigDecimal subtotal,
+                          BigDecimal taxAmount,
+                          BigDecimal serviceCharge,
+                          BigDecimal discountAmount,
+                          BigDecimal totalAmount) {
+    
+    public static final SalesTotals ZERO = new SalesTotals(0, 0, BigDecimal.ZERO, BigDecimal.ZERO,
+            BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    
+    public SalesTotals plus(SalesTotals other) {
+        return new SalesTotals(orderCount + other.orderCount,
+                cancelledCount + other.cancelledCount,
+                subtotal.add(other.subtotal),
+                taxAmount.add(other.taxAmount),
+                serviceCharge.add(other.serviceCharge),
+                discountAmount.add(other.discountAmount),
+                totalAmount.add(other.totalAmount));
+    }
+} 
\ No newline at end of file
@@ -1,19 +1,14 @@
 package dev.msundaram.checky.service;
 
 import dev.msundaram.checky.entity.BaseEntity;
-import dev.msundaram.checky.security.TenantSecurityService;
-import org.springframework.beans.factory.annotation.Autowired;
+import dev.msundaram.checky.security.TenantContextHolder;
 import org.springframework.stereotype.Service;
 
 @Service
 public class TenantService {
     
-    @Autowired
-    private TenantSecurityService tenantSecurityService;
-    
     public Long getCurrentRestaurant() {
-        String tenantId = tenantSecurityService.getCurrentTenant();
-        return tenantId != null ? Long.valueOf(tenantId) : null;
+        return TenantContextHolder.currentRestaurantId();
     }
     
     public void setRestaurantOnEntity(BaseEntity entity) {
@@ -26,7 +21,7 @@ public class TenantService {
     }
     
     public boolean isAuthenticated() {
-        return tenantSecurityService.isAuthenticated();
+        return TenantContextHolder.get() != null;
     }
     
     // Legacy method for backward compatibility
@@ -0,0 +1,15 @@
+-- Transactional outbox: domain events written in the same transaction as the order or inventory
+-- change they describe, and deleted by OutboxRelay once delivered. The relay reads each
+-- restaurant's events in id order, hence the (tenant_id, id) index.
+CREATE TABLE outbox_events (
+    id             bigserial    NOT NULL,
+    tenant_id      bigint       NOT NULL,
+    aggregate_type varchar(50)  NOT NULL,
+    aggregate_id   bigint       NOT NULL,
+    event_type     varchar(100) NOT NULL,
+    payload        jsonb        NOT NULL,
+    created_at     timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT outbox_events_pkey PRIMARY KEY (id)
+);
+
+CREATE INDEX idx_outbox_events_tenant ON outbox_events (tenant_id, id);
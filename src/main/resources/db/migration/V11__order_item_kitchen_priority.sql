@@ -0,0 +1,3 @@
+-- Position of an order item on the kitchen board beyond its promised time: bumping an item raises
+-- it. Written only by KitchenQueueService, which persists board changes in the background.
+ALTER TABLE order_items ADD COLUMN kitchen_priority integer NOT NULL DEFAULT 0;
@@ -0,0 +1,3 @@
+-- Optimistic locking for orders: every status or payment transition increments version, and a
+-- client that sends the version it read gets a conflict if the order changed in between.
+ALTER TABLE orders ADD COLUMN version bigint NOT NULL DEFAULT 0;
@@ -0,0 +1,90 @@
+-- Hourly sales per restaurant, order type and payment status, kept up to date by a trigger on
+-- orders so that reports never scan orders. hour_start is the hour of orders.created_at.
+-- Cancelled orders only add to cancelled_count; the amounts cover the other orders.
+CREATE TABLE sales_hourly_rollups (
+    tenant_id       bigint         NOT NULL,
+    hour_start      timestamp(0)   NOT NULL,
+    order_type      varchar(255)   NOT NULL,
+    payment_status  varchar(255)   NOT NULL,
+    order_count     bigint         NOT NULL DEFAULT 0,
+    cancelled_count bigint         NOT NULL DEFAULT 0,
+    subtotal        numeric(14, 2) NOT NULL DEFAULT 0,
+    tax_amount      numeric(14, 2) NOT NULL DEFAULT 0,
+    service_charge  numeric(14, 2) NOT NULL DEFAULT 0,
+    discount_amount numeric(14, 2) NOT NULL DEFAULT 0,
+    total_amount    numeric(14, 2) NOT NULL DEFAULT 0,
+    CONSTRAINT sales_hourly_rollups_pkey PRIMARY KEY (tenant_id, hour_start, order_type, payment_status)
+);
+
+-- Adds (direction 1) or removes (direction -1) one order's contribution to its hour
+CREATE OR REPLACE FUNCTION checky_rollup_order(tenant bigint, created timestamp, type varchar, payment varchar,
+                                               cancelled boolean, subtotal numeric, tax numeric, service numeric,
+                                               discount numeric, total numeric, direction integer)
+RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    sign integer := CASE WHEN cancelled THEN 0 ELSE direction END;
+BEGIN
+    INSERT INTO sales_hourly_rollups AS r (tenant_id, hour_start, order_type, payment_status, order_count,
+                                           cancelled_count, subtotal, tax_amount, service_charge,
+                                           discount_amount, total_amount)
+    VALUES (tenant, date_trunc('hour', created), coalesce(type, 'DINE_IN'), coalesce(payment, 'PENDING'), sign,
+            direction - sign, sign * coalesce(subtotal, 0), sign * coalesce(tax, 0), sign * coalesce(service, 0),
+            sign * coalesce(discount, 0), sign * coalesce(total, 0))
+    ON CONFLICT (tenant_id, hour_start, order_type, payment_status) DO UPDATE SET
+        order_count     = r.order_count + EXCLUDED.order_count,
+        cancelled_count = r.cancelled_count + EXCLUDED.cancelled_count,
+        subtotal        = r.subtotal + EXCLUDED.subtotal,
+        tax_amount      = r.tax_amount + EXCLUDED.tax_amount,
+        service_charge  = r.service_charge + EXCLUDED.service_charge,
+        discount_amount = r.discount_amount + EXCLUDED.discount_amount,
+        total_amount    = r.total_amount + EXCLUDED.total_amount;
+END;
+$$;
+
+-- Moves an order's contribution when it is inserted, deleted, cancelled, or changes payment status,
+-- type or amounts. Other status changes leave the rollups alone. Rows moved between partitions are
+-- a delete plus an insert and cancel out.
+CREATE OR REPLACE FUNCTION checky_sales_rollup_trigger()
+RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'UPDATE'
+       AND (OLD.order_status = 'CANCELLED', OLD.payment_status, OLD.order_type, OLD.created_at, OLD.subtotal,
+            OLD.tax_amount, OLD.service_charge, OLD.discount_amount, OLD.total_amount)
+           IS NOT DISTINCT FROM
+           (NEW.order_status = 'CANCELLED', NEW.payment_status, NEW.order_type, NEW.created_at, NEW.subtotal,
+            NEW.tax_amount, NEW.service_charge, NEW.discount_amount, NEW.total_amount) THEN
+        RETURN NULL;
+    END IF;
+    IF TG_OP IN ('UPDATE', 'DELETE') THEN
+        PERFORM checky_rollup_order(OLD.tenant_id, OLD.created_at, OLD.order_type, OLD.payment_status,
+                                    OLD.order_status = 'CANCELLED', OLD.subtotal, OLD.tax_amount,
+                                    OLD.service_charge, OLD.discount_amount, OLD.total_amount, -1);
+    END IF;
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        PERFORM checky_rollup_order(NEW.tenant_id, NEW.created_at, NEW.order_type, NEW.payment_status,
+                                    NEW.order_status = 'CANCELLED', NEW.subtotal, NEW.tax_amount,
+                                    NEW.service_charge, NEW.discount_amount, NEW.total_amount, 1);
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+CREATE TRIGGER orders_sales_rollup
+    AFTER INSERT OR UPDATE OR DELETE ON orders
+    FOR EACH ROW EXECUTE FUNCTION checky_sales_rollup_trigger();
+
+-- Existing history
+INSERT INTO sales_hourly_rollups (tenant_id, hour_start, order_type, payment_status, order_count, cancelled_count,
+                                  subtotal, tax_amount, service_charge, discount_amount, total_amount)
+SELECT tenant_id, date_trunc('hour', created_at), coalesce(order_type, 'DINE_IN'), coalesce(payment_status, 'PENDING'),
+       count(*) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'),
+       count(*) FILTER (WHERE order_status = 'CANCELLED'),
+       coalesce(sum(subtotal) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0),
+       coalesce(sum(tax_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0),
+       coalesce(sum(service_charge) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0),
+       coalesce(sum(discount_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0),
+       coalesce(sum(total_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0)
+FROM orders
+GROUP BY 1, 2, 3, 4;
@@ -0,0 +1,3 @@
+-- GET /api/orders/status/{status} pages by (created_at, id) like the other listings
+DROP INDEX idx_orders_tenant_status_created;
+CREATE INDEX idx_orders_tenant_status_created ON orders (tenant_id, order_status, created_at DESC, id DESC);
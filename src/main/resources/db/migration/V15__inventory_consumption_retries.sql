@@ -0,0 +1,23 @@
+-- InventoryConsumptionService drains each restaurant's events in its own transaction. Events of a
+-- restaurant whose batch fails are retried after a back-off (retry_at) and, once they have failed
+-- max-attempts times, moved to inventory_consumption_dead_letters so they stop blocking the queue.
+ALTER TABLE inventory_consumption_events
+    ADD COLUMN attempts   integer      NOT NULL DEFAULT 0,
+    ADD COLUMN retry_at   timestamp(6),
+    ADD COLUMN last_error text;
+
+CREATE INDEX idx_inventory_consumption_events_tenant ON inventory_consumption_events (tenant_id, id);
+
+-- Events given up on, kept for inspection; insert them back into inventory_consumption_events to retry
+CREATE TABLE inventory_consumption_dead_letters (
+    id           bigint       NOT NULL,
+    tenant_id    bigint       NOT NULL,
+    order_id     bigint       NOT NULL,
+    menu_item_id bigint       NOT NULL,
+    quantity     integer      NOT NULL,
+    created_at   timestamp(6) NOT NULL,
+    attempts     integer      NOT NULL,
+    last_error   text,
+    failed_at    timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT inventory_consumption_dead_letters_pkey PRIMARY KEY (id)
+);
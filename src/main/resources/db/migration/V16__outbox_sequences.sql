@@ -0,0 +1,42 @@
+-- Outbox ids come from a sequence when a row is inserted, so a transaction can commit a lower id after
+-- the relay has delivered a higher one. Each restaurant's events are instead numbered from its row in
+-- outbox_sequences, which OutboxService updates in the writing transaction: writers of one restaurant
+-- queue on that row until the previous one commits, so sequence order is commit order.
+CREATE TABLE outbox_sequences (
+    tenant_id     bigint NOT NULL,
+    last_sequence bigint NOT NULL,
+    CONSTRAINT outbox_sequences_pkey PRIMARY KEY (tenant_id)
+);
+
+-- A relay failure is charged to the first event of the batch, which is then retried on its own after
+-- a back-off (retry_at) and moved to outbox_dead_letters once it has failed max-attempts times
+ALTER TABLE outbox_events
+    ADD COLUMN sequence   bigint,
+    ADD COLUMN attempts   integer NOT NULL DEFAULT 0,
+    ADD COLUMN retry_at   timestamp(6),
+    ADD COLUMN last_error text;
+
+UPDATE outbox_events SET sequence = id;
+INSERT INTO outbox_sequences (tenant_id, last_sequence)
+SELECT tenant_id, max(id) FROM outbox_events GROUP BY tenant_id;
+
+ALTER TABLE outbox_events ALTER COLUMN sequence SET NOT NULL;
+
+DROP INDEX idx_outbox_events_tenant;
+CREATE UNIQUE INDEX idx_outbox_events_tenant_sequence ON outbox_events (tenant_id, sequence);
+
+-- Events given up on, kept for inspection; insert them back into outbox_events to redeliver
+CREATE TABLE outbox_dead_letters (
+    id             bigint       NOT NULL,
+    tenant_id      bigint       NOT NULL,
+    sequence       bigint       NOT NULL,
+    aggregate_type varchar(50)  NOT NULL,
+    aggregate_id   bigint       NOT NULL,
+    event_type     varchar(100) NOT NULL,
+    payload        jsonb        NOT NULL,
+    created_at     timestamp(6) NOT NULL,
+    attempts       integer      NOT NULL,
+    last_error     text,
+    failed_at      timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT outbox_dead_letters_pkey PRIMARY KEY (id)
+);
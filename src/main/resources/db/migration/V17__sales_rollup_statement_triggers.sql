@@ -0,0 +1,89 @@
+-- The V13 row trigger upserted an order's rollup rows as each order row changed, so two bulk updates
+-- touching the same hours in a different order could deadlock on them. The rollups are now kept by
+-- statement triggers that sum each statement's changes per rollup row from its transition tables and
+-- upsert them sorted by key, so concurrent statements take the row locks in the same order.
+--
+-- The triggers also take a shared advisory lock on each restaurant they write for. A rebuild
+-- (SalesReportService.rebuild) takes it exclusively, which waits for that restaurant's writes in
+-- flight and holds off new ones until the rebuilt rows commit, without blocking other restaurants.
+DROP TRIGGER orders_sales_rollup ON orders;
+DROP FUNCTION checky_sales_rollup_trigger();
+DROP FUNCTION checky_rollup_order(bigint, timestamp, varchar, varchar, boolean, numeric, numeric, numeric,
+                                  numeric, numeric, integer);
+
+-- Adds the orders in added and removes those in removed, summed per rollup row. Cancelled orders only
+-- add to cancelled_count; the amounts cover the other orders. Changes that sum to nothing, such as
+-- status changes other than cancelling, leave the rows alone.
+CREATE OR REPLACE FUNCTION checky_rollup_orders(added orders[], removed orders[])
+RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    tenant bigint;
+BEGIN
+    FOR tenant IN SELECT tenant_id FROM unnest(added) UNION SELECT tenant_id FROM unnest(removed) ORDER BY 1 LOOP
+        PERFORM pg_advisory_xact_lock_shared(hashtext('checky.sales_rollup'), tenant::integer);
+    END LOOP;
+
+    INSERT INTO sales_hourly_rollups AS r (tenant_id, hour_start, order_type, payment_status, order_count,
+                                           cancelled_count, subtotal, tax_amount, service_charge,
+                                           discount_amount, total_amount)
+    SELECT * FROM (
+        SELECT tenant_id, date_trunc('hour', created_at) AS hour_start, coalesce(order_type, 'DINE_IN') AS order_type,
+               coalesce(payment_status, 'PENDING') AS payment_status,
+               coalesce(sum(direction) FILTER (WHERE NOT cancelled), 0) AS order_count,
+               coalesce(sum(direction) FILTER (WHERE cancelled), 0) AS cancelled_count,
+               coalesce(sum(direction * coalesce(subtotal, 0)) FILTER (WHERE NOT cancelled), 0) AS subtotal,
+               coalesce(sum(direction * coalesce(tax_amount, 0)) FILTER (WHERE NOT cancelled), 0) AS tax_amount,
+               coalesce(sum(direction * coalesce(service_charge, 0)) FILTER (WHERE NOT cancelled), 0) AS service_charge,
+               coalesce(sum(direction * coalesce(discount_amount, 0)) FILTER (WHERE NOT cancelled), 0) AS discount_amount,
+               coalesce(sum(direction * coalesce(total_amount, 0)) FILTER (WHERE NOT cancelled), 0) AS total_amount
+        FROM (SELECT o.*, order_status IS NOT DISTINCT FROM 'CANCELLED' AS cancelled, 1 AS direction FROM unnest(added) o
+              UNION ALL
+              SELECT o.*, order_status IS NOT DISTINCT FROM 'CANCELLED', -1 FROM unnest(removed) o) changes
+        GROUP BY 1, 2, 3, 4
+    ) deltas
+    WHERE (order_count, cancelled_count, subtotal, tax_amount, service_charge, discount_amount, total_amount)
+          IS DISTINCT FROM (0, 0, 0, 0, 0, 0, 0)
+    ORDER BY tenant_id, hour_start, order_type, payment_status
+    ON CONFLICT (tenant_id, hour_start, order_type, payment_status) DO UPDATE SET
+        order_count     = r.order_count + EXCLUDED.order_count,
+        cancelled_count = r.cancelled_count + EXCLUDED.cancelled_count,
+        subtotal        = r.subtotal + EXCLUDED.subtotal,
+        tax_amount      = r.tax_amount + EXCLUDED.tax_amount,
+        service_charge  = r.service_charge + EXCLUDED.service_charge,
+        discount_amount = r.discount_amount + EXCLUDED.discount_amount,
+        total_amount    = r.total_amount + EXCLUDED.total_amount;
+END;
+$$;
+
+CREATE OR REPLACE FUNCTION checky_sales_rollup_trigger()
+RETURNS trigger
+LANGUAGE plpgsql AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        PERFORM checky_rollup_orders(ARRAY(SELECT o::orders FROM new_orders o), '{}');
+    ELSIF TG_OP = 'UPDATE' THEN
+        PERFORM checky_rollup_orders(ARRAY(SELECT o::orders FROM new_orders o), ARRAY(SELECT o::orders FROM old_orders o));
+    ELSE
+        PERFORM checky_rollup_orders('{}', ARRAY(SELECT o::orders FROM old_orders o));
+    END IF;
+    RETURN NULL;
+END;
+$$;
+
+-- Transition tables allow one event per trigger. Rows moved between partitions show up in the
+-- update's old and new rows and cancel out.
+CREATE TRIGGER orders_sales_rollup_insert
+    AFTER INSERT ON orders
+    REFERENCING NEW TABLE AS new_orders
+    FOR EACH STATEMENT EXECUTE FUNCTION checky_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_update
+    AFTER UPDATE ON orders
+    REFERENCING OLD TABLE AS old_orders NEW TABLE AS new_orders
+    FOR EACH STATEMENT EXECUTE FUNCTION checky_sales_rollup_trigger();
+
+CREATE TRIGGER orders_sales_rollup_delete
+    AFTER DELETE ON orders
+    REFERENCING OLD TABLE AS old_orders
+    FOR EACH STATEMENT EXECUTE FUNCTION checky_sales_rollup_trigger();
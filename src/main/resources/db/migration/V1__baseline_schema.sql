@@ -0,0 +1,212 @@
+-- Baseline: the schema previously generated by Hibernate (ddl-auto) from the entity mappings.
+-- Existing databases are baselined at this version (spring.flyway.baseline-on-migrate).
+
+CREATE TABLE restaurants (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id           bigint NOT NULL,
+    created_at          timestamp(6),
+    updated_at          timestamp(6),
+    name                varchar(255) NOT NULL,
+    description         varchar(255),
+    address             varchar(255),
+    phone               varchar(255),
+    email               varchar(255),
+    tax_rate            double precision,
+    service_charge_rate double precision,
+    currency_code       varchar(255),
+    timezone            varchar(255),
+    is_active           boolean
+);
+
+CREATE TABLE api_keys (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id     bigint NOT NULL,
+    created_at    timestamp(6),
+    updated_at    timestamp(6),
+    key_hash      varchar(64) NOT NULL UNIQUE,
+    restaurant_id bigint NOT NULL,
+    description   varchar(255),
+    is_active     boolean,
+    last_used_at  timestamp(6),
+    expires_at    timestamp(6)
+);
+
+CREATE TABLE categories (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id     bigint NOT NULL,
+    created_at    timestamp(6),
+    updated_at    timestamp(6),
+    name          varchar(255) NOT NULL,
+    description   varchar(255),
+    display_order integer,
+    is_active     boolean
+);
+
+CREATE TABLE menu_items (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id                bigint NOT NULL,
+    created_at               timestamp(6),
+    updated_at               timestamp(6),
+    name                     varchar(255) NOT NULL,
+    description              varchar(255),
+    price                    numeric(10, 2) NOT NULL,
+    category_id              bigint REFERENCES categories (id),
+    image_url                varchar(255),
+    is_vegetarian            boolean,
+    is_gluten_free           boolean,
+    is_spicy                 boolean,
+    preparation_time_minutes integer,
+    is_available             boolean,
+    display_order            integer,
+    is_active                boolean
+);
+
+CREATE TABLE orders (
+    id              bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id       bigint NOT NULL,
+    created_at      timestamp(6),
+    updated_at      timestamp(6),
+    order_number    varchar(255) NOT NULL,
+    order_type      varchar(255),
+    order_status    varchar(255),
+    table_number    varchar(255),
+    customer_name   varchar(255),
+    customer_phone  varchar(255),
+    subtotal        numeric(10, 2),
+    tax_amount      numeric(10, 2),
+    service_charge  numeric(10, 2),
+    discount_amount numeric(10, 2),
+    total_amount    numeric(10, 2),
+    payment_method  varchar(255),
+    payment_status  varchar(255),
+    notes           varchar(255)
+);
+
+CREATE TABLE order_items (
+    id           bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id    bigint NOT NULL,
+    created_at   timestamp(6),
+    updated_at   timestamp(6),
+    order_id     bigint NOT NULL REFERENCES orders (id),
+    menu_item_id bigint NOT NULL REFERENCES menu_items (id),
+    quantity     integer NOT NULL,
+    unit_price   numeric(10, 2) NOT NULL,
+    total_price  numeric(10, 2) NOT NULL,
+    notes        varchar(255),
+    item_status  varchar(255)
+);
+
+CREATE TABLE restaurant_tables (
+    id            bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id     bigint NOT NULL,
+    created_at    timestamp(6),
+    updated_at    timestamp(6),
+    table_number  varchar(255) NOT NULL,
+    table_name    varchar(255),
+    capacity      integer NOT NULL,
+    table_status  varchar(255),
+    table_type    varchar(255),
+    location      varchar(255),
+    is_active     boolean,
+    is_reservable boolean,
+    notes         varchar(255)
+);
+
+CREATE TABLE inventory_items (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id           bigint NOT NULL,
+    created_at          timestamp(6),
+    updated_at          timestamp(6),
+    item_code           varchar(255) NOT NULL UNIQUE,
+    name                varchar(255) NOT NULL,
+    description         varchar(255),
+    category            varchar(255),
+    unit                varchar(255) NOT NULL,
+    current_stock       numeric(38, 2) NOT NULL,
+    minimum_stock       numeric(38, 2) NOT NULL,
+    reorder_level       numeric(38, 2) NOT NULL,
+    reorder_quantity    numeric(38, 2) NOT NULL,
+    unit_cost           numeric(10, 2),
+    supplier_id         bigint,
+    supplier_name       varchar(255),
+    supplier_contact    varchar(255),
+    last_restocked_date timestamp(6),
+    expiry_date         timestamp(6),
+    is_active           boolean,
+    is_perishable       boolean,
+    shelf_life_days     integer,
+    location            varchar(255),
+    notes               varchar(255)
+);
+
+CREATE TABLE inventory_transactions (
+    id                 bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id          bigint NOT NULL,
+    created_at         timestamp(6),
+    updated_at         timestamp(6),
+    transaction_number varchar(255) NOT NULL,
+    inventory_item_id  bigint NOT NULL,
+    transaction_type   varchar(255) NOT NULL,
+    quantity           numeric(38, 2) NOT NULL,
+    unit_cost          numeric(10, 2),
+    total_cost         numeric(10, 2),
+    previous_stock     numeric(38, 2),
+    new_stock          numeric(38, 2),
+    reference_number   varchar(255),
+    reference_type     varchar(255),
+    notes              varchar(255),
+    transaction_date   timestamp(6) NOT NULL,
+    expiry_date        timestamp(6),
+    batch_number       varchar(255),
+    location_from      varchar(255),
+    location_to        varchar(255),
+    is_approved        boolean,
+    approved_by        varchar(255),
+    approved_date      timestamp(6)
+);
+
+CREATE TABLE recipes (
+    id                       bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id                bigint NOT NULL,
+    created_at               timestamp(6),
+    updated_at               timestamp(6),
+    name                     varchar(255) NOT NULL,
+    description              varchar(255),
+    menu_item_id             bigint NOT NULL,
+    serving_size             integer,
+    preparation_time_minutes integer,
+    cooking_time_minutes     integer,
+    difficulty_level         varchar(255),
+    cuisine_type             varchar(255),
+    is_active                boolean,
+    is_vegetarian            boolean,
+    is_gluten_free           boolean,
+    is_spicy                 boolean,
+    notes                    varchar(255)
+);
+
+CREATE TABLE recipe_ingredients (
+    id                bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id         bigint NOT NULL,
+    created_at        timestamp(6),
+    updated_at        timestamp(6),
+    recipe_id         bigint NOT NULL REFERENCES recipes (id),
+    inventory_item_id bigint NOT NULL REFERENCES inventory_items (id),
+    quantity          numeric(38, 2) NOT NULL,
+    unit              varchar(255) NOT NULL,
+    display_order     integer,
+    notes             varchar(255)
+);
+
+CREATE TABLE instructions (
+    id                  bigint GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    tenant_id           bigint NOT NULL,
+    created_at          timestamp(6),
+    updated_at          timestamp(6),
+    recipe_id           bigint NOT NULL REFERENCES recipes (id),
+    step_number         integer NOT NULL,
+    instruction_text    text NOT NULL,
+    time_minutes        integer,
+    temperature_celsius integer,
+    notes               varchar(255)
+);
@@ -0,0 +1,221 @@
+-- Partition orders and inventory_transactions by month (range on their time column), with each
+-- month sub-partitioned by hash of tenant_id. Queries that filter on tenant_id and a time range
+-- prune down to a single hash partition of the matching months.
+--
+-- Partitioned tables cannot use identity columns or be referenced by foreign keys on id alone,
+-- so ids come from plain sequences and order_items.order_id is no longer a foreign key.
+
+-- Creates <parent>_YYYY_MM for the month starting at month_start, hash-partitioned into
+-- hash_partitions children. Rows for that month already sitting in the default partition are
+-- moved into the new partition. Does nothing if the partition already exists.
+CREATE OR REPLACE FUNCTION checky_create_month_partition(parent text, time_column text,
+                                                         month_start date, hash_partitions integer)
+RETURNS boolean
+LANGUAGE plpgsql AS $$
+DECLARE
+    month_end   date := (month_start + interval '1 month')::date;
+    month_table text := format('%s_%s', parent, to_char(month_start, 'YYYY_MM'));
+    default_table text := parent || '_default';
+    moved       bigint;
+    i           integer;
+BEGIN
+    IF to_regclass(month_table) IS NOT NULL THEN
+        RETURN false;
+    END IF;
+
+    EXECUTE format('CREATE TEMP TABLE checky_partition_rows (LIKE %I) ON COMMIT DROP', parent);
+    EXECUTE format('WITH moved AS (DELETE FROM %I WHERE %I >= %L AND %I < %L RETURNING *) '
+                   'INSERT INTO checky_partition_rows SELECT * FROM moved',
+                   default_table, time_column, month_start, time_column, month_end);
+    GET DIAGNOSTICS moved = ROW_COUNT;
+
+    EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES FROM (%L) TO (%L) PARTITION BY HASH (tenant_id)',
+                   month_table, parent, month_start, month_end);
+    FOR i IN 0 .. hash_partitions - 1 LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF %I FOR VALUES WITH (MODULUS %s, REMAINDER %s)',
+                       month_table || '_h' || i, month_table, hash_partitions, i);
+    END LOOP;
+
+    IF moved > 0 THEN
+        EXECUTE format('INSERT INTO %I SELECT * FROM checky_partition_rows', parent);
+    END IF;
+    DROP TABLE checky_partition_rows;
+    RETURN true;
+END;
+$$;
+
+-- Detaches (but keeps) every month partition of parent that ends on or before cutoff.
+-- Returns the names of the detached tables so they can be archived or dropped.
+CREATE OR REPLACE FUNCTION checky_detach_partitions_before(parent text, cutoff date)
+RETURNS SETOF text
+LANGUAGE plpgsql AS $$
+DECLARE
+    partition_name text;
+BEGIN
+    FOR partition_name IN
+        SELECT c.relname
+        FROM pg_inherits i
+        JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = parent::regclass
+          AND c.relname ~ ('^' || parent || '_[0-9]{4}_[0-9]{2}$')
+        ORDER BY c.relname
+    LOOP
+        IF (to_date(right(partition_name, 7), 'YYYY_MM') + interval '1 month')::date <= cutoff THEN
+            EXECUTE format('ALTER TABLE %I DETACH PARTITION %I', parent, partition_name);
+            RETURN NEXT partition_name;
+        END IF;
+    END LOOP;
+END;
+$$;
+
+-- Moves the existing (unpartitioned) table aside, keeping its primary key name free
+CREATE OR REPLACE FUNCTION checky_rename_for_partitioning(parent text)
+RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    pk_name text;
+BEGIN
+    EXECUTE format('ALTER TABLE %I RENAME TO %I', parent, parent || '_unpartitioned');
+    SELECT conname INTO pk_name
+    FROM pg_constraint
+    WHERE conrelid = (parent || '_unpartitioned')::regclass AND contype = 'p';
+    IF pk_name IS NOT NULL THEN
+        EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I',
+                       parent || '_unpartitioned', pk_name, parent || '_unpartitioned_pkey');
+    END IF;
+END;
+$$;
+
+-- Creates month partitions from the month of the oldest existing row up to three months ahead
+CREATE OR REPLACE FUNCTION checky_create_initial_partitions(parent text, time_column text, hash_partitions integer)
+RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    first_month date;
+    month       date;
+BEGIN
+    EXECUTE format('SELECT date_trunc(''month'', min(%I))::date FROM %I', time_column, parent || '_unpartitioned')
+        INTO first_month;
+    first_month := least(coalesce(first_month, date_trunc('month', now())::date), date_trunc('month', now())::date);
+    month := first_month;
+    WHILE month <= (date_trunc('month', now()) + interval '3 months')::date LOOP
+        PERFORM checky_create_month_partition(parent, time_column, month, hash_partitions);
+        month := (month + interval '1 month')::date;
+    END LOOP;
+END;
+$$;
+
+-- order_items.order_id can no longer reference orders(id)
+DO $$
+DECLARE
+    fk_name text;
+BEGIN
+    FOR fk_name IN
+        SELECT conname FROM pg_constraint
+        WHERE conrelid = 'order_items'::regclass AND confrelid = 'orders'::regclass AND contype = 'f'
+    LOOP
+        EXECUTE format('ALTER TABLE order_items DROP CONSTRAINT %I', fk_name);
+    END LOOP;
+END;
+$$;
+
+-- orders
+
+SELECT checky_rename_for_partitioning('orders');
+
+CREATE SEQUENCE orders_seq;
+
+CREATE TABLE orders (
+    id              bigint NOT NULL DEFAULT nextval('orders_seq'),
+    tenant_id       bigint NOT NULL,
+    created_at      timestamp(6) NOT NULL,
+    updated_at      timestamp(6),
+    order_number    varchar(255) NOT NULL,
+    order_type      varchar(255),
+    order_status    varchar(255),
+    table_number    varchar(255),
+    customer_name   varchar(255),
+    customer_phone  varchar(255),
+    subtotal        numeric(10, 2),
+    tax_amount      numeric(10, 2),
+    service_charge  numeric(10, 2),
+    discount_amount numeric(10, 2),
+    total_amount    numeric(10, 2),
+    payment_method  varchar(255),
+    payment_status  varchar(255),
+    notes           varchar(255),
+    CONSTRAINT orders_pkey PRIMARY KEY (id, tenant_id, created_at)
+) PARTITION BY RANGE (created_at);
+
+ALTER SEQUENCE orders_seq OWNED BY orders.id;
+
+CREATE TABLE orders_default PARTITION OF orders DEFAULT;
+
+SELECT checky_create_initial_partitions('orders', 'created_at', 8);
+
+INSERT INTO orders (id, tenant_id, created_at, updated_at, order_number, order_type, order_status, table_number,
+                    customer_name, customer_phone, subtotal, tax_amount, service_charge, discount_amount,
+                    total_amount, payment_method, payment_status, notes)
+SELECT id, tenant_id, coalesce(created_at, updated_at, now()), updated_at, order_number, order_type, order_status,
+       table_number, customer_name, customer_phone, subtotal, tax_amount, service_charge, discount_amount,
+       total_amount, payment_method, payment_status, notes
+FROM orders_unpartitioned;
+
+SELECT setval('orders_seq', coalesce((SELECT max(id) FROM orders), 0) + 1, false);
+
+DROP TABLE orders_unpartitioned;
+
+-- inventory_transactions
+
+SELECT checky_rename_for_partitioning('inventory_transactions');
+
+CREATE SEQUENCE inventory_transactions_seq;
+
+CREATE TABLE inventory_transactions (
+    id                 bigint NOT NULL DEFAULT nextval('inventory_transactions_seq'),
+    tenant_id          bigint NOT NULL,
+    created_at         timestamp(6),
+    updated_at         timestamp(6),
+    transaction_number varchar(255) NOT NULL,
+    inventory_item_id  bigint NOT NULL,
+    transaction_type   varchar(255) NOT NULL,
+    quantity           numeric(38, 2) NOT NULL,
+    unit_cost          numeric(10, 2),
+    total_cost         numeric(10, 2),
+    previous_stock     numeric(38, 2),
+    new_stock          numeric(38, 2),
+    reference_number   varchar(255),
+    reference_type     varchar(255),
+    notes              varchar(255),
+    transaction_date   timestamp(6) NOT NULL,
+    expiry_date        timestamp(6),
+    batch_number       varchar(255),
+    location_from      varchar(255),
+    location_to        varchar(255),
+    is_approved        boolean,
+    approved_by        varchar(255),
+    approved_date      timestamp(6),
+    CONSTRAINT inventory_transactions_pkey PRIMARY KEY (id, tenant_id, transaction_date)
+) PARTITION BY RANGE (transaction_date);
+
+ALTER SEQUENCE inventory_transactions_seq OWNED BY inventory_transactions.id;
+
+CREATE TABLE inventory_transactions_default PARTITION OF inventory_transactions DEFAULT;
+
+SELECT checky_create_initial_partitions('inventory_transactions', 'transaction_date', 8);
+
+INSERT INTO inventory_transactions (id, tenant_id, created_at, updated_at, transaction_number, inventory_item_id,
+                                    transaction_type, quantity, unit_cost, total_cost, previous_stock, new_stock,
+                                    reference_number, reference_type, notes, transaction_date, expiry_date,
+                                    batch_number, location_from, location_to, is_approved, approved_by, approved_date)
+SELECT id, tenant_id, created_at, updated_at, transaction_number, inventory_item_id, transaction_type, quantity,
+       unit_cost, total_cost, previous_stock, new_stock, reference_number, reference_type, notes, transaction_date,
+       expiry_date, batch_number, location_from, location_to, is_approved, approved_by, approved_date
+FROM inventory_transactions_unpartitioned;
+
+SELECT setval('inventory_transactions_seq', coalesce((SELECT max(id) FROM inventory_transactions), 0) + 1, false);
+
+DROP TABLE inventory_transactions_unpartitioned;
+
+DROP FUNCTION checky_rename_for_partitioning(text);
+DROP FUNCTION checky_create_initial_partitions(text, text, integer);
@@ -0,0 +1,78 @@
+-- Indexes shaped to the repository queries: tenant_id first, then the equality filters, then the
+-- ORDER BY columns. Flags that every query of a repository filters on are made partial.
+-- Indexes on the partitioned tables are created on every partition.
+
+-- restaurants / api_keys
+CREATE INDEX idx_restaurants_tenant ON restaurants (tenant_id);
+CREATE INDEX idx_api_keys_restaurant_active ON api_keys (restaurant_id) WHERE is_active = true;
+
+-- categories
+CREATE INDEX idx_categories_tenant_order ON categories (tenant_id, display_order);
+CREATE INDEX idx_categories_tenant_active_order ON categories (tenant_id, display_order) WHERE is_active = true;
+
+-- menu_items
+CREATE INDEX idx_menu_items_tenant_order ON menu_items (tenant_id, display_order);
+CREATE INDEX idx_menu_items_tenant_available_order ON menu_items (tenant_id, display_order) WHERE is_available = true;
+CREATE INDEX idx_menu_items_tenant_category_order ON menu_items (tenant_id, category_id, display_order) WHERE is_available = true;
+CREATE INDEX idx_menu_items_category ON menu_items (category_id);
+
+-- orders (partitioned)
+CREATE INDEX idx_orders_tenant_created ON orders (tenant_id, created_at DESC);
+CREATE INDEX idx_orders_tenant_status_created ON orders (tenant_id, order_status, created_at DESC);
+CREATE INDEX idx_orders_tenant_number ON orders (tenant_id, order_number);
+
+-- order_items
+CREATE INDEX idx_order_items_order ON order_items (order_id);
+CREATE INDEX idx_order_items_menu_item ON order_items (menu_item_id);
+
+-- restaurant_tables
+CREATE INDEX idx_restaurant_tables_tenant_number ON restaurant_tables (tenant_id, table_number);
+CREATE INDEX idx_restaurant_tables_tenant_active_number ON restaurant_tables (tenant_id, table_number) WHERE is_active = true;
+CREATE INDEX idx_restaurant_tables_tenant_status_number ON restaurant_tables (tenant_id, table_status, table_number);
+CREATE INDEX idx_restaurant_tables_tenant_type_number ON restaurant_tables (tenant_id, table_type, table_number);
+CREATE INDEX idx_restaurant_tables_tenant_capacity ON restaurant_tables (tenant_id, capacity) WHERE is_active = true;
+CREATE INDEX idx_restaurant_tables_tenant_reservable ON restaurant_tables (tenant_id, table_number)
+    WHERE is_reservable = true AND is_active = true;
+
+-- inventory_items
+CREATE INDEX idx_inventory_items_tenant_name ON inventory_items (tenant_id, name) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_category_name ON inventory_items (tenant_id, category, name) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_stock ON inventory_items (tenant_id, current_stock) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_expiry ON inventory_items (tenant_id, expiry_date)
+    WHERE is_perishable = true AND is_active = true;
+CREATE INDEX idx_inventory_items_tenant_supplier_name ON inventory_items (tenant_id, supplier_id, name) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_cost ON inventory_items (tenant_id, unit_cost) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_location_name ON inventory_items (tenant_id, location, name) WHERE is_active = true;
+CREATE INDEX idx_inventory_items_tenant_code ON inventory_items (tenant_id, item_code);
+
+-- inventory_transactions (partitioned)
+CREATE INDEX idx_inventory_tx_tenant_date ON inventory_transactions (tenant_id, transaction_date DESC);
+CREATE INDEX idx_inventory_tx_tenant_item_date ON inventory_transactions (tenant_id, inventory_item_id, transaction_date DESC);
+CREATE INDEX idx_inventory_tx_tenant_type_date ON inventory_transactions (tenant_id, transaction_type, transaction_date DESC);
+CREATE INDEX idx_inventory_tx_tenant_reference ON inventory_transactions (tenant_id, reference_number);
+CREATE INDEX idx_inventory_tx_tenant_number ON inventory_transactions (tenant_id, transaction_number);
+CREATE INDEX idx_inventory_tx_tenant_batch ON inventory_transactions (tenant_id, batch_number);
+CREATE INDEX idx_inventory_tx_tenant_expiry ON inventory_transactions (tenant_id, expiry_date);
+CREATE INDEX idx_inventory_tx_tenant_location_from ON inventory_transactions (tenant_id, location_from);
+CREATE INDEX idx_inventory_tx_tenant_location_to ON inventory_transactions (tenant_id, location_to);
+CREATE INDEX idx_inventory_tx_tenant_pending ON inventory_transactions (tenant_id, transaction_date DESC)
+    WHERE is_approved = false;
+
+-- recipes
+CREATE INDEX idx_recipes_tenant_name ON recipes (tenant_id, name) WHERE is_active = true;
+CREATE INDEX idx_recipes_tenant_menu_item ON recipes (tenant_id, menu_item_id) WHERE is_active = true;
+CREATE INDEX idx_recipes_tenant_menu_item_all ON recipes (tenant_id, menu_item_id);
+CREATE INDEX idx_recipes_tenant_cuisine_name ON recipes (tenant_id, cuisine_type, name) WHERE is_active = true;
+CREATE INDEX idx_recipes_tenant_difficulty_name ON recipes (tenant_id, difficulty_level, name) WHERE is_active = true;
+CREATE INDEX idx_recipes_tenant_vegetarian_name ON recipes (tenant_id, name) WHERE is_vegetarian = true AND is_active = true;
+CREATE INDEX idx_recipes_tenant_gluten_free_name ON recipes (tenant_id, name) WHERE is_gluten_free = true AND is_active = true;
+CREATE INDEX idx_recipes_tenant_prep_time ON recipes (tenant_id, preparation_time_minutes) WHERE is_active = true;
+
+-- recipe_ingredients
+CREATE INDEX idx_recipe_ingredients_tenant_recipe_order ON recipe_ingredients (tenant_id, recipe_id, display_order);
+CREATE INDEX idx_recipe_ingredients_tenant_item_recipe ON recipe_ingredients (tenant_id, inventory_item_id, recipe_id);
+CREATE INDEX idx_recipe_ingredients_recipe ON recipe_ingredients (recipe_id);
+
+-- instructions
+CREATE INDEX idx_instructions_tenant_recipe_step ON instructions (tenant_id, recipe_id, step_number);
+CREATE INDEX idx_instructions_recipe ON instructions (recipe_id);
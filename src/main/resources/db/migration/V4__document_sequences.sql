@@ -0,0 +1,10 @@
+-- Per-tenant counters for document numbers (orders, inventory transactions). Instances reserve
+-- blocks of numbers by advancing next_value and hand them out from memory, so a row is only
+-- touched once per block.
+CREATE TABLE document_sequences (
+    tenant_id     bigint      NOT NULL,
+    document_type varchar(64) NOT NULL,
+    next_value    bigint      NOT NULL,
+    updated_at    timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT document_sequences_pkey PRIMARY KEY (tenant_id, document_type)
+);
@@ -0,0 +1,39 @@
+-- Ids come from <table>_seq sequences incremented by 50, matching the pooled generators
+-- (allocationSize = 50) on the entities: each nextval hands Hibernate a block of 50 ids, so
+-- inserts no longer need a round trip per row and can be JDBC-batched. Every value v returned
+-- by nextval owns the ids (v - 49 .. v), whether it was taken by Hibernate or a column default.
+
+CREATE OR REPLACE FUNCTION checky_use_pooled_sequence(table_name text, allocation_size integer)
+RETURNS void
+LANGUAGE plpgsql AS $$
+DECLARE
+    sequence_name text := table_name || '_seq';
+    max_id        bigint;
+BEGIN
+    IF to_regclass(sequence_name) IS NULL THEN
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id DROP IDENTITY IF EXISTS', table_name);
+        EXECUTE format('CREATE SEQUENCE %I OWNED BY %I.id', sequence_name, table_name);
+        EXECUTE format('ALTER TABLE %I ALTER COLUMN id SET DEFAULT nextval(%L)', table_name, sequence_name);
+    END IF;
+    EXECUTE format('ALTER SEQUENCE %I INCREMENT BY %s', sequence_name, allocation_size);
+
+    -- The first nextval must cover a block entirely above the existing ids
+    EXECUTE format('SELECT coalesce(max(id), 0) FROM %I', table_name) INTO max_id;
+    PERFORM setval(sequence_name, max_id + allocation_size, false);
+END;
+$$;
+
+SELECT checky_use_pooled_sequence('restaurants', 50);
+SELECT checky_use_pooled_sequence('api_keys', 50);
+SELECT checky_use_pooled_sequence('categories', 50);
+SELECT checky_use_pooled_sequence('menu_items', 50);
+SELECT checky_use_pooled_sequence('orders', 50);
+SELECT checky_use_pooled_sequence('order_items', 50);
+SELECT checky_use_pooled_sequence('restaurant_tables', 50);
+SELECT checky_use_pooled_sequence('inventory_items', 50);
+SELECT checky_use_pooled_sequence('inventory_transactions', 50);
+SELECT checky_use_pooled_sequence('recipes', 50);
+SELECT checky_use_pooled_sequence('recipe_ingredients', 50);
+SELECT checky_use_pooled_sequence('instructions', 50);
+
+DROP FUNCTION checky_use_pooled_sequence(text, integer);
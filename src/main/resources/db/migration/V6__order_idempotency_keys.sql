@@ -0,0 +1,12 @@
+-- Client-generated keys of orders ingested through POST /api/orders/batch. A replayed order whose
+-- key is already here is reported as a duplicate instead of being created again.
+CREATE TABLE order_idempotency_keys (
+    tenant_id       bigint       NOT NULL,
+    idempotency_key varchar(255) NOT NULL,
+    order_id        bigint       NOT NULL,
+    order_number    varchar(255) NOT NULL,
+    created_at      timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT order_idempotency_keys_pkey PRIMARY KEY (tenant_id, idempotency_key)
+);
+
+CREATE INDEX idx_order_idempotency_keys_created ON order_idempotency_keys (created_at);
@@ -0,0 +1,15 @@
+-- Responses of mutating requests sent with an Idempotency-Key header, so retries get the original
+-- response instead of running again. status_code is NULL while the first request is executing.
+CREATE TABLE idempotency_records (
+    tenant_id           bigint       NOT NULL,
+    idempotency_key     varchar(255) NOT NULL,
+    request_fingerprint varchar(64)  NOT NULL,
+    status_code         integer,
+    content_type        varchar(255),
+    response_body       bytea,
+    created_at          timestamp(6) NOT NULL DEFAULT now(),
+    completed_at        timestamp(6),
+    CONSTRAINT idempotency_records_pkey PRIMARY KEY (tenant_id, idempotency_key)
+);
+
+CREATE INDEX idx_idempotency_records_created ON idempotency_records (created_at);
@@ -0,0 +1,12 @@
+-- Listing endpoints page by (sort key, id). Adding id to the index lets a page start directly at
+-- the cursor position and read exactly one page, however deep into the history it is.
+-- The new indexes cover every query the ones they replace served.
+
+DROP INDEX idx_orders_tenant_created;
+CREATE INDEX idx_orders_tenant_created ON orders (tenant_id, created_at DESC, id DESC);
+
+DROP INDEX idx_inventory_tx_tenant_date;
+CREATE INDEX idx_inventory_tx_tenant_date ON inventory_transactions (tenant_id, transaction_date DESC, id DESC);
+
+DROP INDEX idx_inventory_items_tenant_name;
+CREATE INDEX idx_inventory_items_tenant_name ON inventory_items (tenant_id, name, id) WHERE is_active = true;
@@ -0,0 +1,12 @@
+-- Menu item quantities consumed by orders, written in the order's transaction and drained in
+-- batches by InventoryConsumptionService, which deducts the recipe ingredients from stock.
+-- Rows are deleted once applied, so the table only holds the backlog.
+CREATE TABLE inventory_consumption_events (
+    id           bigserial    NOT NULL,
+    tenant_id    bigint       NOT NULL,
+    order_id     bigint       NOT NULL,
+    menu_item_id bigint       NOT NULL,
+    quantity     integer      NOT NULL,
+    created_at   timestamp(6) NOT NULL DEFAULT now(),
+    CONSTRAINT inventory_consumption_events_pkey PRIMARY KEY (id)
+);
@@ -0,0 +1,69 @@
+package dev.msundaram.checky.repository;
+
+import dev.msundaram.checky.entity.MenuItem;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderInsertBatchingTest {
+
+	private static final int ITEMS = 120;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	@Test
+	void largeOrderIsInsertedInBatches() {
+		MenuItem menuItem = new MenuItem();
+		menuItem.setTenantId(1L);
+		menuItem.setName("Margherita");
+		menuItem.setPrice(new BigDecimal("9.50"));
+		entityManager.persistAndFlush(menuItem);
+
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		Order order = new Order();
+		order.setTenantId(1L);
+		order.setOrderNumber("ORD-1-000001");
+		for (int i = 0; i < ITEMS; i++) {
+			OrderItem item = new OrderItem();
+			item.setTenantId(1L);
+			item.setOrder(order);
+			item.setMenuItem(menuItem);
+			item.setUnitPrice(new BigDecimal("9.50"));
+			item.setTotalPrice(new BigDecimal("9.50"));
+			order.getOrderItems().add(item);
+		}
+		orderRepository.saveAndFlush(order);
+
+		// One insert for the order, ceil(120 / 50) batches for the items and a handful of sequence
+		// calls, instead of one round trip per row
+		assertEquals(ITEMS + 1, statistics.getEntityInsertCount());
+		assertTrue(statistics.getPrepareStatementCount() <= 8,
+				"expected batched inserts but saw " + statistics.getPrepareStatementCount() + " statements");
+	}
+
+}
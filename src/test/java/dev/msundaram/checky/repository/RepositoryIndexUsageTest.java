@@ -0,0 +1,263 @@
+package dev.msundaram.checky.repository;
+
+import dev.msundaram.checky.entity.InventoryItem;
+import dev.msundaram.checky.entity.InventoryTransaction;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.RestaurantTable;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.TestFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Runs every tenant-scoped repository query against a seeded dataset, captures the SQL Hibernate
+ * generates and fails if no index can serve it: its generic plan (EXPLAIN (GENERIC_PLAN), PostgreSQL 16+)
+ * must not contain a sequential scan.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest(properties = {
+		// EXPLAIN (GENERIC_PLAN) takes unbound $n placeholders, which the extended protocol rejects
+		"spring.datasource.hikari.data-source-properties.preferQueryMode=simple",
+		"spring.jpa.properties.hibernate.session_factory.statement_inspector="
+				+ "dev.msundaram.checky.repository.RepositoryIndexUsageTest$CapturingStatementInspector"
+})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class RepositoryIndexUsageTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long TENANT = 7L;
+
+	@Autowired private JdbcTemplate jdbcTemplate;
+	@Autowired private PlatformTransactionManager transactionManager;
+	@Autowired private ApiKeyRepository apiKeyRepository;
+	@Autowired private CategoryRepository categoryRepository;
+	@Autowired private InstructionRepository instructionRepository;
+	@Autowired private InventoryItemRepository inventoryItemRepository;
+	@Autowired private InventoryTransactionRepository inventoryTransactionRepository;
+	@Autowired private MenuItemRepository menuItemRepository;
+	@Autowired private OrderRepository orderRepository;
+	@Autowired private RecipeIngredientRepository recipeIngredientRepository;
+	@Autowired private RecipeRepository recipeRepository;
+	@Autowired private RestaurantRepository restaurantRepository;
+	@Autowired private RestaurantTableRepository restaurantTableRepository;
+
+	@TestFactory
+	@Sql("/db/seed-large-dataset.sql")
+	Stream<DynamicTest> repositoryQueriesUseIndexes() {
+		return queries().entrySet().stream()
+				.map(query -> DynamicTest.dynamicTest(query.getKey(), () -> assertNoSequentialScan(query.getValue())));
+	}
+
+	private Map<String, Runnable> queries() {
+		LocalDateTime now = LocalDateTime.now();
+		Map<String, Runnable> queries = new LinkedHashMap<>();
+
+		queries.put("ApiKey.findByRestaurantIdAndActive", () -> apiKeyRepository.findByRestaurantIdAndActive(TENANT));
+		queries.put("Restaurant.findByTenantId", () -> restaurantRepository.findByTenantId(TENANT));
+
+		queries.put("Category.findByTenantIdAndActive", () -> categoryRepository.findByTenantIdAndActive(TENANT));
+		queries.put("Category.findByTenantId", () -> categoryRepository.findByTenantId(TENANT));
+		queries.put("Category.findByIdAndTenantId", () -> categoryRepository.findByIdAndTenantId(TENANT, TENANT));
+
+		queries.put("MenuItem.findByTenantIdAndAvailable", () -> menuItemRepository.findByTenantIdAndAvailable(TENANT));
+		queries.put("MenuItem.findByTenantId", () -> menuItemRepository.findByTenantId(TENANT));
+		queries.put("MenuItem.findPricesByTenantId", () -> menuItemRepository.findPricesByTenantId(TENANT));
+		queries.put("MenuItem.findByTenantIdAndCategoryId", () -> menuItemRepository.findByTenantIdAndCategoryId(TENANT, 8L));
+
+		queries.put("Order.findByTenantId", () -> orderRepository.findByTenantId(TENANT));
+		queries.put("Order.findPageByTenantId", () -> orderRepository.findPageByTenantId(TENANT, Limit.of(51)));
+		queries.put("Order.findPageByTenantIdBefore",
+				() -> orderRepository.findPageByTenantIdBefore(TENANT, now.minusDays(1), 7L, Limit.of(51)));
+		queries.put("Order.findPageByTenantIdAndStatus",
+				() -> orderRepository.findPageByTenantIdAndStatus(TENANT, Order.OrderStatus.READY, Limit.of(51)));
+		queries.put("Order.findPageByTenantIdAndStatusBefore",
+				() -> orderRepository.findPageByTenantIdAndStatusBefore(TENANT, Order.OrderStatus.READY, now.minusDays(1), 7L, Limit.of(51)));
+		queries.put("Order.findByTenantIdAndDateRange", () -> orderRepository.findByTenantIdAndDateRange(TENANT, now.minusDays(1), now));
+		queries.put("Order.findByTenantIdAndOrderNumber", () -> orderRepository.findByTenantIdAndOrderNumber(TENANT, "ORD-7"));
+		queries.put("Order.streamByTenantIdAndDateRange", () -> new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+			try (Stream<Order> orders = orderRepository.streamByTenantIdAndDateRange(TENANT, now.minusDays(1), now, 0L)) {
+				orders.findFirst();
+			}
+		}));
+		queries.put("Order.findItemsByTenantIdAndOrderIds", () -> orderRepository.findItemsByTenantIdAndOrderIds(TENANT, List.of(7L, 207L)));
+		queries.put("Order.findItemViewsByTenantIdAndOrderIds", () -> orderRepository.findItemViewsByTenantIdAndOrderIds(TENANT, List.of(7L, 207L)));
+		queries.put("Order.findByIdAndTenantId", () -> orderRepository.findByIdAndTenantId(TENANT, TENANT));
+		queries.put("Order.existsByIdAndTenantId", () -> orderRepository.existsByIdAndTenantId(TENANT, TENANT));
+
+		queries.put("RestaurantTable.findByTenantIdAndActive", () -> restaurantTableRepository.findByTenantIdAndActive(TENANT));
+		queries.put("RestaurantTable.findByTenantIdAndStatus",
+				() -> restaurantTableRepository.findByTenantIdAndStatus(TENANT, RestaurantTable.TableStatus.AVAILABLE));
+		queries.put("RestaurantTable.findByTenantIdAndType",
+				() -> restaurantTableRepository.findByTenantIdAndType(TENANT, RestaurantTable.TableType.BAR));
+		queries.put("RestaurantTable.findByTenantIdAndTableNumber", () -> restaurantTableRepository.findByTenantIdAndTableNumber(TENANT, "T7"));
+		queries.put("RestaurantTable.findByTenantIdAndCapacityGreaterThanEqual",
+				() -> restaurantTableRepository.findByTenantIdAndCapacityGreaterThanEqual(TENANT, 6));
+		queries.put("RestaurantTable.findReservableTablesByTenantId", () -> restaurantTableRepository.findReservableTablesByTenantId(TENANT));
+		queries.put("RestaurantTable.existsByTableNumberAndTenantId", () -> restaurantTableRepository.existsByTableNumberAndTenantId("T7", TENANT));
+
+		queries.put("InventoryItem.findByTenantIdAndActive", () -> inventoryItemRepository.findByTenantIdAndActive(TENANT));
+		queries.put("InventoryItem.findPageByTenantIdAndActive", () -> inventoryItemRepository.findPageByTenantIdAndActive(TENANT, Limit.of(51)));
+		queries.put("InventoryItem.findPageByTenantIdAndActiveAfter",
+				() -> inventoryItemRepository.findPageByTenantIdAndActiveAfter(TENANT, "Ingredient 1", 7L, Limit.of(51)));
+		queries.put("InventoryItem.findByTenantIdAndIdsForUpdate", () -> new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+				inventoryItemRepository.findByTenantIdAndIdsForUpdate(TENANT, List.of(7L, 207L))));
+		queries.put("InventoryItem.findByTenantIdAndCategory",
+				() -> inventoryItemRepository.findByTenantIdAndCategory(TENANT, InventoryItem.InventoryCategory.PACKAGING));
+		queries.put("InventoryItem.findLowStockItems", () -> inventoryItemRepository.findLowStockItems(TENANT));
+		queries.put("InventoryItem.findOutOfStockItems", () -> inventoryItemRepository.findOutOfStockItems(TENANT));
+		queries.put("InventoryItem.findExpiringItems", () -> inventoryItemRepository.findExpiringItems(TENANT, now.plusDays(7)));
+		queries.put("InventoryItem.findByTenantIdAndSupplier", () -> inventoryItemRepository.findByTenantIdAndSupplier(TENANT, 3L));
+		queries.put("InventoryItem.findByTenantIdAndItemCode", () -> inventoryItemRepository.findByTenantIdAndItemCode(TENANT, "INV-7"));
+		queries.put("InventoryItem.searchByTenantIdAndName", () -> inventoryItemRepository.searchByTenantIdAndName(TENANT, "dient 1"));
+		queries.put("InventoryItem.findByTenantIdAndStockGreaterThan",
+				() -> inventoryItemRepository.findByTenantIdAndStockGreaterThan(TENANT, BigDecimal.valueOf(50)));
+		queries.put("InventoryItem.findByTenantIdAndCostLessThan",
+				() -> inventoryItemRepository.findByTenantIdAndCostLessThan(TENANT, BigDecimal.TEN));
+		queries.put("InventoryItem.findByTenantIdAndLocation", () -> inventoryItemRepository.findByTenantIdAndLocation(TENANT, "Shelf 7"));
+		queries.put("InventoryItem.existsByItemCodeAndTenantId", () -> inventoryItemRepository.existsByItemCodeAndTenantId("INV-7", TENANT));
+
+		queries.put("InventoryTransaction.findByTenantId", () -> inventoryTransactionRepository.findByTenantId(TENANT));
+		queries.put("InventoryTransaction.findPageByTenantId", () -> inventoryTransactionRepository.findPageByTenantId(TENANT, Limit.of(51)));
+		queries.put("InventoryTransaction.findPageByTenantIdBefore",
+				() -> inventoryTransactionRepository.findPageByTenantIdBefore(TENANT, now.minusDays(1), 7L, Limit.of(51)));
+		queries.put("InventoryTransaction.findByTenantIdAndItemId", () -> inventoryTransactionRepository.findByTenantIdAndItemId(TENANT, 7L));
+		queries.put("InventoryTransaction.findByTenantIdAndType",
+				() -> inventoryTransactionRepository.findByTenantIdAndType(TENANT, InventoryTransaction.TransactionType.DAMAGED));
+		queries.put("InventoryTransaction.findByTenantIdAndDateRange",
+				() -> inventoryTransactionRepository.findByTenantIdAndDateRange(TENANT, now.minusDays(1), now));
+		queries.put("InventoryTransaction.findByTenantIdAndReferenceNumber",
+				() -> inventoryTransactionRepository.findByTenantIdAndReferenceNumber(TENANT, "REF-7"));
+		queries.put("InventoryTransaction.findByTenantIdAndTransactionNumber",
+				() -> inventoryTransactionRepository.findByTenantIdAndTransactionNumber(TENANT, "TXN-7"));
+		queries.put("InventoryTransaction.getTotalStockIn", () -> inventoryTransactionRepository.getTotalStockIn(TENANT, 7L));
+		queries.put("InventoryTransaction.getTotalStockOut", () -> inventoryTransactionRepository.getTotalStockOut(TENANT, 7L));
+		queries.put("InventoryTransaction.findPendingApprovals", () -> inventoryTransactionRepository.findPendingApprovals(TENANT));
+		queries.put("InventoryTransaction.findByTenantIdAndLocation",
+				() -> inventoryTransactionRepository.findByTenantIdAndLocation(TENANT, "Shelf 7"));
+		queries.put("InventoryTransaction.findByTenantIdAndBatchNumber",
+				() -> inventoryTransactionRepository.findByTenantIdAndBatchNumber(TENANT, "B-7"));
+		queries.put("InventoryTransaction.findExpiringTransactions",
+				() -> inventoryTransactionRepository.findExpiringTransactions(TENANT, now.plusDays(3)));
+		queries.put("InventoryTransaction.existsByTransactionNumberAndTenantId",
+				() -> inventoryTransactionRepository.existsByTransactionNumberAndTenantId("TXN-7", TENANT));
+
+		queries.put("Recipe.findByTenantIdAndActive", () -> recipeRepository.findByTenantIdAndActive(TENANT));
+		queries.put("Recipe.findByTenantIdAndMenuItemId", () -> recipeRepository.findByTenantIdAndMenuItemId(TENANT, 7L));
+		queries.put("Recipe.findByTenantIdAndMenuItemIds", () -> recipeRepository.findByTenantIdAndMenuItemIds(TENANT, List.of(7L, 207L)));
+		queries.put("Recipe.findByTenantIdAndCuisineType", () -> recipeRepository.findByTenantIdAndCuisineType(TENANT, "ITALIAN"));
+		queries.put("Recipe.findByTenantIdAndDifficultyLevel", () -> recipeRepository.findByTenantIdAndDifficultyLevel(TENANT, "HARD"));
+		queries.put("Recipe.findVegetarianRecipes", () -> recipeRepository.findVegetarianRecipes(TENANT));
+		queries.put("Recipe.findGlutenFreeRecipes", () -> recipeRepository.findGlutenFreeRecipes(TENANT));
+		queries.put("Recipe.searchByTenantIdAndName", () -> recipeRepository.searchByTenantIdAndName(TENANT, "cipe 1"));
+		queries.put("Recipe.findByTenantIdAndMaxPreparationTime", () -> recipeRepository.findByTenantIdAndMaxPreparationTime(TENANT, 10));
+		queries.put("Recipe.existsByMenuItemIdAndTenantId", () -> recipeRepository.existsByMenuItemIdAndTenantId(7L, TENANT));
+
+		queries.put("RecipeIngredient.findByTenantIdAndRecipeId", () -> recipeIngredientRepository.findByTenantIdAndRecipeId(TENANT, 7L));
+		queries.put("RecipeIngredient.findByTenantIdAndInventoryItemId",
+				() -> recipeIngredientRepository.findByTenantIdAndInventoryItemId(TENANT, 7L));
+		queries.put("RecipeIngredient.findByTenantIdAndRecipeIds",
+				() -> recipeIngredientRepository.findByTenantIdAndRecipeIds(TENANT, List.of(7L, 207L, 407L)));
+		queries.put("RecipeIngredient.existsByRecipeIdAndInventoryItemIdAndTenantId",
+				() -> recipeIngredientRepository.existsByRecipeIdAndInventoryItemIdAndTenantId(7L, 7L, TENANT));
+
+		queries.put("Instruction.findByTenantIdAndRecipeId", () -> instructionRepository.findByTenantIdAndRecipeId(TENANT, 7L));
+		queries.put("Instruction.findByTenantIdAndRecipeIds",
+				() -> instructionRepository.findByTenantIdAndRecipeIds(TENANT, List.of(7L, 207L, 407L)));
+		return queries;
+	}
+
+	private void assertNoSequentialScan(Runnable query) {
+		CapturingStatementInspector.STATEMENTS.clear();
+		query.run();
+		List<String> statements = new ArrayList<>(CapturingStatementInspector.STATEMENTS);
+		assertFalse(statements.isEmpty(), "query did not reach the database");
+
+		for (String sql : statements) {
+			String plan = explain(sql);
+			if (plan.contains("Seq Scan")) {
+				fail("Sequential scan in plan for:\n" + sql + "\n\n" + plan);
+			}
+		}
+	}
+
+	/**
+	 * Plans the statement with sequential scans priced out, so a Seq Scan only remains when no index
+	 * can serve the query at all (small tables and empty partitions would otherwise be scanned anyway).
+	 */
+	private String explain(String sql) {
+		return jdbcTemplate.execute((ConnectionCallback<String>) connection -> {
+			try (Statement statement = connection.createStatement()) {
+				statement.execute("SET enable_seqscan = off");
+				List<String> lines = new ArrayList<>();
+				try (ResultSet plan = statement.executeQuery("EXPLAIN (GENERIC_PLAN) " + toPositionalParameters(sql))) {
+					while (plan.next()) {
+						lines.add(plan.getString(1));
+					}
+				} finally {
+					statement.execute("RESET enable_seqscan");
+				}
+				return String.join("\n", lines);
+			}
+		});
+	}
+
+	private static String toPositionalParameters(String sql) {
+		StringBuilder result = new StringBuilder(sql.length() + 16);
+		int parameter = 0;
+		for (int i = 0; i < sql.length(); i++) {
+			char c = sql.charAt(i);
+			if (c == '?') {
+				result.append('$').append(++parameter);
+			} else {
+				result.append(c);
+			}
+		}
+		return result.toString();
+	}
+
+	public static class CapturingStatementInspector implements StatementInspector {
+
+		static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+		@Override
+		public String inspect(String sql) {
+			if (sql.regionMatches(true, 0, "select", 0, 6)) {
+				STATEMENTS.add(sql);
+			}
+			return sql;
+		}
+	}
+
+}
@@ -0,0 +1,68 @@
+package dev.msundaram.checky.repository;
+
+import dev.msundaram.checky.entity.Order;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class TenantScopedRepositoryTest {
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private Statistics statistics;
+	private Long orderId;
+
+	@BeforeEach
+	void setUp() {
+		Order order = new Order();
+		order.setTenantId(1L);
+		order.setOrderNumber("ORD-1-1");
+		orderId = entityManager.persistAndFlush(order).getId();
+		entityManager.clear();
+
+		statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+	}
+
+	@Test
+	void findsOwnRowInOneStatement() {
+		assertTrue(orderRepository.findByIdAndTenantId(orderId, 1L).isPresent());
+		assertEquals(1, statistics.getPrepareStatementCount());
+	}
+
+	@Test
+	void rejectsOtherTenantWithoutLoadingTheRow() {
+		assertFalse(orderRepository.findByIdAndTenantId(orderId, 2L).isPresent());
+		assertEquals(1, statistics.getPrepareStatementCount());
+		assertEquals(0, statistics.getEntityLoadCount());
+	}
+
+	@Test
+	void existenceCheckIsOneStatement() {
+		assertTrue(orderRepository.existsByIdAndTenantId(orderId, 1L));
+		assertFalse(orderRepository.existsByIdAndTenantId(orderId, 2L));
+		assertEquals(2, statistics.getPrepareStatementCount());
+	}
+
+}
@@ -0,0 +1,19 @@
+package dev.msundaram.checky.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ApiKeyHasherTest {
+
+	@Test
+	void matchesOnlyTheDigestOfTheSameKey() {
+		byte[] digest = ApiKeyHasher.digest("api_key_restaurant1");
+
+		assertTrue(ApiKeyHasher.matches(digest, ApiKeyHasher.hash("api_key_restaurant1")));
+		assertFalse(ApiKeyHasher.matches(digest, ApiKeyHasher.hash("api_key_restaurant2")));
+		assertFalse(ApiKeyHasher.matches(digest, null));
+	}
+
+}
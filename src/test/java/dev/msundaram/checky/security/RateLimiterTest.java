@@ -0,0 +1,32 @@
+package dev.msundaram.checky.security;
+
+import dev.msundaram.checky.config.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RateLimiterTest {
+
+	private static final Long KEY = 1L;
+	private static final Long RESTAURANT = 1L;
+
+	@Test
+	void aRequestRejectedForTheRestaurantDoesNotUseUpTheKeysToken() {
+		RateLimitProperties properties = new RateLimitProperties();
+		properties.setTenant(new RateLimitProperties.Limit(1, 1));
+		properties.setApiKey(new RateLimitProperties.Limit(2, 1));
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		RateLimiter rateLimiter = new RateLimiter(properties, meterRegistry);
+
+		assertEquals(0, rateLimiter.tryAcquire(KEY, RESTAURANT));
+		assertTrue(rateLimiter.tryAcquire(KEY, RESTAURANT) > 0);
+		assertTrue(rateLimiter.tryAcquire(KEY, RESTAURANT) > 0);
+
+		// Both rejections came from the restaurant's bucket; the key still had a token each time
+		assertEquals(2.0, meterRegistry.counter("checky.rate_limit.throttled", "scope", "tenant").count());
+		assertEquals(0.0, meterRegistry.counter("checky.rate_limit.throttled", "scope", "api_key").count());
+	}
+
+}
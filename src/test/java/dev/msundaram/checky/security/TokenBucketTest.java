@@ -0,0 +1,54 @@
+package dev.msundaram.checky.security;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenBucketTest {
+
+	@Test
+	void allowsBurstUpToCapacityThenThrottles() {
+		TokenBucket bucket = new TokenBucket(3, 1, 0);
+
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(1000, bucket.tryConsume(0));
+	}
+
+	@Test
+	void refillsOverTimeWithoutExceedingCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 10, 0);
+		bucket.tryConsume(0);
+		bucket.tryConsume(0);
+
+		assertEquals(50, bucket.tryConsume(50));
+		assertEquals(0, bucket.tryConsume(100));
+
+		// A long idle period only refills up to capacity
+		assertEquals(0, bucket.tryConsume(60_000));
+		assertEquals(0, bucket.tryConsume(60_000));
+		assertEquals(100, bucket.tryConsume(60_000));
+	}
+
+	@Test
+	void refundsATakenTokenWithoutExceedingCapacity() {
+		TokenBucket bucket = new TokenBucket(2, 1, 0);
+		bucket.tryConsume(0);
+		bucket.tryConsume(0);
+		bucket.refund();
+		bucket.refund();
+		bucket.refund();
+
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(0, bucket.tryConsume(0));
+		assertEquals(1000, bucket.tryConsume(0));
+	}
+
+	@Test
+	void rejectsCapacityThatDoesNotFitTheStateWord() {
+		assertThrows(IllegalArgumentException.class, () -> new TokenBucket(TokenBucket.MAX_CAPACITY + 1, 1, 0));
+	}
+
+}
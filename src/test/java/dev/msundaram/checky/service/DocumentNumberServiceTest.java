@@ -0,0 +1,135 @@
+package dev.msundaram.checky.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.msundaram.checky.config.DocumentNumberProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Blocks of document numbers are reserved outside the caller's transaction and connection, so
+ * refills neither reuse numbers after a rollback nor need a second connection from the caller's pool.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class DocumentNumberServiceTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long RESTAURANT = 1L;
+
+	@Autowired
+	private DataSource dataSource;
+
+	// Stands in for the application pool: smaller than the number of concurrent callers
+	private HikariDataSource callerPool;
+
+	private HikariDataSource reservationPool;
+
+	private DocumentNumberService documentNumberService;
+
+	private TransactionTemplate transactionTemplate;
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@BeforeEach
+	void setUp() {
+		new JdbcTemplate(dataSource).execute("TRUNCATE document_sequences");
+		callerPool = pool(2);
+		reservationPool = pool(1);
+		DocumentNumberProperties properties = new DocumentNumberProperties();
+		properties.setBlockSize(1);
+		documentNumberService = new DocumentNumberService(reservationPool, properties, meterRegistry);
+		transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(callerPool));
+	}
+
+	@AfterEach
+	void tearDown() {
+		callerPool.close();
+		reservationPool.close();
+	}
+
+	@Test
+	void concurrentRefillsDoNotWaitForTheCallersPool() throws Exception {
+		Set<Long> numbers = new ConcurrentSkipListSet<>();
+		ExecutorService callers = Executors.newFixedThreadPool(8);
+		try {
+			List<CompletableFuture<Void>> done = new ArrayList<>();
+			for (int caller = 0; caller < 8; caller++) {
+				// Every number needs a refill while the caller's transaction holds one of the two connections
+				done.add(CompletableFuture.runAsync(() -> {
+					for (int i = 0; i < 5; i++) {
+						transactionTemplate.executeWithoutResult(status -> {
+							new JdbcTemplate(callerPool).queryForObject("SELECT 1", Integer.class);
+							numbers.add(documentNumberService.nextValue(DocumentType.ORDER, RESTAURANT));
+						});
+					}
+				}, callers));
+			}
+			CompletableFuture.allOf(done.toArray(CompletableFuture[]::new)).get(20, TimeUnit.SECONDS);
+		} finally {
+			callers.shutdownNow();
+		}
+
+		assertEquals(LongStream.rangeClosed(1, 40).boxed().toList(), List.copyOf(numbers));
+		assertEquals(40.0, meterRegistry.counter("checky.document_numbers.blocks_reserved").count());
+	}
+
+	@Test
+	void keepsNumbersReservedByARolledBackTransaction() {
+		Set<Long> numbers = new TreeSet<>();
+		transactionTemplate.executeWithoutResult(status -> {
+			numbers.add(documentNumberService.nextValue(DocumentType.ORDER, RESTAURANT));
+			status.setRollbackOnly();
+		});
+		numbers.add(documentNumberService.nextValue(DocumentType.ORDER, RESTAURANT));
+
+		assertEquals(Set.of(1L, 2L), numbers);
+		assertEquals(3L, new JdbcTemplate(dataSource).queryForObject(
+				"SELECT next_value FROM document_sequences WHERE tenant_id = ?", Long.class, RESTAURANT));
+	}
+
+	private HikariDataSource pool(int size) {
+		HikariDataSource application = (HikariDataSource) dataSource;
+		HikariDataSource pool = new HikariDataSource();
+		pool.setJdbcUrl(application.getJdbcUrl());
+		pool.setUsername(application.getUsername());
+		pool.setPassword(application.getPassword());
+		pool.setMaximumPoolSize(size);
+		// A caller waiting on a second connection from its own pool would fail the test here
+		pool.setConnectionTimeout(5_000);
+		return pool;
+	}
+
+}
@@ -0,0 +1,221 @@
+package dev.msundaram.checky.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * A request carrying an Idempotency-Key runs once: its writes and its recorded response commit
+ * together, retries get the response back, and a claim is never taken over while its writes may
+ * still commit.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyStoreTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long TENANT = 1L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final AtomicInteger executions = new AtomicInteger();
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS idempotency_test_writes (note text)");
+		jdbcTemplate.execute("TRUNCATE idempotency_test_writes, idempotency_records");
+	}
+
+	@Test
+	void replaysTheRecordedResponseWithoutRunningAgain() {
+		IdempotencyStore store = store(Duration.ofMinutes(1));
+
+		IdempotencyStore.Result first = store.execute(TENANT, "key", "fingerprint", () -> write(201));
+		IdempotencyStore.Result retry = store.execute(TENANT, "key", "fingerprint", () -> write(201));
+		// After a restart the response comes from the database
+		IdempotencyStore.Result afterRestart = store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", () -> write(201));
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, first.outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAYED, retry.outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAYED, afterRestart.outcome());
+		assertArrayEquals(first.response().body(), afterRestart.response().body());
+		assertEquals(1, executions.get());
+		assertEquals(1, writes());
+	}
+
+	@Test
+	void rejectsAKeyReusedForADifferentRequest() {
+		IdempotencyStore store = store(Duration.ofMinutes(1));
+		store.execute(TENANT, "key", "fingerprint", () -> write(201));
+
+		IdempotencyStore.Result result = store.execute(TENANT, "key", "other", () -> write(201));
+
+		assertEquals(IdempotencyStore.Outcome.MISMATCH, result.outcome());
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void coalescesConcurrentDuplicates() throws Exception {
+		IdempotencyStore store = store(Duration.ofMinutes(1));
+		CountDownLatch running = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+
+		CompletableFuture<IdempotencyStore.Result> first = CompletableFuture.supplyAsync(() ->
+				store.execute(TENANT, "key", "fingerprint", () -> {
+					running.countDown();
+					await(release);
+					return write(201);
+				}));
+		running.await();
+		CompletableFuture<IdempotencyStore.Result> duplicate = CompletableFuture.supplyAsync(() ->
+				store.execute(TENANT, "key", "fingerprint", () -> write(201)));
+		release.countDown();
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, first.get(5, TimeUnit.SECONDS).outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAYED, duplicate.get(5, TimeUnit.SECONDS).outcome());
+		assertEquals(1, executions.get());
+	}
+
+	@Test
+	void rollsBackFailedRequestsAndLetsThemRunAgain() {
+		IdempotencyStore store = store(Duration.ofMinutes(1));
+
+		IdempotencyStore.Result serverError = store.execute(TENANT, "key", "fingerprint", () -> write(500));
+		assertEquals(0, writes());
+		assertThrows(IOException.class, () -> store.execute(TENANT, "key", "fingerprint", () -> {
+			write(201);
+			throw new IOException("client went away");
+		}));
+		assertEquals(0, writes());
+		IdempotencyStore.Result retry = store.execute(TENANT, "key", "fingerprint", () -> write(201));
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, serverError.outcome());
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, retry.outcome());
+		assertEquals(1, writes());
+	}
+
+	@Test
+	void doesNotTakeOverAClaimWhoseWritesMayStillCommit() throws Exception {
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdempotencyStore.Result> first = CompletableFuture.supplyAsync(() ->
+				store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", () -> {
+					IdempotentResponse response = write(201);
+					written.countDown();
+					await(release);
+					return response;
+				}));
+		written.await();
+
+		// Another instance that considers the claim stale right away
+		CompletableFuture<IdempotencyStore.Result> takeover = CompletableFuture.supplyAsync(() ->
+				store(Duration.ZERO).execute(TENANT, "key", "fingerprint", () -> write(201)));
+		Thread.sleep(300);
+		assertFalse(takeover.isDone());
+		release.countDown();
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, first.get(5, TimeUnit.SECONDS).outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAYED, takeover.get(5, TimeUnit.SECONDS).outcome());
+		assertEquals(1, writes());
+	}
+
+	@Test
+	void takesOverAClaimWhoseRequestDied() {
+		// Left behind by an instance that died mid-request: its transaction rolled back with it
+		jdbcTemplate.update("INSERT INTO idempotency_records (tenant_id, idempotency_key, request_fingerprint, created_at) " +
+				"VALUES (?, 'key', 'fingerprint', now() - interval '5 minutes')", TENANT);
+
+		IdempotencyStore.Result result = store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", () -> write(201));
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, result.outcome());
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT status_code = 201 FROM idempotency_records WHERE tenant_id = ? AND idempotency_key = 'key'", Boolean.class, TENANT));
+		assertEquals(1, writes());
+	}
+
+	@Test
+	void runsARequestThatCommitsItsOwnWritesOutsideTheTransaction() throws Exception {
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<IdempotencyStore.Result> first = CompletableFuture.supplyAsync(() ->
+				store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", false, () -> {
+					assertFalse(TransactionSynchronizationManager.isActualTransactionActive());
+					IdempotentResponse response = write(201);
+					written.countDown();
+					await(release);
+					return response;
+				}));
+		written.await();
+
+		// The write is committed already, and the claim keeps other instances off the key meanwhile
+		assertEquals(1, writes());
+		assertEquals(IdempotencyStore.Outcome.IN_PROGRESS,
+				store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", () -> write(201)).outcome());
+		release.countDown();
+
+		assertEquals(IdempotencyStore.Outcome.EXECUTED, first.get(5, TimeUnit.SECONDS).outcome());
+		assertEquals(IdempotencyStore.Outcome.REPLAYED,
+				store(Duration.ofMinutes(1)).execute(TENANT, "key", "fingerprint", false, () -> write(201)).outcome());
+		assertEquals(1, executions.get());
+	}
+
+	private IdempotencyStore store(Duration pendingTimeout) {
+		return new IdempotencyStore(jdbcTemplate, transactionManager, 100, Duration.ofHours(1), pendingTimeout,
+				Duration.ofSeconds(5), new SimpleMeterRegistry());
+	}
+
+	private IdempotentResponse write(int status) {
+		int execution = executions.incrementAndGet();
+		jdbcTemplate.update("INSERT INTO idempotency_test_writes (note) VALUES (?)", "execution " + execution);
+		return new IdempotentResponse("fingerprint", status, "application/json",
+				("{\"execution\":" + execution + "}").getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private int writes() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM idempotency_test_writes", Integer.class);
+	}
+
+}
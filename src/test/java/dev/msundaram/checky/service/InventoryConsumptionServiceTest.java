@@ -0,0 +1,187 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.MenuItem;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Queued consumption is applied per restaurant and summed per menu item; a restaurant whose
+ * deduction fails is retried and eventually dead-lettered without holding up the others, and a bad
+ * event only takes itself out of its batch.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryConsumptionServiceTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long HEALTHY = 1L;
+	private static final long FAILING = 2L;
+
+	// A menu item whose recipe cannot be deducted, whichever restaurant orders it
+	private static final long BROKEN_RECIPE = 99L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	// Quantities deducted per restaurant and menu item
+	private final Map<Long, Map<Long, Integer>> applied = new ConcurrentHashMap<>();
+
+	private final RecipeService recipeService = new RecipeService(null, null, null, null, null, null, null, null, null) {
+		@Override
+		public void trackInventoryForMenuItems(Long currentRestaurant, Map<Long, Integer> quantitiesByMenuItem) {
+			if (currentRestaurant == FAILING || quantitiesByMenuItem.containsKey(BROKEN_RECIPE)) {
+				throw new IllegalStateException("stock update failed");
+			}
+			quantitiesByMenuItem.forEach((menuItemId, quantity) ->
+					applied.computeIfAbsent(currentRestaurant, tenantId -> new ConcurrentHashMap<>())
+							.merge(menuItemId, quantity, Integer::sum));
+		}
+	};
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE inventory_consumption_events, inventory_consumption_dead_letters");
+	}
+
+	@Test
+	void drainsQueuedOrdersSummedPerMenuItem() {
+		InventoryConsumptionService service = service(false, 5, Duration.ofMinutes(1));
+		service.enqueue(List.of(order(HEALTHY, 10L, 2, 11L, 1), order(HEALTHY, 10L, 3)));
+
+		assertEquals(0, applied.size());
+		assertEquals(3, service.drain());
+
+		assertEquals(Map.of(HEALTHY, Map.of(10L, 5, 11L, 1)), applied);
+		assertEquals(0, queued());
+	}
+
+	@Test
+	void drainsAcrossSeveralBatches() {
+		InventoryConsumptionService service = new InventoryConsumptionService(jdbcTemplate, recipeService, transactionManager,
+				2, false, 5, Duration.ofMinutes(1), new SimpleMeterRegistry());
+		for (long orderId = 1; orderId <= 5; orderId++) {
+			service.enqueue(List.of(order(HEALTHY, 10L, 1)));
+		}
+
+		assertEquals(5, service.drain());
+
+		assertEquals(Map.of(HEALTHY, Map.of(10L, 5)), applied);
+	}
+
+	@Test
+	void keepsDrainingOtherRestaurantsWhenOneFails() {
+		InventoryConsumptionService service = service(false, 5, Duration.ofMinutes(1));
+		service.enqueue(List.of(order(FAILING, 20L, 1), order(HEALTHY, 10L, 1)));
+
+		assertEquals(1, service.drain());
+
+		assertEquals(Map.of(HEALTHY, Map.of(10L, 1)), applied);
+		// The failed event waits for its retry time and is not due again yet
+		assertEquals(1, queued());
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT attempts = 1 AND retry_at > now() AND last_error LIKE '%stock update failed%' FROM inventory_consumption_events",
+				Boolean.class));
+		assertEquals(0, service.drain());
+		assertEquals(0, deadLetters());
+	}
+
+	@Test
+	void movesEventsThatKeepFailingToTheDeadLetterTable() {
+		InventoryConsumptionService service = service(false, 2, Duration.ZERO);
+		service.enqueue(List.of(order(FAILING, 20L, 1, 21L, 2)));
+
+		service.drain();
+		assertEquals(2, queued());
+		service.drain();
+
+		assertEquals(0, queued());
+		assertEquals(2, deadLetters());
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT bool_and(attempts = 2 AND tenant_id = ?) FROM inventory_consumption_dead_letters", Boolean.class, FAILING));
+	}
+
+	@Test
+	void deadLettersOnlyTheBadEventOfAFailedBatch() {
+		InventoryConsumptionService service = service(false, 1, Duration.ZERO);
+		service.enqueue(List.of(order(HEALTHY, 10L, 1, BROKEN_RECIPE, 1, 11L, 2), order(HEALTHY, 10L, 3)));
+
+		// The batch of four fails as a whole and is applied event by event
+		assertEquals(3, service.drain());
+
+		assertEquals(Map.of(HEALTHY, Map.of(10L, 4, 11L, 2)), applied);
+		assertEquals(0, queued());
+		assertEquals(List.of(BROKEN_RECIPE), jdbcTemplate.queryForList(
+				"SELECT menu_item_id FROM inventory_consumption_dead_letters WHERE last_error LIKE '%stock update failed%'", Long.class));
+	}
+
+	@Test
+	void synchronousModeDeductsRightAwayWithoutQueueing() {
+		InventoryConsumptionService service = service(true, 5, Duration.ofMinutes(1));
+
+		service.enqueue(List.of(order(HEALTHY, 10L, 2), order(HEALTHY, 10L, 1, 11L, 4)));
+
+		assertEquals(Map.of(HEALTHY, Map.of(10L, 3, 11L, 4)), applied);
+		assertEquals(0, queued());
+		assertEquals(0, service.drain());
+	}
+
+	private InventoryConsumptionService service(boolean synchronous, int maxAttempts, Duration retryDelay) {
+		return new InventoryConsumptionService(jdbcTemplate, recipeService, transactionManager, 100, synchronous,
+				maxAttempts, retryDelay, new SimpleMeterRegistry());
+	}
+
+	// An order of the given menu items, as pairs of menu item id and quantity
+	private static Order order(long tenantId, Object... menuItemsAndQuantities) {
+		Order order = new Order();
+		order.setId(tenantId * 1000 + menuItemsAndQuantities.length);
+		order.setTenantId(tenantId);
+		for (int i = 0; i < menuItemsAndQuantities.length; i += 2) {
+			MenuItem menuItem = new MenuItem();
+			menuItem.setId((Long) menuItemsAndQuantities[i]);
+			OrderItem item = new OrderItem();
+			item.setMenuItem(menuItem);
+			item.setQuantity((Integer) menuItemsAndQuantities[i + 1]);
+			order.getOrderItems().add(item);
+		}
+		return order;
+	}
+
+	private int queued() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM inventory_consumption_events", Integer.class);
+	}
+
+	private int deadLetters() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM inventory_consumption_dead_letters", Integer.class);
+	}
+
+}
@@ -0,0 +1,164 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import dev.msundaram.checky.security.TenantContext;
+import dev.msundaram.checky.security.TenantContextHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Ordering of the kitchen board and the item changes made on it, without a database: the board's
+ * queries are answered from a map of items, and flushed changes are written back to it.
+ */
+class KitchenQueueServiceTest {
+
+	private static final long RESTAURANT = 1L;
+	private static final LocalDateTime NOW = LocalDateTime.now().withNano(0);
+
+	// The open orders' items by item id, as the board queries return them
+	private final Map<Long, KitchenTicket> items = new TreeMap<>();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final JdbcTemplate jdbcTemplate = new JdbcTemplate() {
+		@Override
+		@SuppressWarnings("unchecked")
+		public <T> List<T> query(String sql, RowMapper<T> rowMapper, Object... args) {
+			List<KitchenTicket> found = new ArrayList<>();
+			for (KitchenTicket ticket : items.values()) {
+				if (sql.contains("ANY(?)") && !Arrays.asList((Long[]) args[2]).contains(ticket.orderId())) {
+					continue;
+				}
+				if (sql.contains("oi.id = ?") && !ticket.itemId().equals(args[2])) {
+					continue;
+				}
+				found.add(ticket);
+			}
+			return (List<T>) found;
+		}
+
+		@Override
+		public int[] batchUpdate(String sql, List<Object[]> batchArgs) {
+			for (Object[] row : batchArgs) {
+				items.computeIfPresent((Long) row[2], (itemId, ticket) -> ticket
+						.withStatus(OrderItem.ItemStatus.valueOf((String) row[0])).withPriority((Integer) row[1]));
+			}
+			return new int[batchArgs.size()];
+		}
+	};
+
+	private KitchenQueueService kitchenQueueService;
+
+	@BeforeEach
+	void setUp() {
+		kitchenQueueService = new KitchenQueueService(jdbcTemplate, new TenantService(), Duration.ofMinutes(1),
+				Duration.ofHours(24), meterRegistry);
+		TenantContextHolder.set(new TenantContext(RESTAURANT, 1L));
+	}
+
+	@AfterEach
+	void tearDown() {
+		TenantContextHolder.clear();
+	}
+
+	@Test
+	void ordersTheBoardByPriorityThenPromisedTime() {
+		item(1L, 10L, 0, 30);
+		item(2L, 10L, 0, 10);
+		item(3L, 11L, 1, 40);
+		item(4L, 11L, 0, 10);
+
+		// Equal promises fall back to the item id
+		assertEquals(List.of(3L, 2L, 4L, 1L), boardIds());
+	}
+
+	@Test
+	void bumpMovesAnItemAheadOfLowerPrioritiesAndIsWrittenOnFlush() {
+		item(1L, 10L, 0, 10);
+		item(2L, 10L, 0, 40);
+		item(3L, 11L, 1, 30);
+		kitchenQueueService.getBoard();
+
+		assertEquals(1, kitchenQueueService.bump(2L).orElseThrow().priority());
+		assertEquals(List.of(3L, 2L, 1L), boardIds());
+		kitchenQueueService.bump(2L);
+		assertEquals(List.of(2L, 3L, 1L), boardIds());
+
+		assertEquals(0, items.get(2L).priority());
+		assertEquals(1, kitchenQueueService.flush());
+		assertEquals(2, items.get(2L).priority());
+		assertEquals(0, kitchenQueueService.flush());
+	}
+
+	@Test
+	void completeTakesAnItemOffTheBoardAndRecallPutsItBack() {
+		item(1L, 10L, 0, 10);
+		item(2L, 10L, 1, 20);
+		kitchenQueueService.getBoard();
+
+		assertEquals(OrderItem.ItemStatus.PREPARING, kitchenQueueService.start(2L).orElseThrow().status());
+		assertEquals(OrderItem.ItemStatus.READY, kitchenQueueService.complete(2L).orElseThrow().status());
+		assertEquals(List.of(1L), boardIds());
+		assertTrue(kitchenQueueService.complete(2L).isEmpty());
+
+		// Recalled before the completion was written, from the pending change
+		KitchenTicket recalled = kitchenQueueService.recall(2L).orElseThrow();
+		assertEquals(OrderItem.ItemStatus.PENDING, recalled.status());
+		assertEquals(1, recalled.priority());
+		assertEquals(List.of(2L, 1L), boardIds());
+
+		kitchenQueueService.complete(1L);
+		kitchenQueueService.flush();
+		assertEquals(OrderItem.ItemStatus.READY, items.get(1L).status());
+		assertEquals(OrderItem.ItemStatus.PENDING, kitchenQueueService.recall(1L).orElseThrow().status());
+		assertTrue(kitchenQueueService.recall(99L).isEmpty());
+	}
+
+	@Test
+	void followsOrdersCreatedAndFinishedOnAnyInstance() {
+		item(1L, 10L, 0, 10);
+		kitchenQueueService.getBoard();
+		item(2L, 11L, 0, 5);
+		item(3L, 12L, 0, 20);
+		items.remove(1L);
+
+		kitchenQueueService.onOrderFeedEvent(new OrderFeedEvent(RESTAURANT, 11L, true, Order.OrderStatus.PENDING));
+		kitchenQueueService.onOrderFeedEvent(new OrderFeedEvent(RESTAURANT, 10L, false, Order.OrderStatus.CANCELLED));
+		// A restaurant without a board loads it on first use
+		kitchenQueueService.onOrderFeedEvent(new OrderFeedEvent(2L, 20L, true, Order.OrderStatus.PENDING));
+
+		assertEquals(List.of(2L), boardIds());
+		assertEquals(1.0, meterRegistry.counter("checky.kitchen.board.loads").count());
+
+		// Order 12's event was lost while the listener reconnected; the reload finds it
+		kitchenQueueService.onOrderFeedMissed(new OrderFeedEvent.Missed());
+		assertEquals(List.of(2L, 3L), boardIds());
+		assertEquals(2.0, meterRegistry.counter("checky.kitchen.board.loads").count());
+	}
+
+	private void item(Long itemId, Long orderId, int priority, int preparationMinutes) {
+		items.put(itemId, new KitchenTicket(itemId, orderId, "ORD-" + orderId, Order.OrderType.DINE_IN, "T1", 100L + itemId,
+				"Item " + itemId, 1, null, OrderItem.ItemStatus.PENDING, priority, NOW, NOW.plusMinutes(preparationMinutes)));
+	}
+
+	private List<Long> boardIds() {
+		return kitchenQueueService.getBoard().stream().map(KitchenTicket::itemId).toList();
+	}
+
+}
@@ -0,0 +1,272 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.msundaram.checky.entity.Order;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Fan-out, deduplication, resume and back-pressure of the order feed, without a database: events
+ * are handed to the service as the listener would receive them.
+ */
+class OrderFeedServiceTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	private final List<Object> published = new CopyOnWriteArrayList<>();
+
+	private OrderFeedService feedService;
+
+	@AfterEach
+	void tearDown() {
+		feedService.stop();
+	}
+
+	@Test
+	void deliversEachEventOnceToTheRestaurantsSubscribers() {
+		feedService = feedService(10, 10, 4, Duration.ofMinutes(5));
+		RecordingEmitter first = subscribe(1L, null);
+		RecordingEmitter second = subscribe(2L, null);
+
+		// Ids are not in commit order, and the outbox may deliver an event again
+		event(1L, 5);
+		event(1L, 3);
+		event(1L, 5);
+		event(2L, 7);
+
+		assertEquals(List.of("5", "3"), first.awaitIds(2));
+		assertEquals(List.of("7"), second.awaitIds(1));
+		sleep(100);
+		assertEquals(List.of("5", "3"), first.ids());
+	}
+
+	@Test
+	void resumesAfterTheLastEventIdInDeliveryOrder() {
+		feedService = feedService(10, 10, 4, Duration.ofMinutes(5));
+		subscribe(1L, null);
+		event(1L, 5);
+		event(1L, 3);
+		event(1L, 8);
+
+		RecordingEmitter resumed = subscribe(1L, 5L);
+
+		assertEquals(List.of("3", "8"), resumed.awaitIds(2));
+		assertFalse(resumed.wasReset());
+	}
+
+	@Test
+	void resetsWhenTheLastEventIdIsNoLongerKept() {
+		feedService = feedService(2, 10, 4, Duration.ofMinutes(5));
+		subscribe(1L, null);
+		event(1L, 1);
+		event(1L, 2);
+		event(1L, 3);
+
+		RecordingEmitter evicted = subscribe(1L, 1L);
+		RecordingEmitter unknown = subscribe(1L, 99L);
+		RecordingEmitter kept = subscribe(1L, 2L);
+
+		assertTrue(evicted.awaitReset());
+		assertTrue(unknown.awaitReset());
+		assertEquals(List.of("3"), kept.awaitIds(1));
+	}
+
+	@Test
+	void disconnectsASubscriberThatFallsBehind() {
+		feedService = feedService(1, 1, 4, Duration.ofMinutes(5));
+		RecordingEmitter slow = subscribe(1L, null);
+		CountDownLatch release = slow.block();
+
+		// One event in the blocked send and two in the buffer, which holds replay-size + subscriber-buffer
+		event(1L, 1);
+		slow.awaitBlocked();
+		event(1L, 2);
+		event(1L, 3);
+		event(1L, 4);
+		assertEquals(1.0, meterRegistry.counter("checky.orders.feed.overflows").count());
+		assertEquals(0.0, meterRegistry.get("checky.orders.feed.subscribers").gauge().value());
+		release.countDown();
+
+		assertTrue(slow.awaitCompleted());
+		assertEquals(List.of("1"), slow.ids());
+	}
+
+	@Test
+	void keepsServingOtherSubscribersWhileASendIsStalled() {
+		feedService = feedService(10, 10, 1, Duration.ofMinutes(5));
+		RecordingEmitter stalled = subscribe(1L, null);
+		RecordingEmitter other = subscribe(2L, null);
+		CountDownLatch release = stalled.block();
+
+		// The only dispatch thread is stuck sending to the stalled subscriber
+		event(1L, 1);
+		stalled.awaitBlocked();
+		event(2L, 2);
+		sleep(200);
+		assertEquals(List.of(), other.ids());
+
+		feedService.compensateStalledSends();
+
+		assertEquals(List.of("2"), other.awaitIds(1));
+		release.countDown();
+		assertEquals(List.of("1"), stalled.awaitIds(1));
+	}
+
+	@Test
+	void dropsTheEventsOfRestaurantsNobodyWatches() {
+		feedService = feedService(10, 10, 4, Duration.ZERO);
+		event(3L, 1);
+		assertTrue(subscribe(3L, 1L).awaitReset());
+
+		RecordingEmitter leaving = subscribe(4L, null);
+		leaving.disconnect();
+		event(4L, 2);
+		assertTrue(leaving.awaitCompleted());
+		feedService.sendHeartbeats();
+
+		assertEquals(1.0, meterRegistry.get("checky.orders.feed.restaurants").gauge().value());
+		assertTrue(subscribe(4L, 2L).awaitReset());
+	}
+
+	@Test
+	void publishesEveryEventInProcessWhetherWatchedOrNot() {
+		feedService = feedService(10, 10, 4, Duration.ofMinutes(5));
+		subscribe(1L, null);
+
+		event(1L, 5);
+		event(2L, 6);
+		feedService.dispatch("{\"id\":7,\"tenantId\":2,\"name\":\"order-cancelled\",\"data\":{\"orderId\":6,\"orderStatus\":\"CANCELLED\"}}");
+		feedService.dispatch("not json");
+
+		assertEquals(List.of(
+				new OrderFeedEvent(1L, 5L, true, null),
+				new OrderFeedEvent(2L, 6L, true, null),
+				new OrderFeedEvent(2L, 6L, false, Order.OrderStatus.CANCELLED)), published);
+	}
+
+	private OrderFeedService feedService(int replaySize, int subscriberBuffer, int dispatchThreads, Duration idleRetention) {
+		return new OrderFeedService(null, new ObjectMapper(), published::add, true, Duration.ofMinutes(30), replaySize, subscriberBuffer,
+				dispatchThreads, Duration.ofMillis(50), idleRetention, meterRegistry);
+	}
+
+	private RecordingEmitter subscribe(Long restaurantId, Long lastEventId) {
+		RecordingEmitter emitter = new RecordingEmitter();
+		feedService.subscribe(restaurantId, lastEventId, emitter);
+		return emitter;
+	}
+
+	private void event(long restaurantId, long id) {
+		feedService.dispatch("{\"id\":" + id + ",\"tenantId\":" + restaurantId + ",\"name\":\"order-created\",\"data\":{\"orderId\":" + id + "}}");
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static final class RecordingEmitter extends SseEmitter {
+
+		private final List<String> events = new CopyOnWriteArrayList<>();
+		private final CountDownLatch completed = new CountDownLatch(1);
+		private final CountDownLatch blocked = new CountDownLatch(1);
+		private volatile CountDownLatch gate;
+		private volatile boolean disconnected;
+
+		@Override
+		public void send(SseEventBuilder builder) throws IOException {
+			if (disconnected) {
+				throw new IOException("Broken pipe");
+			}
+			CountDownLatch release = gate;
+			if (release != null) {
+				blocked.countDown();
+				try {
+					release.await(5, TimeUnit.SECONDS);
+				} catch (InterruptedException e) {
+					throw new IOException(e);
+				}
+			}
+			StringBuilder text = new StringBuilder();
+			builder.build().forEach(part -> text.append(part.getData()));
+			events.add(text.toString());
+		}
+
+		@Override
+		public void complete() {
+			completed.countDown();
+		}
+
+		CountDownLatch block() {
+			gate = new CountDownLatch(1);
+			return gate;
+		}
+
+		void disconnect() {
+			disconnected = true;
+		}
+
+		void awaitBlocked() {
+			await(blocked);
+		}
+
+		boolean awaitCompleted() {
+			return await(completed);
+		}
+
+		List<String> ids() {
+			List<String> ids = new ArrayList<>();
+			for (String event : events) {
+				if (event.startsWith("id:")) {
+					ids.add(event.substring(3, event.indexOf('\n')));
+				}
+			}
+			return ids;
+		}
+
+		List<String> awaitIds(int count) {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (ids().size() < count && System.nanoTime() < deadline) {
+				sleep(10);
+			}
+			return ids();
+		}
+
+		boolean wasReset() {
+			return events.stream().anyMatch(event -> event.startsWith("event:reset"));
+		}
+
+		boolean awaitReset() {
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+			while (!wasReset() && System.nanoTime() < deadline) {
+				sleep(10);
+			}
+			return wasReset();
+		}
+
+		private static boolean await(CountDownLatch latch) {
+			try {
+				return latch.await(5, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+	}
+
+}
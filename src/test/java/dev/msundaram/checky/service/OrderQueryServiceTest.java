@@ -0,0 +1,154 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.config.PaginationProperties;
+import dev.msundaram.checky.entity.MenuItem;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import dev.msundaram.checky.repository.OrderRepository;
+import dev.msundaram.checky.security.TenantContext;
+import dev.msundaram.checky.security.TenantContextHolder;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The order read endpoints must take the same number of queries for one order as for a thousand:
+ * one for the orders and one for their items, never one per order or per item.
+ */
+@DataJpaTest(properties = {
+		"spring.flyway.enabled=false",
+		"spring.jpa.hibernate.ddl-auto=create-drop",
+		"spring.jpa.properties.hibernate.generate_statistics=true"
+})
+class OrderQueryServiceTest {
+
+	private static final long RESTAURANT = 1L;
+	private static final int ITEMS_PER_ORDER = 3;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private TestEntityManager entityManager;
+
+	@Autowired
+	private EntityManagerFactory entityManagerFactory;
+
+	private OrderQueryService orderQueryService;
+
+	@BeforeEach
+	void setUp() {
+		PaginationProperties paginationProperties = new PaginationProperties();
+		paginationProperties.setMaxLimit(1000);
+		orderQueryService = new OrderQueryService(orderRepository, new TenantService(), paginationProperties);
+		TenantContextHolder.set(new TenantContext(RESTAURANT, 1L));
+	}
+
+	@AfterEach
+	void tearDown() {
+		TenantContextHolder.clear();
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 100, 1000})
+	void getOrdersTakesTwoQueries(int orders) {
+		persistOrders(orders);
+
+		List<OrderView> views = countingStatements(2, () -> orderQueryService.getOrders(null, orders).items());
+
+		assertEquals(orders, views.size());
+		views.forEach(view -> assertEquals(ITEMS_PER_ORDER, view.orderItems().size()));
+	}
+
+	@ParameterizedTest
+	@ValueSource(ints = {1, 100, 1000})
+	void getOrdersByStatusTakesTwoQueries(int orders) {
+		persistOrders(orders);
+
+		List<OrderView> views = countingStatements(2, () -> orderQueryService.getOrdersByStatus(Order.OrderStatus.PENDING, null, orders).items());
+
+		assertEquals(orders, views.size());
+		views.forEach(view -> {
+			assertEquals(ITEMS_PER_ORDER, view.orderItems().size());
+			view.orderItems().forEach(item -> assertEquals("Dish " + item.quantity(), item.menuItemName()));
+		});
+	}
+
+	@Test
+	void getOrdersByStatusPagesThroughEveryOrderOnce() {
+		persistOrders(5);
+		entityManager.clear();
+
+		Set<Long> seen = new HashSet<>();
+		String cursor = null;
+		int pages = 0;
+		do {
+			CursorPage<OrderView> page = orderQueryService.getOrdersByStatus(Order.OrderStatus.PENDING, cursor, 2);
+			page.items().forEach(view -> assertTrue(seen.add(view.id())));
+			cursor = page.nextCursor();
+			pages++;
+		} while (cursor != null);
+
+		assertEquals(5, seen.size());
+		assertEquals(3, pages);
+	}
+
+	private <T> T countingStatements(long expected, Supplier<T> read) {
+		entityManager.clear();
+		Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+		statistics.clear();
+
+		T result = read.get();
+
+		assertEquals(expected, statistics.getPrepareStatementCount());
+		return result;
+	}
+
+	private void persistOrders(int count) {
+		List<MenuItem> menuItems = new ArrayList<>();
+		for (int i = 1; i <= ITEMS_PER_ORDER; i++) {
+			MenuItem menuItem = new MenuItem();
+			menuItem.setTenantId(RESTAURANT);
+			menuItem.setName("Dish " + i);
+			menuItem.setPrice(new BigDecimal("9.50"));
+			menuItems.add(entityManager.persist(menuItem));
+		}
+
+		for (int n = 0; n < count; n++) {
+			Order order = new Order();
+			order.setTenantId(RESTAURANT);
+			order.setOrderNumber("ORD-1-" + n);
+			for (int i = 0; i < ITEMS_PER_ORDER; i++) {
+				OrderItem item = new OrderItem();
+				item.setTenantId(RESTAURANT);
+				item.setOrder(order);
+				item.setMenuItem(menuItems.get(i));
+				item.setQuantity(i + 1);
+				item.setUnitPrice(new BigDecimal("9.50"));
+				item.setTotalPrice(new BigDecimal("9.50"));
+				order.getOrderItems().add(item);
+			}
+			entityManager.persist(order);
+		}
+		entityManager.flush();
+	}
+
+}
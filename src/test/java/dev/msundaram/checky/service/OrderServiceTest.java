@@ -0,0 +1,321 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.msundaram.checky.entity.MenuItem;
+import dev.msundaram.checky.entity.Order;
+import dev.msundaram.checky.entity.OrderItem;
+import dev.msundaram.checky.repository.MenuItemRepository;
+import dev.msundaram.checky.repository.OrderRepository;
+import dev.msundaram.checky.repository.RestaurantRepository;
+import dev.msundaram.checky.security.TenantContext;
+import dev.msundaram.checky.security.TenantContextHolder;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Status and payment transitions as single conditional UPDATE ... RETURNING statements, one order at
+ * a time through {@link OrderService} and in bulk through {@link OrderTransitionService}: each one
+ * bumps the version, and refused ones leave the order untouched and say why. New orders, single or
+ * batched, are always inserted and start out pending whatever id, version and statuses the request
+ * carries.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OrderServiceTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long RESTAURANT = 1L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	@Autowired
+	private OrderRepository orderRepository;
+
+	@Autowired
+	private MenuItemRepository menuItemRepository;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	private MenuPriceCache menuPriceCache;
+
+	private OrderService orderService;
+
+	private OrderTransitionService orderTransitionService;
+
+	private OrderBatchService orderBatchService;
+
+	private TransactionTemplate transactionTemplate;
+
+	private Long menuItemId;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE orders, order_items, menu_items, outbox_events, outbox_sequences, inventory_consumption_events, order_idempotency_keys, sales_hourly_rollups CASCADE");
+		menuItemId = jdbcTemplate.queryForObject(
+				"INSERT INTO menu_items (tenant_id, name, price, is_available, is_active) VALUES (?, 'Margherita', 9.50, true, true) RETURNING id",
+				Long.class, RESTAURANT);
+
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		OutboxService outboxService = new OutboxService(jdbcTemplate, new ObjectMapper(), entityManager);
+		menuPriceCache = new MenuPriceCache(menuItemRepository, 100, Duration.ofMinutes(1), meterRegistry);
+		AtomicLong orderNumbers = new AtomicLong();
+		DocumentNumberService documentNumberService = new DocumentNumberService(jdbcTemplate.getDataSource(), null, meterRegistry) {
+			@Override
+			public String next(DocumentType type, Long restaurantId) {
+				return "ORD-" + restaurantId + "-" + orderNumbers.incrementAndGet();
+			}
+		};
+		orderService = new OrderService(orderRepository,
+				new RestaurantSettingsCache(restaurantRepository, 100, Duration.ofMinutes(1), meterRegistry),
+				menuPriceCache,
+				new TenantService(),
+				new InventoryConsumptionService(jdbcTemplate, null, transactionManager, 100, false, 5, Duration.ofMinutes(1), meterRegistry),
+				documentNumberService, outboxService);
+		orderTransitionService = new OrderTransitionService(jdbcTemplate, outboxService, new TenantService(), 500);
+		orderBatchService = new OrderBatchService(orderService,
+				new InventoryConsumptionService(jdbcTemplate, null, transactionManager, 100, false, 5, Duration.ofMinutes(1), meterRegistry),
+				outboxService, new RestaurantSettingsCache(restaurantRepository, 100, Duration.ofMinutes(1), meterRegistry),
+				documentNumberService, new TenantService(), jdbcTemplate, new NamedParameterJdbcTemplate(jdbcTemplate),
+				transactionManager, entityManager, 500, 50, Duration.ofDays(7));
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		TenantContextHolder.set(new TenantContext(RESTAURANT, 1L));
+	}
+
+	@AfterEach
+	void tearDown() {
+		TenantContextHolder.clear();
+	}
+
+	@Test
+	void createsANewOrderWhateverIdAndVersionTheRequestCarries() {
+		Order existing = createOrder();
+
+		Order request = orderRequest();
+		request.setId(existing.getId());
+		request.setVersion(7L);
+		request.getOrderItems().get(0).setId(12345L);
+		Order created = inTransaction(() -> orderService.createOrder(request));
+
+		assertNotEquals(existing.getId(), created.getId());
+		assertEquals(0L, created.getVersion());
+		assertEquals(2, count("SELECT count(*) FROM orders"));
+		assertEquals(0L, version(existing.getId()));
+	}
+
+	@Test
+	void startsNewOrdersPendingWhateverStatusesTheRequestCarries() {
+		Order request = orderRequest();
+		request.setOrderStatus(Order.OrderStatus.SERVED);
+		request.setPaymentStatus(Order.PaymentStatus.PAID);
+		request.getOrderItems().get(0).setItemStatus(OrderItem.ItemStatus.READY);
+		Order withoutStatuses = orderRequest();
+		withoutStatuses.setOrderStatus(null);
+		withoutStatuses.setPaymentStatus(null);
+
+		inTransaction(() -> orderService.createOrder(request));
+		orderBatchService.createOrders(List.of(new OrderBatchItem("a", withoutStatuses)));
+
+		assertEquals(List.of("PENDING/PENDING", "PENDING/PENDING"), jdbcTemplate.queryForList(
+				"SELECT order_status || '/' || payment_status FROM orders ORDER BY id", String.class));
+		assertEquals(List.of("PENDING", "PENDING"), jdbcTemplate.queryForList(
+				"SELECT item_status FROM order_items ORDER BY id", String.class));
+		assertEquals(0, count("SELECT count(*) FROM sales_hourly_rollups WHERE payment_status = 'PAID' AND order_count > 0"));
+	}
+
+	@Test
+	void refusesDeletedOrUnavailableMenuItemsAndOutOfRangeDiscounts() {
+		Order negative = orderRequest();
+		negative.setDiscountAmount(new BigDecimal("-1.00"));
+		Order tooLarge = orderRequest();
+		tooLarge.setDiscountAmount(new BigDecimal("19.01"));
+		Order whole = orderRequest();
+		whole.setDiscountAmount(new BigDecimal("19.00"));
+
+		assertThrows(IllegalArgumentException.class, () -> inTransaction(() -> orderService.createOrder(negative)));
+		assertThrows(IllegalArgumentException.class, () -> inTransaction(() -> orderService.createOrder(tooLarge)));
+		// The whole subtotal may be taken off, leaving only the charges on it
+		Order free = inTransaction(() -> orderService.createOrder(whole));
+		assertEquals(free.getTaxAmount().add(free.getServiceCharge()), free.getTotalAmount());
+
+		List<String> changes = List.of("UPDATE menu_items SET is_available = false",
+				"UPDATE menu_items SET is_available = true, is_active = false");
+		for (int i = 0; i < changes.size(); i++) {
+			jdbcTemplate.update(changes.get(i));
+			// As MenuItemPriceListener does once a menu item change commits
+			menuPriceCache.invalidate(RESTAURANT);
+
+			assertThrows(IllegalArgumentException.class, () -> inTransaction(() -> orderService.createOrder(orderRequest())));
+			assertEquals(OrderBatchResult.Status.FAILED,
+					orderBatchService.createOrders(List.of(new OrderBatchItem("key-" + i, orderRequest()))).get(0).status());
+		}
+		assertEquals(1, count("SELECT count(*) FROM orders"));
+	}
+
+	@Test
+	void retriesABatchOrderByOrderAfterItsChunkFails() {
+		Order tooLong = orderRequest();
+		tooLong.setTableNumber("T".repeat(300));
+		Order withVersion = orderRequest();
+		withVersion.setId(1L);
+		withVersion.setVersion(3L);
+
+		// The failed chunk gave the good orders ids and versions, which the retry has to drop
+		List<OrderBatchResult> results = orderBatchService.createOrders(List.of(
+				new OrderBatchItem("a", orderRequest()), new OrderBatchItem("b", tooLong), new OrderBatchItem("c", withVersion)));
+
+		assertEquals(List.of(OrderBatchResult.Status.CREATED, OrderBatchResult.Status.FAILED, OrderBatchResult.Status.CREATED),
+				results.stream().map(OrderBatchResult::status).toList());
+		assertEquals(List.of(results.get(0).orderId(), results.get(2).orderId()),
+				jdbcTemplate.queryForList("SELECT order_id FROM order_idempotency_keys ORDER BY idempotency_key", Long.class));
+		assertEquals(List.of(0L, 0L), jdbcTemplate.queryForList("SELECT version FROM orders ORDER BY id", Long.class));
+		assertEquals(2, count("SELECT count(*) FROM order_items"));
+	}
+
+	@Test
+	void movesAnOrderForwardAndBumpsItsVersionEachTime() {
+		Long orderId = createOrder().getId();
+
+		Order confirmed = inTransaction(() -> orderService.updateOrderStatus(orderId, Order.OrderStatus.CONFIRMED));
+		assertEquals(Order.OrderStatus.CONFIRMED, confirmed.getOrderStatus());
+		assertEquals(1L, confirmed.getVersion());
+
+		// Skipping steps is allowed, at the version the client read
+		Order ready = inTransaction(() -> orderService.updateOrderStatus(orderId, Order.OrderStatus.READY, 1L));
+		assertEquals(2L, ready.getVersion());
+		Order paid = inTransaction(() -> orderService.updatePaymentStatus(orderId, Order.PaymentStatus.PAID, 2L));
+		assertEquals(Order.PaymentStatus.PAID, paid.getPaymentStatus());
+		assertEquals(Order.OrderStatus.READY, paid.getOrderStatus());
+		assertEquals(3L, paid.getVersion());
+
+		assertEquals(3L, version(orderId));
+		assertEquals(List.of("ORDER_CREATED", "ORDER_STATUS_CHANGED", "ORDER_STATUS_CHANGED", "ORDER_PAYMENT_STATUS_CHANGED"),
+				jdbcTemplate.queryForList("SELECT event_type FROM outbox_events ORDER BY sequence", String.class));
+	}
+
+	@Test
+	void refusesIllegalTransitionsAndStaleVersionsAsConflicts() {
+		Long orderId = createOrder().getId();
+		inTransaction(() -> orderService.updateOrderStatus(orderId, Order.OrderStatus.SERVED));
+
+		OrderConflictException backwards = assertThrows(OrderConflictException.class,
+				() -> inTransaction(() -> orderService.updateOrderStatus(orderId, Order.OrderStatus.PREPARING)));
+		assertTrue(backwards.getMessage().contains("cannot move from SERVED to PREPARING"), backwards.getMessage());
+		assertThrows(OrderConflictException.class, () -> inTransaction(() -> orderService.cancelOrder(orderId)));
+		// No status can move back to PENDING, so the update is not even attempted
+		assertThrows(OrderConflictException.class,
+				() -> inTransaction(() -> orderService.updateOrderStatus(orderId, Order.OrderStatus.PENDING)));
+		OrderConflictException refund = assertThrows(OrderConflictException.class,
+				() -> inTransaction(() -> orderService.updatePaymentStatus(orderId, Order.PaymentStatus.REFUNDED)));
+		assertTrue(refund.getMessage().contains("Payment cannot move from PENDING to REFUNDED"), refund.getMessage());
+
+		OrderConflictException stale = assertThrows(OrderConflictException.class,
+				() -> inTransaction(() -> orderService.updatePaymentStatus(orderId, Order.PaymentStatus.PAID, 0L)));
+		assertTrue(stale.getMessage().contains("is at version 1, not 0"), stale.getMessage());
+
+		RuntimeException missing = assertThrows(RuntimeException.class,
+				() -> inTransaction(() -> orderService.updateOrderStatus(orderId + 1000, Order.OrderStatus.CONFIRMED)));
+		assertEquals("Order not found", missing.getMessage());
+
+		assertEquals(1L, version(orderId));
+		assertEquals(2, count("SELECT count(*) FROM outbox_events"));
+	}
+
+	@Test
+	void transitionsManyOrdersInOneUpdateAndReportEachRefusal() {
+		Long open = createOrder().getId();
+		Long served = createOrder().getId();
+		Long unpaid = createOrder().getId();
+		inTransaction(() -> orderService.updateOrderStatus(served, Order.OrderStatus.SERVED));
+		inTransaction(() -> orderService.updatePaymentStatus(unpaid, Order.PaymentStatus.PAID));
+		Long unknown = unpaid + 1000;
+
+		List<OrderTransitionResult> results = inTransaction(() -> orderTransitionService.transition(
+				List.of(open, served, open, unknown), Order.OrderStatus.CANCELLED, null));
+
+		assertEquals(List.of(open, served, unknown), results.stream().map(OrderTransitionResult::orderId).toList());
+		assertEquals(List.of(OrderTransitionResult.Status.UPDATED, OrderTransitionResult.Status.CONFLICT, OrderTransitionResult.Status.NOT_FOUND),
+				results.stream().map(OrderTransitionResult::status).toList());
+		assertEquals(1L, results.get(0).version());
+		assertEquals("Order cannot move from SERVED to CANCELLED", results.get(1).error());
+		assertEquals(1L, results.get(1).version());
+
+		// An order gets all of the requested changes or none: the paid order is not served either
+		List<OrderTransitionResult> serveAndPay = inTransaction(() -> orderTransitionService.transition(
+				List.of(unpaid), Order.OrderStatus.SERVED, Order.PaymentStatus.PAID));
+		assertEquals(OrderTransitionResult.Status.CONFLICT, serveAndPay.get(0).status());
+		assertEquals("Payment cannot move from PAID to PAID", serveAndPay.get(0).error());
+		assertEquals("PENDING", jdbcTemplate.queryForObject("SELECT order_status FROM orders WHERE id = ?", String.class, unpaid));
+
+		assertEquals(1, count("SELECT count(*) FROM outbox_events WHERE event_type = 'ORDER_STATUS_CHANGED' AND aggregate_id = " + open));
+		assertEquals("CANCELLED", jdbcTemplate.queryForObject("SELECT order_status FROM orders WHERE id = ?", String.class, open));
+	}
+
+	private Order createOrder() {
+		return inTransaction(() -> orderService.createOrder(orderRequest()));
+	}
+
+	private Order orderRequest() {
+		MenuItem menuItem = new MenuItem();
+		menuItem.setId(menuItemId);
+		OrderItem item = new OrderItem();
+		item.setMenuItem(menuItem);
+		item.setQuantity(2);
+		Order order = new Order();
+		order.setOrderType(Order.OrderType.TAKEAWAY);
+		order.getOrderItems().add(item);
+		return order;
+	}
+
+	private <T> T inTransaction(Supplier<T> action) {
+		return transactionTemplate.execute(status -> action.get());
+	}
+
+	private long version(Long orderId) {
+		return jdbcTemplate.queryForObject("SELECT version FROM orders WHERE id = ?", Long.class, orderId);
+	}
+
+	private int count(String sql) {
+		return jdbcTemplate.queryForObject(sql, Integer.class);
+	}
+
+}
@@ -0,0 +1,56 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.entity.Order.OrderStatus;
+import dev.msundaram.checky.entity.Order.PaymentStatus;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The order and payment state machines, and the source statuses the conditional updates match on.
+ */
+class OrderTransitionsTest {
+
+	@Test
+	void ordersOnlyMoveForwardAndCanBeCancelledUntilServed() {
+		OrderStatus[] lifecycle = {OrderStatus.PENDING, OrderStatus.CONFIRMED, OrderStatus.PREPARING, OrderStatus.READY, OrderStatus.SERVED};
+		for (int from = 0; from < lifecycle.length; from++) {
+			for (int to = 0; to < lifecycle.length; to++) {
+				assertEquals(to > from, OrderTransitions.isAllowed(lifecycle[from], lifecycle[to]),
+						lifecycle[from] + " -> " + lifecycle[to]);
+			}
+			assertEquals(lifecycle[from] != OrderStatus.SERVED, OrderTransitions.isAllowed(lifecycle[from], OrderStatus.CANCELLED));
+		}
+
+		for (OrderStatus target : OrderStatus.values()) {
+			assertFalse(OrderTransitions.isAllowed(OrderStatus.CANCELLED, target), "CANCELLED -> " + target);
+		}
+	}
+
+	@Test
+	void paymentsFollowTheirOwnStateMachine() {
+		assertTrue(OrderTransitions.isAllowed(PaymentStatus.PENDING, PaymentStatus.PAID));
+		assertTrue(OrderTransitions.isAllowed(PaymentStatus.PENDING, PaymentStatus.FAILED));
+		assertTrue(OrderTransitions.isAllowed(PaymentStatus.FAILED, PaymentStatus.PAID));
+		assertTrue(OrderTransitions.isAllowed(PaymentStatus.FAILED, PaymentStatus.PENDING));
+		assertTrue(OrderTransitions.isAllowed(PaymentStatus.PAID, PaymentStatus.REFUNDED));
+
+		assertFalse(OrderTransitions.isAllowed(PaymentStatus.PENDING, PaymentStatus.REFUNDED));
+		assertFalse(OrderTransitions.isAllowed(PaymentStatus.PAID, PaymentStatus.PENDING));
+		assertFalse(OrderTransitions.isAllowed(PaymentStatus.PAID, PaymentStatus.PAID));
+		assertFalse(OrderTransitions.isAllowed(PaymentStatus.REFUNDED, PaymentStatus.PAID));
+	}
+
+	@Test
+	void sourcesAreTheStoredNamesOfTheStatusesATargetIsReachableFrom() {
+		assertEquals(List.of(), OrderTransitions.sourcesOf(OrderStatus.PENDING));
+		assertEquals(List.of("PENDING", "CONFIRMED"), OrderTransitions.sourcesOf(OrderStatus.PREPARING));
+		assertEquals(List.of("PENDING", "CONFIRMED", "PREPARING", "READY"), OrderTransitions.sourcesOf(OrderStatus.CANCELLED));
+		assertEquals(List.of("PAID"), OrderTransitions.sourcesOf(PaymentStatus.REFUNDED));
+	}
+
+}
@@ -0,0 +1,217 @@
+package dev.msundaram.checky.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Each restaurant's outbox events are delivered in commit order, and a failing event holds up only
+ * its own restaurant until it is dead-lettered.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OutboxRelayTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long HEALTHY = 1L;
+	private static final long FAILING = 2L;
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private EntityManager entityManager;
+
+	private OutboxService outboxService;
+
+	private TransactionTemplate transactionTemplate;
+
+	// Aggregate ids as the sink received them, and those it fails on
+	private final List<Long> delivered = new CopyOnWriteArrayList<>();
+	private final Set<Long> poison = new CopyOnWriteArraySet<>();
+
+	private final OutboxSink sink = events -> {
+		for (OutboxEvent event : events) {
+			if (poison.contains(event.aggregateId())) {
+				throw new IllegalStateException("broker rejected " + event.aggregateId());
+			}
+		}
+		events.forEach(event -> delivered.add(event.aggregateId()));
+	};
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE outbox_events, outbox_sequences, outbox_dead_letters");
+		outboxService = new OutboxService(jdbcTemplate, new ObjectMapper(), entityManager);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	void deliversEachRestaurantsEventsInTheOrderTheyWereRecorded() {
+		record(HEALTHY, 1L, 2L);
+		record(FAILING, 10L);
+		record(HEALTHY, 3L);
+		assertEquals(List.of(1L, 2L, 3L), jdbcTemplate.queryForList(
+				"SELECT sequence FROM outbox_events WHERE tenant_id = ? ORDER BY id", Long.class, HEALTHY));
+
+		assertEquals(4, relay(2, Duration.ofMinutes(1)).relay());
+
+		assertEquals(List.of(1L, 2L, 3L), delivered.stream().filter(id -> id < 10).toList());
+		assertTrue(delivered.contains(10L));
+		assertEquals(0, pending());
+	}
+
+	@Test
+	void numbersARestaurantsEventsInCommitOrder() throws Exception {
+		CountDownLatch recorded = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// The first transaction takes the restaurant's sequence row just before it commits and is held there
+		CompletableFuture<Void> first = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			outboxService.record(HEALTHY, OutboxEventType.ORDER_CREATED, 1L, Map.of());
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void beforeCommit(boolean readOnly) {
+					recorded.countDown();
+					await(release);
+				}
+			});
+		}));
+		assertTrue(recorded.await(5, TimeUnit.SECONDS));
+
+		CompletableFuture<Void> second = CompletableFuture.runAsync(() -> record(HEALTHY, 2L));
+		Thread.sleep(300);
+		assertFalse(second.isDone());
+		release.countDown();
+		first.get(5, TimeUnit.SECONDS);
+		second.get(5, TimeUnit.SECONDS);
+
+		assertEquals(List.of(1L, 2L), jdbcTemplate.queryForList(
+				"SELECT aggregate_id FROM outbox_events WHERE tenant_id = ? ORDER BY sequence", Long.class, HEALTHY));
+	}
+
+	@Test
+	void writesNothingWhenTheTransactionRollsBack() {
+		transactionTemplate.executeWithoutResult(status -> {
+			outboxService.record(HEALTHY, OutboxEventType.ORDER_CREATED, 1L, Map.of());
+			status.setRollbackOnly();
+		});
+
+		assertEquals(0, pending());
+	}
+
+	@Test
+	void keepsRelayingOtherRestaurantsWhenOneFails() {
+		poison.add(10L);
+		record(FAILING, 10L, 11L);
+		record(HEALTHY, 1L);
+		OutboxRelay relay = relay(100, Duration.ofMinutes(1));
+
+		assertEquals(1, relay.relay());
+
+		assertEquals(List.of(1L), delivered);
+		assertEquals(2, pending());
+		// The failure is charged to the first event, and the restaurant waits for its retry
+		assertTrue(jdbcTemplate.queryForObject(
+				"SELECT attempts = 1 AND retry_at > now() AND last_error LIKE '%broker rejected 10%' FROM outbox_events WHERE aggregate_id = 10",
+				Boolean.class));
+		assertEquals(0, relay.relay());
+	}
+
+	@Test
+	void keepsRelayingOtherRestaurantsBehindAFailingBacklogLargerThanABatch() {
+		poison.add(10L);
+		record(FAILING, 10L, 11L, 12L, 13L, 14L);
+		record(HEALTHY, 1L);
+		OutboxRelay relay = relay(3, Duration.ofMinutes(1));
+
+		assertEquals(1, relay.relay());
+		record(HEALTHY, 2L, 3L, 4L, 5L);
+		assertEquals(4, relay.relay());
+
+		assertEquals(List.of(1L, 2L, 3L, 4L, 5L), delivered);
+		assertEquals(5, pending());
+	}
+
+	@Test
+	void deadLettersAnEventThatKeepsFailingAndDeliversTheRest() {
+		poison.add(11L);
+		record(FAILING, 10L, 11L, 12L);
+		OutboxRelay relay = relay(100, Duration.ZERO);
+
+		// The batch fails and is retried event by event until 11 has used up its attempts
+		for (int poll = 0; poll < 4; poll++) {
+			relay.relay();
+		}
+
+		assertEquals(List.of(10L, 12L), delivered);
+		assertEquals(0, pending());
+		assertEquals(List.of(11L), jdbcTemplate.queryForList(
+				"SELECT aggregate_id FROM outbox_dead_letters WHERE attempts = 2", Long.class));
+	}
+
+	private OutboxRelay relay(int batchSize, Duration retryDelay) {
+		return new OutboxRelay(jdbcTemplate, transactionManager, event -> { },
+				new StaticListableBeanFactory(Map.of("sink", sink)).getBeanProvider(OutboxSink.class),
+				batchSize, true, 2, retryDelay, new SimpleMeterRegistry());
+	}
+
+	private void record(long tenantId, Long... aggregateIds) {
+		transactionTemplate.executeWithoutResult(status -> {
+			for (Long aggregateId : aggregateIds) {
+				outboxService.record(tenantId, OutboxEventType.ORDER_CREATED, aggregateId, Map.of("id", aggregateId));
+			}
+		});
+	}
+
+	private int pending() {
+		return jdbcTemplate.queryForObject("SELECT count(*) FROM outbox_events", Integer.class);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
@@ -0,0 +1,66 @@
+package dev.msundaram.checky.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class PricingEngineTest {
+
+	@Test
+	void totalsMatchBigDecimalArithmetic() {
+		Random random = new Random(20240601L);
+		for (int n = 0; n < 10_000; n++) {
+			int lines = 1 + random.nextInt(8);
+			long subtotal = 0;
+			BigDecimal expectedSubtotal = BigDecimal.ZERO.setScale(2);
+			for (int line = 0; line < lines; line++) {
+				long unitPrice = random.nextInt(500_000);
+				int quantity = 1 + random.nextInt(20);
+				subtotal += PricingEngine.lineTotal(unitPrice, quantity);
+				expectedSubtotal = expectedSubtotal.add(BigDecimal.valueOf(unitPrice, 2).multiply(BigDecimal.valueOf(quantity)));
+			}
+			double taxRate = random.nextInt(300_000) / 10_000.0;
+			double serviceChargeRate = random.nextInt(3) == 0 ? 0 : random.nextInt(2_500) / 100.0;
+			BigDecimal discount = BigDecimal.valueOf(random.nextInt(2_000), 2);
+
+			PricingEngine.Totals totals = PricingEngine.totals(subtotal, PricingEngine.toMinorUnits(discount),
+					PricingEngine.rate(taxRate), PricingEngine.rate(serviceChargeRate));
+
+			BigDecimal expectedTax = percentOf(expectedSubtotal, taxRate);
+			BigDecimal expectedServiceCharge = percentOf(expectedSubtotal, serviceChargeRate);
+			BigDecimal expectedTotal = expectedSubtotal.add(expectedTax).add(expectedServiceCharge).subtract(discount);
+			String context = "subtotal " + expectedSubtotal + ", tax rate " + taxRate + ", service rate " + serviceChargeRate;
+			assertEquals(expectedSubtotal, PricingEngine.toBigDecimal(totals.subtotal()), context);
+			assertEquals(expectedTax, PricingEngine.toBigDecimal(totals.taxAmount()), context);
+			assertEquals(expectedServiceCharge, PricingEngine.toBigDecimal(totals.serviceCharge()), context);
+			assertEquals(expectedTotal, PricingEngine.toBigDecimal(totals.totalAmount()), context);
+		}
+	}
+
+	@Test
+	void roundsHalfCentsUp() {
+		// 10.50 * 5% = 0.525 and 0.10 * 5% = 0.005
+		assertEquals(53, PricingEngine.percentOf(1_050, PricingEngine.rate(5)));
+		assertEquals(1, PricingEngine.percentOf(10, PricingEngine.rate(5)));
+		assertEquals(0, PricingEngine.percentOf(9, PricingEngine.rate(5)));
+		// 19.99 * 8.875% = 1.77411...
+		assertEquals(177, PricingEngine.percentOf(1_999, PricingEngine.rate(8.875)));
+		assertEquals(-53, PricingEngine.divideHalfUp(-525, 10));
+	}
+
+	@Test
+	void convertsToAndFromMinorUnits() {
+		assertEquals(1_999, PricingEngine.toMinorUnits(new BigDecimal("19.99")));
+		assertEquals(1_000, PricingEngine.toMinorUnits(new BigDecimal("10")));
+		assertEquals(13, PricingEngine.toMinorUnits(new BigDecimal("0.125")));
+		assertEquals(new BigDecimal("19.99"), PricingEngine.toBigDecimal(1_999));
+	}
+
+	private static BigDecimal percentOf(BigDecimal amount, double rate) {
+		return amount.multiply(BigDecimal.valueOf(rate)).divide(BigDecimal.valueOf(100), 2, RoundingMode.HALF_UP);
+	}
+}
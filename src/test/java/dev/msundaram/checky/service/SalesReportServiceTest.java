@@ -0,0 +1,224 @@
+package dev.msundaram.checky.service;
+
+import dev.msundaram.checky.repository.RestaurantRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.testcontainers.service.connection.ServiceConnection;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The rollup triggers keep sales_hourly_rollups equal to a fresh aggregate of the orders, and a
+ * rebuild restores it for one restaurant while holding up only that restaurant's order writes.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@DataJpaTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SalesReportServiceTest {
+
+	@Container
+	@ServiceConnection
+	static PostgreSQLContainer<?> postgres = new PostgreSQLContainer<>("postgres:16-alpine");
+
+	private static final long FIRST = 1L;
+	private static final long SECOND = 2L;
+
+	// Midday two days ago, so that rebuilding the surrounding days covers it in any server zone
+	private static final LocalDateTime NOON = LocalDate.now().minusDays(2).atTime(12, 0);
+
+	private static final String ROLLUPS_SQL = """
+			SELECT hour_start, order_type, payment_status, order_count, cancelled_count, subtotal, total_amount
+			FROM sales_hourly_rollups
+			WHERE tenant_id = ? AND (order_count, cancelled_count, subtotal, total_amount) <> (0, 0, 0, 0)
+			ORDER BY 1, 2, 3""";
+
+	private static final String EXPECTED_SQL = """
+			SELECT date_trunc('hour', created_at)::timestamp(0) AS hour_start, coalesce(order_type, 'DINE_IN') AS order_type,
+			       coalesce(payment_status, 'PENDING') AS payment_status,
+			       count(*) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED') AS order_count,
+			       count(*) FILTER (WHERE order_status = 'CANCELLED') AS cancelled_count,
+			       coalesce(sum(subtotal) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0)::numeric(14, 2) AS subtotal,
+			       coalesce(sum(total_amount) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED'), 0)::numeric(14, 2) AS total_amount
+			FROM orders WHERE tenant_id = ?
+			GROUP BY 1, 2, 3
+			HAVING count(*) FILTER (WHERE order_status IS DISTINCT FROM 'CANCELLED') > 0
+			    OR count(*) FILTER (WHERE order_status = 'CANCELLED') > 0
+			ORDER BY 1, 2, 3""";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private RestaurantRepository restaurantRepository;
+
+	private SalesReportService salesReportService;
+
+	private TransactionTemplate transactionTemplate;
+
+	@BeforeEach
+	void setUp() {
+		jdbcTemplate.execute("TRUNCATE orders, order_items, sales_hourly_rollups CASCADE");
+		salesReportService = new SalesReportService(jdbcTemplate, new TenantService(),
+				new RestaurantSettingsCache(restaurantRepository, 100, Duration.ofMinutes(1), new SimpleMeterRegistry()),
+				transactionManager, 7);
+		transactionTemplate = new TransactionTemplate(transactionManager);
+	}
+
+	@Test
+	void keepsTheRollupsEqualToTheOrdersThroughBulkChanges() {
+		for (int offset = 0; offset < 3; offset++) {
+			insertOrders(FIRST, hour(offset), "DINE_IN", "TAKEAWAY", "DINE_IN");
+			insertOrders(SECOND, hour(offset), "DELIVERY");
+		}
+
+		jdbcTemplate.update("UPDATE orders SET payment_status = 'PAID' WHERE tenant_id = ? AND order_type = 'DINE_IN'", FIRST);
+		jdbcTemplate.update("UPDATE orders SET order_status = 'CANCELLED' WHERE tenant_id = ? AND id % 3 = 0", FIRST);
+		jdbcTemplate.update("UPDATE orders SET order_status = 'CONFIRMED' WHERE tenant_id = ? AND order_status = 'PENDING'", FIRST);
+		jdbcTemplate.update("UPDATE orders SET total_amount = total_amount + 1, subtotal = subtotal + 1 WHERE tenant_id = ?", SECOND);
+		jdbcTemplate.update("DELETE FROM orders WHERE id = (SELECT max(id) FROM orders WHERE tenant_id = ?)", SECOND);
+
+		assertRollupsMatchOrders(FIRST);
+		assertRollupsMatchOrders(SECOND);
+		assertEquals(3, rollups(FIRST).stream().mapToLong(row -> (Long) row.get("cancelled_count")).sum());
+	}
+
+	@Test
+	void rebuildsOnlyTheGivenRestaurant() {
+		insertOrders(FIRST, NOON, "DINE_IN", "TAKEAWAY");
+		insertOrders(SECOND, NOON, "DINE_IN");
+		jdbcTemplate.update("UPDATE sales_hourly_rollups SET order_count = order_count + 5, total_amount = 0");
+
+		SalesRollupRebuildJob job = new SalesRollupRebuildJob(salesReportService, jdbcTemplate, "", "", List.of(FIRST));
+		assertEquals(2, job.run(NOON.toLocalDate().minusDays(1), NOON.toLocalDate().plusDays(2)));
+
+		assertRollupsMatchOrders(FIRST);
+		assertNotEquals(expected(SECOND), rollups(SECOND));
+	}
+
+	@Test
+	void refusesEmptyAndOverlongRanges() {
+		LocalDate today = LocalDate.now();
+
+		assertThrows(IllegalArgumentException.class, () -> salesReportService.rebuild(FIRST, today, today));
+		assertThrows(IllegalArgumentException.class, () -> salesReportService.rebuild(FIRST, today, today.minusDays(1)));
+		assertThrows(IllegalArgumentException.class, () -> salesReportService.rebuild(FIRST, today, today.plusDays(8)));
+		assertEquals(0, salesReportService.rebuild(FIRST, today, today.plusDays(7)));
+	}
+
+	@Test
+	void aRebuildWaitsForItsRestaurantsWritesInFlightOnly() throws Exception {
+		insertOrders(FIRST, NOON, "DINE_IN");
+		CountDownLatch written = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		// An order of the first restaurant whose transaction is still open after its trigger ran
+		CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> transactionTemplate.executeWithoutResult(status -> {
+			insertOrders(FIRST, NOON, "TAKEAWAY");
+			written.countDown();
+			await(release);
+		}));
+		assertTrue(written.await(5, TimeUnit.SECONDS));
+
+		LocalDate from = NOON.toLocalDate().minusDays(1);
+		LocalDate to = NOON.toLocalDate().plusDays(2);
+		CompletableFuture<Integer> blocked = CompletableFuture.supplyAsync(() -> salesReportService.rebuild(FIRST, from, to));
+		assertEquals(0, CompletableFuture.supplyAsync(() -> salesReportService.rebuild(SECOND, from, to)).get(5, TimeUnit.SECONDS));
+		Thread.sleep(300);
+		assertFalse(blocked.isDone());
+
+		release.countDown();
+		writer.get(5, TimeUnit.SECONDS);
+		assertEquals(2, blocked.get(5, TimeUnit.SECONDS));
+		assertRollupsMatchOrders(FIRST);
+	}
+
+	@Test
+	void concurrentBulkUpdatesOverTheSameHoursDoNotDeadlock() throws Exception {
+		// Each writer's orders are stored in the opposite hour order from the other's
+		List<Long> first = new ArrayList<>(insertOrders(FIRST, hour(0), "DINE_IN"));
+		List<Long> second = new ArrayList<>(insertOrders(FIRST, hour(1), "DINE_IN"));
+		first.addAll(insertOrders(FIRST, hour(1), "DINE_IN"));
+		second.addAll(insertOrders(FIRST, hour(0), "DINE_IN"));
+
+		CompletableFuture<Void> one = CompletableFuture.runAsync(() -> togglePayments(first, 50));
+		CompletableFuture<Void> other = CompletableFuture.runAsync(() -> togglePayments(second, 50));
+		one.get(30, TimeUnit.SECONDS);
+		other.get(30, TimeUnit.SECONDS);
+
+		assertRollupsMatchOrders(FIRST);
+	}
+
+	private void togglePayments(List<Long> orderIds, int times) {
+		for (int i = 0; i < times; i++) {
+			transactionTemplate.executeWithoutResult(status -> jdbcTemplate.update(
+					"UPDATE orders SET payment_status = CASE payment_status WHEN 'PAID' THEN 'PENDING' ELSE 'PAID' END WHERE id = ANY(?)",
+					(Object) orderIds.toArray(new Long[0])));
+		}
+	}
+
+	// One order per type, in one statement; returns their ids
+	private List<Long> insertOrders(long tenantId, LocalDateTime createdAt, String... orderTypes) {
+		List<Long> ids = new ArrayList<>();
+		for (String orderType : orderTypes) {
+			ids.add(jdbcTemplate.queryForObject("""
+					INSERT INTO orders (tenant_id, created_at, order_number, order_type, order_status, payment_status, subtotal, total_amount)
+					VALUES (?, ?, 'ORD-' || nextval('orders_seq'), ?, 'PENDING', 'PENDING', 10.00, 11.50) RETURNING id""",
+					Long.class, tenantId, createdAt, orderType));
+		}
+		return ids;
+	}
+
+	private static LocalDateTime hour(int hours) {
+		return NOON.plusHours(hours);
+	}
+
+	private void assertRollupsMatchOrders(long tenantId) {
+		assertEquals(expected(tenantId), rollups(tenantId));
+	}
+
+	private List<Map<String, Object>> rollups(long tenantId) {
+		return jdbcTemplate.queryForList(ROLLUPS_SQL, tenantId);
+	}
+
+	private List<Map<String, Object>> expected(long tenantId) {
+		return jdbcTemplate.queryForList(EXPECTED_SQL, tenantId);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			assertTrue(latch.await(5, TimeUnit.SECONDS));
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+}
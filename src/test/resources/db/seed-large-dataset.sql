@@ -0,0 +1,71 @@
+-- 200 tenants with enough rows per tenant that an unindexed tenant-scoped query has to scan
+-- far more than it returns. Used by RepositoryIndexUsageTest.
+-- Ids are explicit because the id sequences hand out blocks of 50 (V5).
+
+INSERT INTO restaurants (id, tenant_id, name, tax_rate, service_charge_rate, currency_code, timezone, is_active)
+SELECT t, t, 'Restaurant ' || t, 8.0, 10.0, 'USD', 'UTC', true
+FROM generate_series(1, 200) t;
+
+INSERT INTO api_keys (id, tenant_id, key_hash, restaurant_id, is_active)
+SELECT t, t, md5(t::text) || md5((t + 1000)::text), t, true
+FROM generate_series(1, 200) t;
+
+INSERT INTO categories (id, tenant_id, name, display_order, is_active)
+SELECT g, 1 + (g % 200), 'Category ' || g, g % 20, g % 10 <> 0
+FROM generate_series(1, 20000) g;
+
+INSERT INTO menu_items (id, tenant_id, name, price, category_id, preparation_time_minutes, is_available, display_order, is_active)
+SELECT g, 1 + (g % 200), 'Item ' || g, 9.99, 1 + (g % 20000), 10 + g % 20, g % 10 <> 0, g % 50, true
+FROM generate_series(1, 50000) g;
+
+INSERT INTO restaurant_tables (id, tenant_id, table_number, capacity, table_status, table_type, is_active, is_reservable)
+SELECT g, 1 + (g % 200), 'T' || g, 2 + g % 8,
+       (ARRAY['AVAILABLE', 'OCCUPIED', 'RESERVED', 'CLEANING', 'OUT_OF_SERVICE'])[1 + g % 5],
+       (ARRAY['INDOOR', 'OUTDOOR', 'BAR', 'BOOTH', 'PRIVATE_ROOM'])[1 + g % 5],
+       g % 10 <> 0, g % 3 <> 0
+FROM generate_series(1, 20000) g;
+
+INSERT INTO inventory_items (id, tenant_id, item_code, name, category, unit, current_stock, minimum_stock, reorder_level,
+                             reorder_quantity, unit_cost, supplier_id, expiry_date, is_active, is_perishable, location)
+SELECT g, 1 + (g % 200), 'INV-' || g, 'Ingredient ' || g,
+       (ARRAY['INGREDIENT', 'PACKAGING', 'EQUIPMENT', 'CLEANING_SUPPLY', 'OFFICE_SUPPLY', 'OTHER'])[1 + g % 6],
+       'kg', g % 100, 5, 10, 50, g % 40, g % 30, now() + (g % 60) * interval '1 day', g % 10 <> 0, g % 2 = 0,
+       'Shelf ' || (g % 12)
+FROM generate_series(1, 50000) g;
+
+INSERT INTO recipes (id, tenant_id, name, menu_item_id, preparation_time_minutes, difficulty_level, cuisine_type,
+                     is_active, is_vegetarian, is_gluten_free)
+SELECT g, 1 + (g % 200), 'Recipe ' || g, g, g % 60, (ARRAY['EASY', 'MEDIUM', 'HARD'])[1 + g % 3],
+       (ARRAY['ITALIAN', 'AMERICAN', 'JAPANESE', 'MEXICAN'])[1 + g % 4], g % 10 <> 0, g % 4 = 0, g % 5 = 0
+FROM generate_series(1, 50000) g;
+
+INSERT INTO recipe_ingredients (tenant_id, recipe_id, inventory_item_id, quantity, unit, display_order)
+SELECT r.tenant_id, r.id, 1 + ((r.id * 7 + s) % 50000), 0.25, 'kg', s
+FROM recipes r, generate_series(1, 4) s;
+
+INSERT INTO instructions (tenant_id, recipe_id, step_number, instruction_text)
+SELECT r.tenant_id, r.id, s, 'Step ' || s
+FROM recipes r, generate_series(1, 4) s;
+
+INSERT INTO orders (id, tenant_id, created_at, updated_at, order_number, order_type, order_status, subtotal, tax_amount,
+                    service_charge, discount_amount, total_amount, payment_status)
+SELECT g, 1 + (g % 200), date_trunc('month', now()) + (g % 600) * interval '1 hour', now(), 'ORD-' || g, 'DINE_IN',
+       (ARRAY['PENDING', 'CONFIRMED', 'PREPARING', 'READY', 'SERVED', 'CANCELLED'])[1 + g % 6],
+       20, 1.6, 2, 0, 23.6, (ARRAY['PENDING', 'PAID'])[1 + g % 2]
+FROM generate_series(1, 200000) g;
+
+INSERT INTO order_items (tenant_id, order_id, menu_item_id, quantity, unit_price, total_price, item_status)
+SELECT o.tenant_id, o.id, 1 + (o.id % 50000), 2, 10, 20, 'PENDING'
+FROM orders o;
+
+INSERT INTO inventory_transactions (id, tenant_id, transaction_number, inventory_item_id, transaction_type, quantity,
+                                    reference_number, transaction_date, expiry_date, batch_number, location_from,
+                                    location_to, is_approved)
+SELECT g, 1 + (g % 200), 'TXN-' || g, 1 + (g % 50000),
+       (ARRAY['STOCK_IN', 'STOCK_OUT', 'ADJUSTMENT', 'TRANSFER', 'RETURN', 'DAMAGED', 'EXPIRED'])[1 + g % 7],
+       1, 'REF-' || (g % 5000), date_trunc('month', now()) + (g % 600) * interval '1 hour',
+       now() + (g % 90) * interval '1 day', 'B-' || (g % 1000), 'Shelf ' || (g % 12), 'Shelf ' || ((g + 1) % 12),
+       g % 20 <> 0
+FROM generate_series(1, 200000) g;
+
+ANALYZE;